@@ -0,0 +1,266 @@
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * 分析结果的内存索引：按action路径、类名、包名、文件建立二级索引，支持精确查找和前缀查找
+ * <p>
+ * 索引键统一小写（类名去重本身不区分大小写），路径分隔符统一为/，action路径去掉.do后缀，
+ * 因此 /lot/trackIn.do 与Struts配置中的 /lot/trackIn 命中同一个键。
+ * 构建后只读，查询无需加锁；刷新时整体替换为新实例。
+ */
+public class AnalysisIndex {
+
+    static final String INDEX_ACTION_PATH = "actionPath";
+    static final String INDEX_CLASS = "class";
+    static final String INDEX_PACKAGE = "package";
+    static final String INDEX_FILE = "file";
+
+    // 索引名 → 参与该索引的字段（所有Sheet通用，扩展提取器的Sheet使用同名字段也会被索引）
+    private static final Map<String, String[]> INDEX_FIELDS = new LinkedHashMap<>();
+
+    static {
+        INDEX_FIELDS.put(INDEX_ACTION_PATH, new String[]{"actionPath", "fullActionPath", "doPath"});
+        INDEX_FIELDS.put(INDEX_CLASS, new String[]{"actionClassName", "interfaceName", "implClassName", "sourceClass", "actionType"});
+        INDEX_FIELDS.put(INDEX_PACKAGE, new String[]{"packageName"});
+        INDEX_FIELDS.put(INDEX_FILE, new String[]{"relativePath", "fileRelativePath", "actionRelativePath"});
+    }
+
+    // 调用链追踪的最大深度（Action → Service → Manager → Dao通常3~4层）
+    private static final int MAX_TRACE_DEPTH = 8;
+
+    private final AnalysisResult result;
+    private final long builtAt;
+    private final Map<String, TreeMap<String, List<Hit>>> indexes = new HashMap<>();
+    // 调用链：类名（小写）→ 注入的依赖类型；接口名（小写）→ 实现类
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, Set<String>> implementations = new HashMap<>();
+    // 类名（小写）→ 原始类名
+    private final Map<String, String> classNames = new HashMap<>();
+    private final Set<String> daoClasses = new HashSet<>();
+
+    AnalysisIndex(AnalysisResult result) {
+        this.result = result;
+        this.builtAt = System.currentTimeMillis();
+        for (String index : INDEX_FIELDS.keySet()) {
+            indexes.put(index, new TreeMap<String, List<Hit>>());
+        }
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            for (Map<String, String> row : result.getRows(def.id)) {
+                for (Map.Entry<String, String[]> entry : INDEX_FIELDS.entrySet()) {
+                    // 同一行的多个字段可能得到同一个键（如未分模块时action-path与完整action路径相同），每个键只记一次
+                    Set<String> keys = new HashSet<>();
+                    for (String field : entry.getValue()) {
+                        String key = normalize(entry.getKey(), row.get(field));
+                        if (!key.isEmpty() && keys.add(key)) {
+                            indexes.get(entry.getKey()).computeIfAbsent(key, k -> new ArrayList<>()).add(new Hit(def, row));
+                        }
+                    }
+                }
+            }
+        }
+        buildCallGraph();
+    }
+
+    private void buildCallGraph() {
+        for (Map<String, String> edge : result.getRows(CodeAnalysisTool.ROWS_WIRING)) {
+            String target = simpleName(edge.get("targetType"));
+            // 类级注解记录的是对外暴露的接口，不是依赖
+            if (!target.isEmpty() && !"类".equals(edge.get("memberKind"))) {
+                link(dependencies, edge.get("sourceClass"), target);
+            }
+        }
+        String[] implSheets = {CodeAnalysisTool.ROWS_SERVICE_IMPL, CodeAnalysisTool.ROWS_MANAGER_IMPL, CodeAnalysisTool.ROWS_DAO_IMPL};
+        for (String sheetId : implSheets) {
+            for (Map<String, String> row : result.getRows(sheetId)) {
+                String implemented = row.get("implementedInterfaces");
+                if (implemented == null) {
+                    continue;
+                }
+                for (String name : implemented.split(",")) {
+                    String interfaceName = simpleName(name);
+                    if (!interfaceName.isEmpty()) {
+                        link(implementations, interfaceName, row.get("implClassName"));
+                    }
+                }
+            }
+        }
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_DAO)) {
+            daoClasses.add(row.get("interfaceName").toLowerCase());
+            classNames.put(row.get("interfaceName").toLowerCase(), row.get("interfaceName"));
+        }
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_DAO_IMPL)) {
+            daoClasses.add(row.get("implClassName").toLowerCase());
+            classNames.put(row.get("implClassName").toLowerCase(), row.get("implClassName"));
+        }
+    }
+
+    private void link(Map<String, Set<String>> graph, String from, String to) {
+        if (from == null || from.isEmpty() || to == null || to.isEmpty()) {
+            return;
+        }
+        classNames.putIfAbsent(from.toLowerCase(), from);
+        classNames.putIfAbsent(to.toLowerCase(), to);
+        graph.computeIfAbsent(from.toLowerCase(), k -> new HashSet<>()).add(to.toLowerCase());
+    }
+
+    static boolean isIndex(String index) {
+        return INDEX_FIELDS.containsKey(index);
+    }
+
+    static Set<String> indexNames() {
+        return INDEX_FIELDS.keySet();
+    }
+
+    /**
+     * 精确查找
+     */
+    List<Hit> lookup(String index, String key) {
+        List<Hit> hits = indexes.get(index).get(normalize(index, key));
+        return hits == null ? Collections.<Hit>emptyList() : hits;
+    }
+
+    /**
+     * 前缀查找，按键的字典序返回，最多limit条
+     */
+    List<Hit> search(String index, String prefix, int limit) {
+        String from = normalize(index, prefix);
+        SortedMap<String, List<Hit>> range = indexes.get(index).subMap(from, from + Character.MAX_VALUE);
+        List<Hit> hits = new ArrayList<>();
+        for (List<Hit> list : range.values()) {
+            for (Hit hit : list) {
+                if (hits.size() >= limit) {
+                    return hits;
+                }
+                hits.add(hit);
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 追踪action路径的调用链：Struts配置 → Action类 → 注入的Service/Manager（接口展开到实现类）→ Dao
+     * <p>
+     * 返回每个可达Dao的一条最短路径（类名列表）
+     */
+    List<List<String>> traceDaos(String actionPath) {
+        // 起点的原始类名单独记录（索引只读，可被多个请求线程并发查询）
+        Map<String, String> starts = new HashMap<>();
+        for (Hit hit : lookup(INDEX_ACTION_PATH, actionPath)) {
+            if (CodeAnalysisTool.ROWS_STRUTS.equals(hit.sheet.id)) {
+                String actionType = simpleName(hit.row.get("actionType"));
+                if (!actionType.isEmpty()) {
+                    starts.put(actionType.toLowerCase(), actionType);
+                }
+            }
+        }
+
+        // 广度优先，记录前驱以还原最短路径
+        Map<String, String> previous = new HashMap<>();
+        Map<String, Integer> depth = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (String start : starts.keySet()) {
+            previous.put(start, null);
+            depth.put(start, 0);
+            queue.add(start);
+        }
+        List<List<String>> paths = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (daoClasses.contains(current) && depth.get(current) > 0) {
+                paths.add(pathTo(current, previous, starts));
+            }
+            if (depth.get(current) >= MAX_TRACE_DEPTH) {
+                continue;
+            }
+            List<String> next = new ArrayList<>();
+            next.addAll(dependencies.getOrDefault(current, Collections.<String>emptySet()));
+            next.addAll(implementations.getOrDefault(current, Collections.<String>emptySet()));
+            Collections.sort(next);
+            for (String target : next) {
+                if (!previous.containsKey(target)) {
+                    previous.put(target, current);
+                    depth.put(target, depth.get(current) + 1);
+                    queue.add(target);
+                }
+            }
+        }
+        return paths;
+    }
+
+    private List<String> pathTo(String node, Map<String, String> previous, Map<String, String> starts) {
+        List<String> path = new ArrayList<>();
+        for (String current = node; current != null; current = previous.get(current)) {
+            path.add(classNames.getOrDefault(current, starts.getOrDefault(current, current)));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    AnalysisResult getResult() {
+        return result;
+    }
+
+    long getBuiltAt() {
+        return builtAt;
+    }
+
+    int size(String index) {
+        return indexes.get(index).size();
+    }
+
+    /**
+     * 索引键：小写；文件统一/分隔；action路径去掉.do；类名取简单类名
+     */
+    static String normalize(String index, String value) {
+        if (value == null) {
+            return "";
+        }
+        String key = value.trim();
+        if (INDEX_ACTION_PATH.equals(index)) {
+            if (key.toLowerCase().endsWith(".do")) {
+                key = key.substring(0, key.length() - 3);
+            }
+        } else if (INDEX_FILE.equals(index)) {
+            key = key.replace(File.separatorChar, '/').replace('\\', '/');
+        } else if (INDEX_CLASS.equals(index)) {
+            key = simpleName(key);
+        }
+        return key.toLowerCase();
+    }
+
+    /**
+     * 简单类名：去掉泛型、数组和包名
+     */
+    static String simpleName(String type) {
+        if (type == null) {
+            return "";
+        }
+        String name = type.replaceAll("<.*", "").replace("[]", "").trim();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : name;
+    }
+
+    /**
+     * 命中记录：所在Sheet + 行数据
+     */
+    static class Hit {
+        final CodeAnalysisTool.SheetDef sheet;
+        final Map<String, String> row;
+
+        Hit(CodeAnalysisTool.SheetDef sheet, Map<String, String> row) {
+            this.sheet = sheet;
+            this.row = row;
+        }
+    }
+}
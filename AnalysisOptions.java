@@ -0,0 +1,478 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 分析选项：扫描来源（磁盘目录或git提交）、增量缓存、排序、扩展提取器和结果输出
+ * <p>
+ * 命令行从config.properties加载；嵌入调用（构建插件、常驻服务）直接new后按需设置，
+ * 每个CodeAnalysisTool实例持有自己的选项，互不影响。
+ */
+public class AnalysisOptions {
+
+    static final String DEFAULT_ARCHIVE_EXCLUDE = "**/WEB-INF/lib/**";
+
+    // 扫描根目录（与gitRepoDir二选一）
+    private File scanBaseDir;
+    // 直接扫描本地git仓库的某个提交（免检出）
+    private File gitRepoDir;
+    private String gitRevision = "HEAD";
+    // 增量缓存文件（null表示不落盘）
+    private File incrementalCacheFile;
+    // 不落盘时是否在引擎实例内保留提取结果，供同一实例的后续扫描复用
+    private boolean cacheInMemory;
+    // 源码全文/标识符索引文件（null表示不生成）
+    private File sourceIndexFile;
+    // Excel输出路径（命令行使用，嵌入调用可改为添加ResultSink）
+    private String excelOutputPath;
+    // CSV输出目录（每个Sheet一个文件，不加载POI，小范围扫描时启动更快）
+    private File csvOutputDir;
+    // 行数据溢写目录（null表示全部保存在内存），超大源码树按固定内存输出
+    private File spillDir;
+    // 每个Sheet在内存中保留的最大行数，达到后排序写入一个有序段
+    private int spillRowLimit = 200000;
+    // 单文件预算：超过大小不读取、提取超时则隔离到错误文件清单（<=0表示不限）
+    private long maxFileBytes = 10L * 1024 * 1024;
+    private long fileTimeoutMillis = 30000;
+    // 压缩包扫描（WAR/JAR/ZIP/EAR）：是否扫描、路径glob（include为空表示全部），默认跳过WEB-INF/lib下的第三方JAR
+    private boolean archiveScanEnabled = true;
+    private List<String> archiveIncludes = new ArrayList<>();
+    private List<String> archiveExcludes = new ArrayList<>(Collections.singletonList(DEFAULT_ARCHIVE_EXCLUDE));
+    // 整次扫描的截止时间，到期后剩余文件不再提取，输出部分报告（<=0表示不限）
+    private long runDeadlineMillis;
+    // 进度打印间隔（<=0表示只在提取结束时打印一次）
+    private long progressIntervalMillis = 5000;
+    // 检查点：扫描过程中按间隔保存增量缓存（<=0表示只在扫描结束时保存）；
+    // 未配置增量缓存时可单独指定检查点文件，扫描完整结束后删除
+    private long checkpointIntervalMillis = 60000;
+    private File checkpointFile;
+    // 架构规则文件（null表示不检查），有违规时命令行是否以非0退出码结束
+    private File rulesFile;
+    private boolean failOnRuleViolation = true;
+    // 流水线提取：读取线程数（I/O，<=0表示不用流水线，各阶段按需逐个提取）、解析线程数（CPU）、
+    // 已读取未解析内容的内存上限
+    private int readThreads = 8;
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private long readAheadBytes = 64L * 1024 * 1024;
+    // 各阶段结束时统计存活堆（每个阶段触发一次GC，供自检/性能门禁使用，日常扫描不开启）
+    private boolean measureStageHeap;
+    // 各Sheet的排序配置（sort.<id>=字段1,-字段2），覆盖SheetDef的默认排序
+    private final Map<String, String> sortConfig = new HashMap<>();
+    private final List<Extractor> extractors = new ArrayList<>();
+    private final List<ResultSink> sinks = new ArrayList<>();
+
+    /**
+     * 加载config.properties：-Dconfig.file指定的文件优先，其次当前目录，再次classpath；
+     * 同名的-D系统属性覆盖文件中的配置（如提交前检查时用-Dscan.base.dir只扫描改动的子目录）
+     */
+    public static AnalysisOptions load() throws Exception {
+        Properties props = new Properties();
+        String configPath = System.getProperty("config.file");
+        File configFile = new File(configPath != null ? configPath : "config.properties");
+        if (configPath != null && !configFile.isFile()) {
+            throw new RuntimeException("❌ 配置文件不存在：" + configFile.getAbsolutePath());
+        }
+        InputStream is = configFile.exists() ? new FileInputStream(configFile) :
+                AnalysisOptions.class.getClassLoader().getResourceAsStream("config.properties");
+
+        if (is == null) {
+            throw new RuntimeException("❌ 未找到config.properties配置文件");
+        }
+        try {
+            props.load(is);
+        } finally {
+            is.close();
+        }
+        // fromProperties只读取已知的键，其余系统属性不受影响
+        for (String key : System.getProperties().stringPropertyNames()) {
+            props.setProperty(key, System.getProperty(key));
+        }
+        return fromProperties(props);
+    }
+
+    /**
+     * 从配置项构造选项（键名与config.properties一致）
+     */
+    public static AnalysisOptions fromProperties(Properties props) {
+        AnalysisOptions options = new AnalysisOptions();
+        String scanBaseDir = props.getProperty("scan.base.dir", "").trim();
+        if (!scanBaseDir.isEmpty()) {
+            options.setScanBaseDir(new File(scanBaseDir));
+        }
+        options.setExcelOutputPath(props.getProperty("excel.output.path", "").trim());
+        String csvOutputDir = props.getProperty("csv.output.dir", "").trim();
+        if (!csvOutputDir.isEmpty()) {
+            options.setCsvOutputDir(new File(csvOutputDir));
+        }
+        // 可选：git仓库扫描、增量缓存
+        String gitRepo = props.getProperty("scan.git.repo", "").trim();
+        if (!gitRepo.isEmpty()) {
+            options.setGitRepoDir(new File(gitRepo));
+        }
+        options.setGitRevision(props.getProperty("scan.git.revision", "HEAD").trim());
+        String cacheFile = props.getProperty("incremental.cache.file", "").trim();
+        if (!cacheFile.isEmpty()) {
+            options.setIncrementalCacheFile(new File(cacheFile));
+        }
+        String sourceIndexFile = props.getProperty("source.index.file", "").trim();
+        if (!sourceIndexFile.isEmpty()) {
+            options.setSourceIndexFile(new File(sourceIndexFile));
+        }
+        String spillDir = props.getProperty("spill.dir", "").trim();
+        if (!spillDir.isEmpty()) {
+            options.setSpillDir(new File(spillDir));
+        }
+        String spillRowLimit = props.getProperty("spill.row.limit", "").trim();
+        if (!spillRowLimit.isEmpty()) {
+            options.setSpillRowLimit(Integer.parseInt(spillRowLimit));
+        }
+        String maxFileBytes = props.getProperty("file.max.bytes", "").trim();
+        if (!maxFileBytes.isEmpty()) {
+            options.setMaxFileBytes(Long.parseLong(maxFileBytes));
+        }
+        String fileTimeout = props.getProperty("file.timeout.millis", "").trim();
+        if (!fileTimeout.isEmpty()) {
+            options.setFileTimeoutMillis(Long.parseLong(fileTimeout));
+        }
+        options.setArchiveScanEnabled(Boolean.parseBoolean(props.getProperty("archive.scan.enabled", "true").trim()));
+        options.setArchiveIncludes(splitList(props.getProperty("archive.scan.include", "")));
+        options.setArchiveExcludes(splitList(props.getProperty("archive.scan.exclude", DEFAULT_ARCHIVE_EXCLUDE)));
+        String runDeadline = props.getProperty("run.deadline.seconds", "").trim();
+        if (!runDeadline.isEmpty()) {
+            options.setRunDeadlineMillis(Long.parseLong(runDeadline) * 1000L);
+        }
+        String progressInterval = props.getProperty("progress.interval.seconds", "").trim();
+        if (!progressInterval.isEmpty()) {
+            options.setProgressIntervalMillis(Long.parseLong(progressInterval) * 1000L);
+        }
+        String checkpointInterval = props.getProperty("checkpoint.interval.seconds", "").trim();
+        if (!checkpointInterval.isEmpty()) {
+            options.setCheckpointIntervalMillis(Long.parseLong(checkpointInterval) * 1000L);
+        }
+        String checkpointFile = props.getProperty("checkpoint.file", "").trim();
+        if (!checkpointFile.isEmpty()) {
+            options.setCheckpointFile(new File(checkpointFile));
+        }
+        String rulesFile = props.getProperty("rules.file", "").trim();
+        if (!rulesFile.isEmpty()) {
+            options.setRulesFile(new File(rulesFile));
+        }
+        options.setFailOnRuleViolation(Boolean.parseBoolean(props.getProperty("rules.fail.on.violation", "true").trim()));
+        String readThreads = props.getProperty("pipeline.read.threads", "").trim();
+        if (!readThreads.isEmpty()) {
+            options.setReadThreads(Integer.parseInt(readThreads));
+        }
+        String parseThreads = props.getProperty("pipeline.parse.threads", "").trim();
+        if (!parseThreads.isEmpty()) {
+            options.setParseThreads(Integer.parseInt(parseThreads));
+        }
+        String readAhead = props.getProperty("pipeline.readahead.mb", "").trim();
+        if (!readAhead.isEmpty()) {
+            options.setReadAheadBytes(Long.parseLong(readAhead) * 1024L * 1024L);
+        }
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith("sort.")) {
+                options.setSort(key.substring("sort.".length()), props.getProperty(key).trim());
+            }
+        }
+        return options;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                result.add(item.trim());
+            }
+        }
+        return result;
+    }
+
+    public File getScanBaseDir() {
+        return scanBaseDir;
+    }
+
+    public AnalysisOptions setScanBaseDir(File scanBaseDir) {
+        this.scanBaseDir = scanBaseDir;
+        return this;
+    }
+
+    public File getGitRepoDir() {
+        return gitRepoDir;
+    }
+
+    public AnalysisOptions setGitRepoDir(File gitRepoDir) {
+        this.gitRepoDir = gitRepoDir;
+        return this;
+    }
+
+    public String getGitRevision() {
+        return gitRevision;
+    }
+
+    public AnalysisOptions setGitRevision(String gitRevision) {
+        this.gitRevision = gitRevision == null || gitRevision.isEmpty() ? "HEAD" : gitRevision;
+        return this;
+    }
+
+    public File getIncrementalCacheFile() {
+        return incrementalCacheFile;
+    }
+
+    public AnalysisOptions setIncrementalCacheFile(File incrementalCacheFile) {
+        this.incrementalCacheFile = incrementalCacheFile;
+        return this;
+    }
+
+    public boolean isCacheInMemory() {
+        return cacheInMemory;
+    }
+
+    public AnalysisOptions setCacheInMemory(boolean cacheInMemory) {
+        this.cacheInMemory = cacheInMemory;
+        return this;
+    }
+
+    public File getSourceIndexFile() {
+        return sourceIndexFile;
+    }
+
+    /**
+     * 扫描时同时生成源码索引（未配置增量缓存文件时，缓存放在索引旁，重新扫描只对变化的文件分词）
+     */
+    public AnalysisOptions setSourceIndexFile(File sourceIndexFile) {
+        this.sourceIndexFile = sourceIndexFile;
+        return this;
+    }
+
+    public String getExcelOutputPath() {
+        return excelOutputPath;
+    }
+
+    public AnalysisOptions setExcelOutputPath(String excelOutputPath) {
+        this.excelOutputPath = excelOutputPath;
+        return this;
+    }
+
+    public File getCsvOutputDir() {
+        return csvOutputDir;
+    }
+
+    public AnalysisOptions setCsvOutputDir(File csvOutputDir) {
+        this.csvOutputDir = csvOutputDir;
+        return this;
+    }
+
+    public File getSpillDir() {
+        return spillDir;
+    }
+
+    /**
+     * 行数据超过spillRowLimit时排序后写入该目录的临时文件，输出时归并读取（Excel改为流式写入）
+     */
+    public AnalysisOptions setSpillDir(File spillDir) {
+        this.spillDir = spillDir;
+        return this;
+    }
+
+    public int getSpillRowLimit() {
+        return spillRowLimit;
+    }
+
+    public AnalysisOptions setSpillRowLimit(int spillRowLimit) {
+        this.spillRowLimit = spillRowLimit;
+        return this;
+    }
+
+    public long getMaxFileBytes() {
+        return maxFileBytes;
+    }
+
+    public AnalysisOptions setMaxFileBytes(long maxFileBytes) {
+        this.maxFileBytes = maxFileBytes;
+        return this;
+    }
+
+    public boolean isArchiveScanEnabled() {
+        return archiveScanEnabled;
+    }
+
+    public AnalysisOptions setArchiveScanEnabled(boolean archiveScanEnabled) {
+        this.archiveScanEnabled = archiveScanEnabled;
+        return this;
+    }
+
+    public List<String> getArchiveIncludes() {
+        return Collections.unmodifiableList(archiveIncludes);
+    }
+
+    public AnalysisOptions setArchiveIncludes(List<String> archiveIncludes) {
+        this.archiveIncludes = new ArrayList<>(archiveIncludes);
+        return this;
+    }
+
+    public List<String> getArchiveExcludes() {
+        return Collections.unmodifiableList(archiveExcludes);
+    }
+
+    /**
+     * 排除的压缩包路径（替换默认的WEB-INF/lib排除，空列表表示不排除）
+     */
+    public AnalysisOptions setArchiveExcludes(List<String> archiveExcludes) {
+        this.archiveExcludes = new ArrayList<>(archiveExcludes);
+        return this;
+    }
+
+    public long getFileTimeoutMillis() {
+        return fileTimeoutMillis;
+    }
+
+    public AnalysisOptions setFileTimeoutMillis(long fileTimeoutMillis) {
+        this.fileTimeoutMillis = fileTimeoutMillis;
+        return this;
+    }
+
+    public long getRunDeadlineMillis() {
+        return runDeadlineMillis;
+    }
+
+    /**
+     * 整次扫描的截止时间（从开始扫描算起），到期后输出已提取部分的报告
+     */
+    public AnalysisOptions setRunDeadlineMillis(long runDeadlineMillis) {
+        this.runDeadlineMillis = runDeadlineMillis;
+        return this;
+    }
+
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+
+    public AnalysisOptions setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+        return this;
+    }
+
+    public long getCheckpointIntervalMillis() {
+        return checkpointIntervalMillis;
+    }
+
+    /**
+     * 检查点间隔：扫描过程中按该间隔保存增量缓存，进程中断后重新扫描时已完成的文件直接复用
+     */
+    public AnalysisOptions setCheckpointIntervalMillis(long checkpointIntervalMillis) {
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        return this;
+    }
+
+    public File getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    /**
+     * 检查点文件（仅在未配置增量缓存文件时使用），扫描完整结束后删除
+     */
+    public AnalysisOptions setCheckpointFile(File checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    public File getRulesFile() {
+        return rulesFile;
+    }
+
+    /**
+     * 架构规则文件（每行一条，如Action must not reference *Dao），违规写入"架构规则违规"Sheet
+     */
+    public AnalysisOptions setRulesFile(File rulesFile) {
+        this.rulesFile = rulesFile;
+        return this;
+    }
+
+    public boolean isFailOnRuleViolation() {
+        return failOnRuleViolation;
+    }
+
+    public AnalysisOptions setFailOnRuleViolation(boolean failOnRuleViolation) {
+        this.failOnRuleViolation = failOnRuleViolation;
+        return this;
+    }
+
+    public int getReadThreads() {
+        return readThreads;
+    }
+
+    public AnalysisOptions setReadThreads(int readThreads) {
+        this.readThreads = readThreads;
+        return this;
+    }
+
+    public int getParseThreads() {
+        return parseThreads;
+    }
+
+    public AnalysisOptions setParseThreads(int parseThreads) {
+        this.parseThreads = parseThreads;
+        return this;
+    }
+
+    public long getReadAheadBytes() {
+        return readAheadBytes;
+    }
+
+    public AnalysisOptions setReadAheadBytes(long readAheadBytes) {
+        this.readAheadBytes = readAheadBytes;
+        return this;
+    }
+
+    public boolean isMeasureStageHeap() {
+        return measureStageHeap;
+    }
+
+    public AnalysisOptions setMeasureStageHeap(boolean measureStageHeap) {
+        this.measureStageHeap = measureStageHeap;
+        return this;
+    }
+
+    /**
+     * 设置某个Sheet的排序（id为SheetDef.id），空字符串表示保持扫描顺序
+     */
+    public AnalysisOptions setSort(String sheetId, String sortSpec) {
+        sortConfig.put(sheetId, sortSpec);
+        return this;
+    }
+
+    public Map<String, String> getSortConfig() {
+        return Collections.unmodifiableMap(sortConfig);
+    }
+
+    /**
+     * 注册扩展提取器，其Sheet追加在内置Sheet之后
+     */
+    public AnalysisOptions addExtractor(Extractor extractor) {
+        extractors.add(extractor);
+        return this;
+    }
+
+    public List<Extractor> getExtractors() {
+        return Collections.unmodifiableList(extractors);
+    }
+
+    /**
+     * 注册结果输出，run()结束时按注册顺序写出
+     */
+    public AnalysisOptions addSink(ResultSink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    public List<ResultSink> getSinks() {
+        return Collections.unmodifiableList(sinks);
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次扫描的结果：按Sheet顺序保存各结果集（内置Sheet在前，扩展提取器的Sheet在后）
+ * <p>
+ * 行数据为扫描顺序；排序配置随结果一起传给ResultSink，由输出端决定是否排序。
+ * 配置了溢写目录时，超大结果集的行在临时文件中，输出端应通过getSortedRows逐行读取。
+ */
+public class AnalysisResult {
+
+    private final Map<String, CodeAnalysisTool.SheetDef> sheets = new LinkedHashMap<>();
+    private final Map<String, RowStore> rows = new HashMap<>();
+    private final Map<String, String> sortConfig;
+    private final StageStats stageStats;
+
+    AnalysisResult(Map<String, String> sortConfig, StageStats stageStats) {
+        this.sortConfig = sortConfig;
+        this.stageStats = stageStats;
+    }
+
+    void put(CodeAnalysisTool.SheetDef def, RowStore sheetRows) {
+        sheets.put(def.id, def);
+        rows.put(def.id, sheetRows);
+    }
+
+    /**
+     * 全部Sheet定义（输出顺序）
+     */
+    public List<CodeAnalysisTool.SheetDef> getSheets() {
+        return new ArrayList<>(sheets.values());
+    }
+
+    /**
+     * 某个Sheet的行数据（id为SheetDef.id），不存在时返回空列表；已溢写的Sheet会全部读入内存（按排序配置的顺序）
+     */
+    public List<Map<String, String>> getRows(String sheetId) {
+        RowStore store = rows.get(sheetId);
+        return store == null ? Collections.<Map<String, String>>emptyList() : store.toList();
+    }
+
+    /**
+     * 某个Sheet的行数
+     */
+    public int getRowCount(String sheetId) {
+        RowStore store = rows.get(sheetId);
+        return store == null ? 0 : store.size();
+    }
+
+    /**
+     * 按排序配置排好序的行，逐行读取（已溢写时归并临时文件，内存占用固定）
+     */
+    public Iterable<Map<String, String>> getSortedRows(CodeAnalysisTool.SheetDef def) {
+        RowStore store = rows.get(def.id);
+        return store == null ? Collections.<Map<String, String>>emptyList() : store.sorted();
+    }
+
+    /**
+     * 是否有Sheet的行溢写到了临时文件
+     */
+    public boolean isSpilled() {
+        for (RowStore store : rows.values()) {
+            if (store.isSpilled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 各阶段的耗时（输出阶段在写完全部ResultSink后记录）和堆占用
+     */
+    public StageStats getStageStats() {
+        return stageStats;
+    }
+
+    /**
+     * 某个Sheet的排序配置：sort.<id>优先，否则使用SheetDef的默认排序
+     */
+    public String getSortSpec(CodeAnalysisTool.SheetDef def) {
+        String sort = sortConfig.get(def.id);
+        return sort != null ? sort : def.defaultSort;
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 架构规则：从规则文件读取分层约束，在提取结果（类名、包名、import、注入依赖、注解）上逐类检查
+ * <p>
+ * 每行一条规则，#开头为注释：
+ * <pre>
+ * Action must not reference *Dao, *DaoImpl      （也可写作：Action 不能引用 *Dao, *DaoImpl）
+ * ManagerImpl must be @Transactional            （ManagerImpl 必须有 @Transactional）
+ * *Dao must not be @Service                     （*Dao 不能有 @Service）
+ * </pre>
+ * 类型模式不区分大小写：不含*时按类名后缀匹配（Dao匹配LotDao，不匹配LotDaoImpl，与各Sheet的分层方式一致），
+ * 含*时为通配符，含.时匹配全限定名（如com.x.web.*）。通配符两侧的字面部分按类名分段（驼峰大写字母、.、_等）对齐：
+ * *Action匹配LotAction，不匹配Transaction；Lot*匹配LotDao，不匹配Lottery。引用包括import的类型和@Autowired等注入的类型，
+ * 只检查扫描范围内声明的类型（JDK、第三方库的EntityManager、ExecutorService等不算）；
+ * 注解在类或任一成员上出现即视为有（与ServiceImpl等Sheet的注解标记一致）。
+ * 规则在加载时编译为正则，检查只是对每个类遍历一次规则，全量模型也在毫秒级完成。
+ */
+public class ArchitectureRules {
+
+    private static final Pattern REFERENCE_RULE = Pattern.compile(
+            "(\\S+)\\s+(?:must\\s+not\\s+reference|不能引用)\\s+(.+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ANNOTATION_RULE = Pattern.compile(
+            "(\\S+)\\s+(must\\s+be|must\\s+not\\s+be|必须有|不能有)\\s*@([\\w$.]+)", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 一条规则：选择的类 + 禁止引用的类型，或必须有/不能有的注解
+     */
+    static class Rule {
+        final String text;
+        final TypePattern selector;
+        final List<TypePattern> forbidden;
+        // 注解规则：注解简单名（比较时忽略大小写）；required为true表示必须有
+        final String annotation;
+        final boolean required;
+
+        Rule(String text, TypePattern selector, List<TypePattern> forbidden, String annotation, boolean required) {
+            this.text = text;
+            this.selector = selector;
+            this.forbidden = forbidden;
+            this.annotation = annotation;
+            this.required = required;
+        }
+    }
+
+    /**
+     * 类型模式（编译为忽略大小写的正则）
+     */
+    static class TypePattern {
+        // 类名分段边界：名称开头/结尾、非字母数字字符之后/之前、驼峰大写字母之前（大写判断区分大小写）
+        private static final String SEGMENT_START = "(?:^|(?<=[^\\p{L}\\p{N}])|(?-i:(?=\\p{Lu})))";
+        private static final String SEGMENT_END = "(?:$|(?=[^\\p{L}\\p{N}])|(?-i:(?=\\p{Lu})))";
+
+        final boolean qualified;
+        final Pattern pattern;
+
+        TypePattern(String text) {
+            this.qualified = text.indexOf('.') >= 0;
+            StringBuilder regex = new StringBuilder();
+            if (text.indexOf('*') < 0) {
+                // 不含通配符：后缀匹配（从分段边界开始）
+                regex.append(".*").append(segmentStart(text)).append(Pattern.quote(text));
+            } else {
+                String[] parts = text.split("\\*", -1);
+                for (int i = 0; i < parts.length; i++) {
+                    if (i > 0) {
+                        regex.append(".*");
+                    }
+                    if (!parts[i].isEmpty()) {
+                        regex.append(i > 0 ? segmentStart(parts[i]) : "").append(Pattern.quote(parts[i]));
+                        if (i < parts.length - 1 && Character.isLetterOrDigit(parts[i].charAt(parts[i].length() - 1))) {
+                            regex.append(SEGMENT_END);
+                        }
+                    }
+                }
+            }
+            this.pattern = Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+        }
+
+        private static String segmentStart(String literal) {
+            return Character.isLetterOrDigit(literal.charAt(0)) ? SEGMENT_START : "";
+        }
+
+        boolean matches(String simpleName, String qualifiedName) {
+            return pattern.matcher(qualified ? qualifiedName : simpleName).matches();
+        }
+    }
+
+    /**
+     * 被检查的类：引用的类型（简单名、全限定名、行号）和出现过的注解（小写）
+     */
+    static class ClassModel {
+        final String simpleName;
+        final String qualifiedName;
+        final String relativePath;
+        final List<String[]> references = new ArrayList<>();
+        final List<Integer> referenceLines = new ArrayList<>();
+        final Set<String> annotations = new HashSet<>();
+
+        ClassModel(String simpleName, String qualifiedName, String relativePath) {
+            this.simpleName = simpleName;
+            this.qualifiedName = qualifiedName;
+            this.relativePath = relativePath;
+        }
+
+        void addReference(String simpleName, String qualifiedName, int line) {
+            references.add(new String[]{simpleName, qualifiedName});
+            referenceLines.add(line);
+        }
+
+        /**
+         * 只保留满足条件的引用（按全限定名）
+         */
+        void retainReferences(Predicate<String> keep) {
+            for (int i = references.size() - 1; i >= 0; i--) {
+                if (!keep.test(references.get(i)[1])) {
+                    references.remove(i);
+                    referenceLines.remove(i);
+                }
+            }
+        }
+    }
+
+    private final List<Rule> rules;
+
+    private ArchitectureRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * 读取规则文件，无法解析的行直接报错（CI中规则写错不应静默通过）
+     */
+    static ArchitectureRules load(File file) throws Exception {
+        if (!file.isFile()) {
+            throw new RuntimeException("❌ 架构规则文件不存在：" + file.getAbsolutePath());
+        }
+        List<Rule> rules = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            Rule rule = parse(line);
+            if (rule == null) {
+                throw new RuntimeException("❌ 架构规则第" + (i + 1) + "行无法解析：" + line);
+            }
+            rules.add(rule);
+        }
+        return new ArchitectureRules(rules);
+    }
+
+    static Rule parse(String line) {
+        Matcher annotationMatcher = ANNOTATION_RULE.matcher(line);
+        if (annotationMatcher.matches()) {
+            String verb = annotationMatcher.group(2).toLowerCase().replaceAll("\\s+", " ");
+            String annotation = annotationMatcher.group(3);
+            annotation = annotation.substring(annotation.lastIndexOf('.') + 1);
+            boolean required = verb.equals("must be") || verb.equals("必须有");
+            return new Rule(line, new TypePattern(annotationMatcher.group(1)), Collections.<TypePattern>emptyList(),
+                    annotation, required);
+        }
+        Matcher referenceMatcher = REFERENCE_RULE.matcher(line);
+        if (referenceMatcher.matches()) {
+            List<TypePattern> forbidden = new ArrayList<>();
+            for (String target : referenceMatcher.group(2).split("[,，\\s]+")) {
+                if (!target.isEmpty()) {
+                    forbidden.add(new TypePattern(target));
+                }
+            }
+            return forbidden.isEmpty() ? null : new Rule(line, new TypePattern(referenceMatcher.group(1)), forbidden, null, false);
+        }
+        return null;
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /**
+     * 检查一个类，违规行追加到out（同一规则下同一被引用类型只记一次，取第一次出现的行号）
+     */
+    void check(ClassModel model, List<Map<String, String>> out) {
+        for (Rule rule : rules) {
+            if (!rule.selector.matches(model.simpleName, model.qualifiedName)) {
+                continue;
+            }
+            if (rule.annotation != null) {
+                if (model.annotations.contains(rule.annotation.toLowerCase()) != rule.required) {
+                    out.add(violation(rule, model, (rule.required ? "缺少@" : "不应有@") + rule.annotation, ""));
+                }
+                continue;
+            }
+            Set<String> reported = new HashSet<>();
+            for (int i = 0; i < model.references.size(); i++) {
+                String[] reference = model.references.get(i);
+                for (TypePattern target : rule.forbidden) {
+                    if (target.matches(reference[0], reference[1])) {
+                        if (reported.add(reference[1])) {
+                            out.add(violation(rule, model, "引用" + reference[1], String.valueOf(model.referenceLines.get(i))));
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static Map<String, String> violation(Rule rule, ClassModel model, String detail, String line) {
+        Map<String, String> map = new HashMap<>();
+        map.put("rule", rule.text);                         // 规则原文
+        map.put("fileRelativePath", model.relativePath);    // 文件相对路径
+        map.put("className", model.qualifiedName);          // 类（全限定名）
+        map.put("violation", detail);                       // 违规内容
+        map.put("line", line);                              // 行号（注解规则为空）
+        return map;
+    }
+}
@@ -0,0 +1,295 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 压缩包扫描：WAR/JAR/ZIP/EAR中的条目作为虚拟文件参与扫描，不解压到磁盘
+ * <p>
+ * 条目按顺序流式读取，读到即提取（Struts配置、前端文件、源码JAR中的Java文件），
+ * 嵌套压缩包直接在外层流上继续读取。多个压缩包并发处理，结果按压缩包顺序合并。
+ * 扫描哪些压缩包由archive.scan.*配置（默认跳过WEB-INF/lib下的第三方JAR）；条目同样受单文件大小上限约束，
+ * 超过上限的条目不读入内存，直接隔离到错误文件清单。损坏/截断的压缩包（含嵌套压缩包）同样只隔离该压缩包，
+ * 已读到的条目照常参与扫描，不影响其他文件。
+ */
+public class ArchiveSource {
+
+    private static final List<String> ARCHIVE_SUFFIX = Arrays.asList("war", "jar", "zip", "ear");
+    // 嵌套压缩包的最大层数
+    private static final int MAX_NESTING = 3;
+
+    static boolean isArchive(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        String suffix = lowerName.lastIndexOf(".") > 0 ? lowerName.substring(lowerName.lastIndexOf(".") + 1) : "";
+        return ARCHIVE_SUFFIX.contains(suffix);
+    }
+
+    /**
+     * 并发扫描压缩包，按压缩包顺序返回其中的待扫描条目（条目已完成提取）
+     */
+    static List<SourceFile> scanArchives(CodeAnalysisTool engine, List<File> archives, File rootDir, Filter filter)
+            throws Exception {
+        if (archives.isEmpty()) {
+            return Collections.emptyList();
+        }
+        int threads = Math.min(archives.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<SourceFile>>> futures = new ArrayList<>();
+            for (File archive : archives) {
+                String relativePath = relativePath(rootDir, archive);
+                futures.add(pool.submit(() -> scanArchive(engine, archive, relativePath, filter)));
+            }
+            List<SourceFile> result = new ArrayList<>();
+            for (Future<List<SourceFile>> future : futures) {
+                try {
+                    result.addAll(future.get());
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            return result;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String relativePath(File rootDir, File archive) {
+        return rootDir.toURI().relativize(archive.toURI()).getPath().replace("/", File.separator);
+    }
+
+    private static List<SourceFile> scanArchive(CodeAnalysisTool engine, File archive, String relativePath, Filter filter)
+            throws Exception {
+        System.out.println("扫描压缩包：" + archive.getAbsolutePath());
+        List<SourceFile> result = new ArrayList<>();
+        try (ZipInputStream zin = new ZipInputStream(new BufferedInputStream(new FileInputStream(archive), 1 << 16))) {
+            scanEntries(engine, zin, relativePath, 0, filter, result);
+        } catch (Exception e) {
+            result.add(failed(relativePath, archive.length(), e));
+        }
+        engine.advanceProgress(archive.length());
+        return result;
+    }
+
+    private static void scanEntries(CodeAnalysisTool engine, ZipInputStream zin, String archivePath, int depth,
+                                    Filter filter, List<SourceFile> result) throws Exception {
+        long maxBytes = engine.getOptions().getMaxFileBytes();
+        ZipEntry entry;
+        while ((entry = zin.getNextEntry()) != null) {
+            String entryName = entry.getName();
+            if (entry.isDirectory() || isInBuildDir(entryName)) {
+                continue;
+            }
+            String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+            String entryPath = archivePath + "!" + File.separator + entryName.replace("/", File.separator);
+            if (isArchive(fileName)) {
+                if (depth < MAX_NESTING && filter.accepts(entryPath)) {
+                    // 嵌套压缩包在当前条目的流上继续读取；不关闭内层流，外层getNextEntry会跳过剩余字节
+                    try {
+                        scanEntries(engine, new ZipInputStream(zin), entryPath, depth + 1, filter, result);
+                    } catch (Exception e) {
+                        // 外层流本身损坏时，外层getNextEntry随后也会失败，由外层隔离
+                        result.add(failed(entryPath, entry.getSize(), e));
+                    }
+                }
+            } else if (engine.isCandidate(fileName)) {
+                ArchiveEntry source = readEntry(zin, entryPath, entry.getSize(), maxBytes);
+                source.extracted = engine.extractCached(source);
+                // 提取完成后释放内容，内存中只保留行数据
+                source.release();
+                result.add(source);
+            }
+        }
+    }
+
+    /**
+     * 无法读取的压缩包：作为一个已隔离的文件（解析失败）计入错误文件清单
+     */
+    private static SourceFile failed(String path, long size, Exception e) {
+        ArchiveEntry source = new ArchiveEntry(path, Math.max(size, 0));
+        source.extracted = CodeAnalysisTool.quarantine(source, "解析失败", String.valueOf(e), 0);
+        return source;
+    }
+
+    private static boolean isInBuildDir(String entryName) {
+        String[] parts = entryName.split("/");
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (parts[i].equalsIgnoreCase("build")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取条目内容，最多读入单文件上限（maxBytes<=0不限）：条目头中的大小已超过上限时不读取，
+     * 流式条目（大小未知）读到上限后只计数不保留。超过上限的条目不带内容，提取时按"文件过大"隔离
+     */
+    private static ArchiveEntry readEntry(InputStream in, String entryPath, long declaredSize, long maxBytes)
+            throws Exception {
+        if (maxBytes > 0 && declaredSize > maxBytes) {
+            return new ArchiveEntry(entryPath, declaredSize);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1 << 16];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            total += read;
+            if (maxBytes > 0 && total > maxBytes) {
+                while ((read = in.read(buffer)) > 0) {
+                    total += read;
+                }
+                return new ArchiveEntry(entryPath, total);
+            }
+            out.write(buffer, 0, read);
+        }
+        return new ArchiveEntry(entryPath, out.toByteArray());
+    }
+
+    /**
+     * 扫描哪些压缩包：archive.scan.enabled关闭时一个都不扫描；路径（/分隔，嵌套条目为外层路径!/条目路径）
+     * 匹配任一include（未配置时全部匹配）且不匹配任何exclude。模式为glob：*匹配一级目录内的字符，**匹配任意层目录，不区分大小写
+     */
+    static class Filter {
+        private final boolean enabled;
+        private final List<Pattern> includes = new ArrayList<>();
+        private final List<Pattern> excludes = new ArrayList<>();
+
+        Filter(AnalysisOptions options) {
+            this.enabled = options.isArchiveScanEnabled();
+            for (String glob : options.getArchiveIncludes()) {
+                includes.add(globToPattern(glob));
+            }
+            for (String glob : options.getArchiveExcludes()) {
+                excludes.add(globToPattern(glob));
+            }
+        }
+
+        boolean accepts(String path) {
+            if (!enabled) {
+                return false;
+            }
+            String normalized = path.replace('\\', '/');
+            boolean included = includes.isEmpty();
+            for (Pattern include : includes) {
+                if (include.matcher(normalized).matches()) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return false;
+            }
+            for (Pattern exclude : excludes) {
+                if (exclude.matcher(normalized).matches()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 保留需要扫描的磁盘压缩包，跳过的个数打印一行提示
+         */
+        List<File> select(List<File> archives, File rootDir) {
+            List<File> selected = new ArrayList<>();
+            for (File archive : archives) {
+                if (accepts(relativePath(rootDir, archive))) {
+                    selected.add(archive);
+                }
+            }
+            if (selected.size() < archives.size()) {
+                System.out.println("跳过" + (archives.size() - selected.size()) + "个压缩包（archive.scan.*配置）");
+            }
+            return selected;
+        }
+
+        static Pattern globToPattern(String glob) {
+            StringBuilder regex = new StringBuilder();
+            String g = glob.trim().replace('\\', '/');
+            for (int i = 0; i < g.length(); i++) {
+                char c = g.charAt(i);
+                if (c == '*' && i + 1 < g.length() && g.charAt(i + 1) == '*') {
+                    i++;
+                    if (i + 1 < g.length() && g.charAt(i + 1) == '/') {
+                        // **/ 匹配零或多级目录
+                        i++;
+                        regex.append("(?:.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                } else if (c == '*') {
+                    regex.append("[^/]*");
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
+        }
+    }
+
+    /**
+     * 压缩包中的条目，内容只在提取期间保存在内存
+     */
+    static class ArchiveEntry extends SourceFile {
+        private byte[] content;
+        private final long size;
+        private final long crc;
+
+        ArchiveEntry(String relativePath, byte[] content) {
+            super(relativePath);
+            this.content = content;
+            this.size = content.length;
+            CRC32 crc32 = new CRC32();
+            crc32.update(content);
+            this.crc = crc32.getValue();
+        }
+
+        /**
+         * 超过单文件上限、未读入内存的条目（只记大小，提取时隔离），或无法读取的压缩包
+         */
+        ArchiveEntry(String relativePath, long size) {
+            super(relativePath);
+            this.size = size;
+            this.crc = -1;
+        }
+
+        void release() {
+            content = null;
+        }
+
+        @Override
+        public long length() {
+            return size;
+        }
+
+        @Override
+        public byte[] readBytes() {
+            if (content == null) {
+                throw new IllegalStateException("压缩包条目内容已释放：" + relativePath);
+            }
+            return content;
+        }
+
+        @Override
+        String fingerprint() {
+            return "zip:" + relativePath + "|" + size + "|" + Long.toHexString(crc);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+import java.util.*;
+
+/**
+ * 类继承层次：一次遍历登记所有Java文件的顶层类及其直接父类，再在内存中解析每个类的完整祖先链
+ * <p>
+ * 父类名按import（精确导入、通配符导入）、同包、扫描范围内唯一的简单类名依次解析，解析不到的作为外部类节点
+ * （如Struts的DispatchAction）。节点编号后父子关系存放在int数组中，深度、祖先链顶端、最近的Struts基类
+ * 沿父链求一次即记下，已求过的祖先直接复用，整体为线性时间；源码中的循环继承（无法编译的代码）在环上断开。
+ */
+public class ClassHierarchy {
+
+    // Struts 1及Spring对Struts支持类中的Action基类（简单类名）
+    static final Set<String> STRUTS_ACTION_BASES = new HashSet<>(Arrays.asList(
+            "Action", "DispatchAction", "LookupDispatchAction", "MappingDispatchAction", "EventDispatchAction",
+            "DownloadAction", "ForwardAction", "IncludeAction", "LocaleAction", "SwitchAction",
+            "ActionSupport", "DispatchActionSupport", "LookupDispatchActionSupport", "MappingDispatchActionSupport"));
+
+    private final Map<String, Integer> qualifiedIds = new HashMap<>();
+    // 简单类名 → 编号，同名类不止一个时为-1（不能按简单名解析）
+    private final Map<String, Integer> simpleIds = new HashMap<>();
+    private final List<String> qualifiedNames = new ArrayList<>();
+    private final List<String> simpleNames = new ArrayList<>();
+    private final List<String> packageNames = new ArrayList<>();
+    // 扫描范围内的类：文件相对路径、源码中的父类写法、import；外部类节点为null
+    private final List<String> relativePaths = new ArrayList<>();
+    private final List<String> superNames = new ArrayList<>();
+    private final List<String[]> imports = new ArrayList<>();
+    private final Map<String, Integer> externalIds = new HashMap<>();
+    private int declaredCount;
+    private int cycleCount;
+
+    private int[] parent;
+    private int[] depth;
+    private int[] root;
+    private int[] strutsBase;
+
+    /**
+     * 登记一个扫描范围内的类（先登记全部类，再build）
+     */
+    void declare(String simpleName, String packageName, String superName, String[] importNames, String relativePath) {
+        if (parent != null) {
+            throw new IllegalStateException("继承层次已构建");
+        }
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        int id = qualifiedNames.size();
+        qualifiedNames.add(qualifiedName);
+        simpleNames.add(simpleName);
+        packageNames.add(packageName);
+        relativePaths.add(relativePath);
+        superNames.add(superName);
+        imports.add(importNames == null ? new String[0] : importNames);
+        qualifiedIds.putIfAbsent(qualifiedName, id);
+        simpleIds.put(simpleName, simpleIds.containsKey(simpleName) ? -1 : id);
+        declaredCount++;
+    }
+
+    /**
+     * 解析所有父类，计算深度、祖先链顶端和最近的Struts基类
+     */
+    void build() {
+        int[] parents = new int[declaredCount];
+        for (int id = 0; id < declaredCount; id++) {
+            String superName = superNames.get(id);
+            parents[id] = superName == null ? -1 : resolve(id, superName);
+        }
+        // 外部类节点在解析过程中追加，没有父类
+        int nodeCount = qualifiedNames.size();
+        parent = Arrays.copyOf(parents, nodeCount);
+        Arrays.fill(parent, declaredCount, nodeCount, -1);
+        depth = new int[nodeCount];
+        root = new int[nodeCount];
+        strutsBase = new int[nodeCount];
+        Arrays.fill(depth, -1);
+
+        boolean[] onPath = new boolean[nodeCount];
+        int[] path = new int[nodeCount];
+        for (int start = 0; start < nodeCount; start++) {
+            int length = 0;
+            int u = start;
+            while (u >= 0 && depth[u] < 0 && !onPath[u]) {
+                onPath[u] = true;
+                path[length++] = u;
+                u = parent[u];
+            }
+            if (u >= 0 && onPath[u]) {
+                // 循环继承：在环上最后一个节点处断开
+                parent[path[length - 1]] = -1;
+                cycleCount++;
+            }
+            // 由祖先向子类回填，父类的结果已就绪
+            for (int i = length - 1; i >= 0; i--) {
+                int w = path[i];
+                int p = parent[w];
+                depth[w] = p < 0 ? 0 : depth[p] + 1;
+                root[w] = p < 0 ? w : root[p];
+                strutsBase[w] = STRUTS_ACTION_BASES.contains(simpleNames.get(w)) ? w : p < 0 ? -1 : strutsBase[p];
+                onPath[w] = false;
+            }
+        }
+    }
+
+    /**
+     * 父类解析：带包名的写法直接查找；否则依次按精确import、同包、通配符import、唯一的简单类名，都不命中时为外部类
+     */
+    private int resolve(int id, String superName) {
+        if (superName.indexOf('.') >= 0) {
+            Integer found = qualifiedIds.get(superName);
+            return found != null ? found : external(superName);
+        }
+        String suffix = "." + superName;
+        String explicitImport = null;
+        for (String importName : imports.get(id)) {
+            if (importName.endsWith(suffix)) {
+                explicitImport = importName;
+                break;
+            }
+        }
+        if (explicitImport != null) {
+            Integer found = qualifiedIds.get(explicitImport);
+            return found != null ? found : external(explicitImport);
+        }
+        String packageName = packageNames.get(id);
+        Integer found = qualifiedIds.get(packageName.isEmpty() ? superName : packageName + suffix);
+        if (found != null) {
+            return found;
+        }
+        for (String importName : imports.get(id)) {
+            if (importName.endsWith(".*")) {
+                found = qualifiedIds.get(importName.substring(0, importName.length() - 2) + suffix);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        found = simpleIds.get(superName);
+        return found != null && found >= 0 ? found : external(superName);
+    }
+
+    private int external(String name) {
+        Integer id = externalIds.get(name);
+        if (id == null) {
+            id = qualifiedNames.size();
+            externalIds.put(name, id);
+            qualifiedNames.add(name);
+            simpleNames.add(name.substring(name.lastIndexOf('.') + 1));
+            int dot = name.lastIndexOf('.');
+            packageNames.add(dot > 0 ? name.substring(0, dot) : "");
+            relativePaths.add(null);
+        }
+        return id;
+    }
+
+    /**
+     * 是否Action：祖先中有Struts的Action基类；或祖先链顶端是扫描范围外、类名最后一段是Action的类（jar中的公司基类）
+     */
+    boolean isAction(int id) {
+        int p = parent[id];
+        if (p < 0) {
+            return false;
+        }
+        // 区分大小写：大写A即驼峰分段处，BaseAction、Lot_Action是，Transaction、JDBCTransaction不是
+        return strutsBase[p] >= 0 || (isExternal(root[id]) && simpleNames.get(root[id]).endsWith("Action"));
+    }
+
+    /**
+     * Action所依托的框架基类：最近的Struts基类，没有时为祖先链顶端
+     */
+    int actionBase(int id) {
+        int p = parent[id];
+        return p >= 0 && strutsBase[p] >= 0 ? strutsBase[p] : root[id];
+    }
+
+    /**
+     * 祖先链（由直接父类到顶端）
+     */
+    String ancestorChain(int id) {
+        StringBuilder chain = new StringBuilder();
+        for (int p = parent[id]; p >= 0; p = parent[p]) {
+            if (chain.length() > 0) {
+                chain.append(" → ");
+            }
+            chain.append(simpleNames.get(p));
+        }
+        return chain.toString();
+    }
+
+    /**
+     * 按深度由深到浅排列的节点（计数排序），子类总在父类之前，供自底向上汇总
+     */
+    int[] deepestFirst() {
+        int maxDepth = 0;
+        for (int d : depth) {
+            maxDepth = Math.max(maxDepth, d);
+        }
+        int[] start = new int[maxDepth + 2];
+        for (int d : depth) {
+            start[maxDepth - d + 1]++;
+        }
+        for (int i = 1; i < start.length; i++) {
+            start[i] += start[i - 1];
+        }
+        int[] order = new int[depth.length];
+        for (int id = 0; id < depth.length; id++) {
+            order[start[maxDepth - depth[id]]++] = id;
+        }
+        return order;
+    }
+
+    int getNodeCount() {
+        return qualifiedNames.size();
+    }
+
+    int getDeclaredCount() {
+        return declaredCount;
+    }
+
+    int getCycleCount() {
+        return cycleCount;
+    }
+
+    boolean isExternal(int id) {
+        return id >= declaredCount;
+    }
+
+    int parentOf(int id) {
+        return parent[id];
+    }
+
+    int depthOf(int id) {
+        return depth[id];
+    }
+
+    String simpleName(int id) {
+        return simpleNames.get(id);
+    }
+
+    String qualifiedName(int id) {
+        return qualifiedNames.get(id);
+    }
+
+    String packageName(int id) {
+        return packageNames.get(id);
+    }
+
+    String relativePath(int id) {
+        return relativePaths.get(id);
+    }
+
+    /**
+     * 源码中的父类写法（外部类节点为null）
+     */
+    String superName(int id) {
+        return id < declaredCount ? superNames.get(id) : null;
+    }
+}
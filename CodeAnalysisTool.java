@@ -1,83 +1,266 @@
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
+import org.xml.sax.SAXException;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.IntFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * 代码分析引擎：扫描Struts配置、前端.do路径、Action/Service/Manager/Dao及Bean装配关系
+ * <p>
+ * 命令行入口读取config.properties后运行一次；构建插件或常驻服务可直接创建实例调用analyze/run，
+ * 省去JVM启动，增量缓存随实例保留。扫描状态都在实例中，不同实例互不影响。
+ */
 public class CodeAnalysisTool {
 
-    // 配置项：仅保留唯一根目录和Excel输出路径
-    private static String SCAN_BASE_DIR;
-    private static String EXCEL_OUTPUT_PATH;
+    // 分析选项（扫描来源、增量缓存、排序、扩展提取器、结果输出）
+    private final AnalysisOptions options;
     // 扫描根目录的File对象
-    private static File ROOT_DIR;
+    private File rootDir;
+    // 增量缓存（未配置时为null），随实例保留，同一实例的多次扫描共用
+    private final IncrementalCache incrementalCache;
+    // 增量缓存指纹前缀：扩展提取器、是否分词不同则提取结果不同，不能互相复用
+    private final String cacheSalt;
+    // 本次扫描中每个文件的提取结果，各阶段共用，文件只读取一次
+    private Map<SourceFile, FileExtraction> extractionMap = new IdentityHashMap<>();
+    // 本次扫描的各Sheet行集合（配置溢写目录时超过阈值的部分在临时文件中），下一次扫描开始时删除临时文件
+    private List<RowStore> rowStores = new ArrayList<>();
+    // 本次扫描的取消标记和整体截止时间（cancel()可从其他线程调用）
+    private volatile ScanBudget.Run currentRun = new ScanBudget.Run(0);
+    // 本次扫描的进度（预统计总量后创建，提取阶段结束后置空）；压缩包在线程池中提取，计数在ScanProgress内同步
+    private volatile ScanProgress progress;
+    // 本次扫描各阶段的耗时/堆占用，随结果返回
+    private StageStats stageStats = new StageStats(false);
+    // 本次扫描已计入进度的文件（溢写模式下非Java文件不常驻extractionMap，不能据此判断）
+    private Set<SourceFile> progressedSources = Collections.newSetFromMap(new IdentityHashMap<>());
+    // 检查点：上次保存完成的时间和耗时（System.nanoTime），多线程触发时只保存一次
+    private final Object checkpointLock = new Object();
+    private long lastCheckpoint;
+    private long checkpointCost;
+
+    // ========== 单文件提取结果分类 ==========
+    static final String ROWS_STRUTS = "struts";
+    static final String ROWS_DO_PATH = "doPath";
+    static final String ROWS_ACTION = "action";
+    static final String ROWS_ACTION_BASE = "actionBase";
+    static final String ROWS_SERVICE = "service";
+    static final String ROWS_SERVICE_IMPL = "serviceImpl";
+    static final String ROWS_MANAGER = "manager";
+    static final String ROWS_MANAGER_IMPL = "managerImpl";
+    static final String ROWS_DAO = "dao";
+    static final String ROWS_DAO_IMPL = "daoImpl";
+    static final String ROWS_WIRING = "wiring";
+    static final String ROWS_METHOD = "method";
+    // 实现类声明的方法签名（只用于匹配接口方法的覆盖情况，不单独输出）
+    static final String ROWS_METHOD_IMPL = "methodImpl";
+    static final String ROWS_SQL = "sql";
+    static final String ROWS_ERROR = "error";
+    static final String ROWS_PACKAGE_DEP = "packageDep";
+    static final String ROWS_MODULE_DEP = "moduleDep";
+    static final String ROWS_CYCLE = "cycle";
+    static final String ROWS_LAYER_VIOLATION = "layerViolation";
+    static final String ROWS_RULE_VIOLATION = "ruleViolation";
+    // DaoImpl方法中形如语句ID的字符串（只用于匹配mapper语句的调用方，不单独输出）
+    static final String ROWS_SQL_REF = "sqlRef";
+    // web.xml声明的Struts模块配置、web.xml/TilesPlugin引用的Tiles定义文件、Tiles定义及其put（只用于汇总Struts配置，不单独输出）
+    static final String ROWS_STRUTS_MODULE = "strutsModule";
+    static final String ROWS_TILES_CONFIG = "tilesConfig";
+    static final String ROWS_TILES_DEF = "tilesDef";
+    static final String ROWS_TILES_PUT = "tilesPut";
     // 缓存：类名→文件相对路径（仅保留，不影响核心功能）
-    private static Map<String, String> classNameToRelativePathMap = new HashMap<>();
+    private Map<String, String> classNameToRelativePathMap = new HashMap<>();
 
     // ========== Struts配置重复检测相关 ==========
-    private static Map<String, Integer> duplicateCountMap = new HashMap<>();
+    private Map<String, Integer> duplicateCountMap = new HashMap<>();
     private static final String DUPLICATE_KEY_SPLIT = "_";
 
     // ========== 前端文件.do路径提取相关 ==========
     private static final Pattern DO_PATH_PATTERN = Pattern.compile("([\"'\\s])(/[^\"'\\s]+\\.do)([\"'\\s])");
-    private static List<Map<String, String>> frontEndDoPathList = new ArrayList<>();
+    private RowStore frontEndDoPathList;
     private static final List<String> FRONT_END_SUFFIX = Arrays.asList("jsp", "html", "js");
 
-    // ========== Action类扫描相关（已调整，不区分大小写） ==========
-    private static List<Map<String, String>> actionClassList = new ArrayList<>();
+    // ========== Action类扫描相关（按继承关系识别） ==========
+    private RowStore actionClassList;
+    private RowStore actionBaseList;
+    // 包名匹配不区分大小写
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("package\\s+([^;]+);", Pattern.CASE_INSENSITIVE);
     // 匹配类定义：public class XxxAction extends Yyy（大小写不敏感）
     private static final Pattern CLASS_DEF_PATTERN = Pattern.compile("public\\s+class\\s+(\\w+)\\s*(extends\\s+(\\w+))?.*", Pattern.CASE_INSENSITIVE);
 
     // ========== Service接口扫描相关（不区分大小写） ==========
-    private static List<Map<String, String>> serviceInterfaceList = new ArrayList<>();
+    private RowStore serviceInterfaceList;
     // 匹配public interface XxxService {（大小写不敏感）
     private static final Pattern INTERFACE_DEF_PATTERN = Pattern.compile("public\\s+interface\\s+(\\w+service)\\s*\\{?", Pattern.CASE_INSENSITIVE);
     // 去重：存储小写类名，避免重复（适配不规范命名）
-    private static Set<String> serviceInterfaceSet = new HashSet<>();
+    private Set<String> serviceInterfaceSet = new HashSet<>();
 
     // ========== ServiceImpl实现类扫描相关（移除Manager字段，不区分大小写） ==========
-    private static List<Map<String, String>> serviceImplList = new ArrayList<>();
+    private RowStore serviceImplList;
     // 匹配public class XxxServiceImpl implements XXX（大小写不敏感）
     private static final Pattern SERVICE_IMPL_DEF_PATTERN = Pattern.compile("public\\s+class\\s+(\\w+serviceimpl)\\s*(implements\\s+([^\\{]+))?.*", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SERVICE_ANNOTATION_PATTERN = Pattern.compile("@service\\s*(\\(.*\\))?", Pattern.CASE_INSENSITIVE);
-    private static final Pattern SOFA_SERVICE_ANNOTATION_PATTERN = Pattern.compile("@sofaservice\\s*\\(([^\\)]*)\\)", Pattern.CASE_INSENSITIVE);
-    private static final Pattern BINDING_TYPE_PATTERN = Pattern.compile("bindingtype\\s*=\\s*[\"']([^\"']+)['\"]", Pattern.CASE_INSENSITIVE);
-    private static Set<String> serviceImplSet = new HashSet<>();
+    private Set<String> serviceImplSet = new HashSet<>();
 
     // ========== Manager接口扫描相关（不区分大小写） ==========
-    private static List<Map<String, String>> managerInterfaceList = new ArrayList<>();
+    private RowStore managerInterfaceList;
     // 匹配public interface XxxManager {（大小写不敏感）
     private static final Pattern MANAGER_INTERFACE_DEF_PATTERN = Pattern.compile("public\\s+interface\\s+(\\w+manager)\\s*\\{?", Pattern.CASE_INSENSITIVE);
-    private static Set<String> managerInterfaceSet = new HashSet<>();
+    private Set<String> managerInterfaceSet = new HashSet<>();
 
     // ========== ManagerImpl实现类扫描相关（移除Dao字段，不区分大小写） ==========
-    private static List<Map<String, String>> managerImplList = new ArrayList<>();
+    private RowStore managerImplList;
     // 匹配public class XxxManagerImpl implements XXX（大小写不敏感）
     private static final Pattern MANAGER_IMPL_DEF_PATTERN = Pattern.compile("public\\s+class\\s+(\\w+managerimpl)\\s*(implements\\s+([^\\{]+))?.*", Pattern.CASE_INSENSITIVE);
-    private static final Pattern TRANSACTIONAL_ANNOTATION_PATTERN = Pattern.compile("@transactional\\s*(\\(.*\\))?", Pattern.CASE_INSENSITIVE);
-    private static Set<String> managerImplSet = new HashSet<>();
+    private Set<String> managerImplSet = new HashSet<>();
 
     // ========== Dao接口扫描相关（不区分大小写） ==========
-    private static List<Map<String, String>> daoInterfaceList = new ArrayList<>();
+    private RowStore daoInterfaceList;
     // 匹配public interface XxxDao {（大小写不敏感）
     private static final Pattern DAO_INTERFACE_DEF_PATTERN = Pattern.compile("public\\s+interface\\s+(\\w+dao)\\s*\\{?", Pattern.CASE_INSENSITIVE);
-    private static Set<String> daoInterfaceSet = new HashSet<>();
+    private Set<String> daoInterfaceSet = new HashSet<>();
 
     // ========== DaoImpl实现类扫描相关（不区分大小写） ==========
-    private static List<Map<String, String>> daoImplList = new ArrayList<>();
+    private RowStore daoImplList;
     // 匹配public class XxxDaoImpl implements XXX（大小写不敏感）
     private static final Pattern DAO_IMPL_DEF_PATTERN = Pattern.compile("public\\s+class\\s+(\\w+daoimpl)\\s*(implements\\s+([^\\{]+))?.*", Pattern.CASE_INSENSITIVE);
-    private static final Pattern REPOSITORY_ANNOTATION_PATTERN = Pattern.compile("@repository\\s*(\\(.*\\))?", Pattern.CASE_INSENSITIVE);
-    private static Set<String> daoImplSet = new HashSet<>();
+    private Set<String> daoImplSet = new HashSet<>();
+
+    // ========== Spring/SOFA装配清单（注解依赖边） ==========
+    private RowStore wiringEdgeList;
+
+    // ========== Service/Manager/Dao接口方法清单（每个方法一行） ==========
+    private RowStore interfaceMethodList;
+    private static final String[] METHOD_LAYERS = {"Service", "Manager", "Dao"};
+
+    // ========== SQL语句清单（mapper语句 + DaoImpl内联SQL） ==========
+    private RowStore sqlStatementList;
+
+    // ========== 包/模块依赖矩阵（由import汇总）、依赖环、分层违规 ==========
+    private RowStore packageDependencyList;
+    private RowStore moduleDependencyList;
+    private RowStore dependencyCycleList;
+    private RowStore layerViolationList;
+    // 分层从下到上：下层import上层即为违规（如Dao引用Action）
+    private static final String[] DEPENDENCY_LAYERS = {"Dao", "Manager", "Service", "Action"};
+    // 架构规则违规时的进程退出码（CI门禁）
+    static final int RULE_VIOLATION_EXIT_CODE = 3;
+    // 配置错误、规则文件无法解析、扫描中止等失败时的进程退出码（CI中不能当作通过）
+    static final int ERROR_EXIT_CODE = 1;
+    // 依赖环的成员/边在单元格中最多列出的个数
+    private static final int CYCLE_LIST_LIMIT = 50;
+
+    // ========== 架构规则违规（配置了规则文件时检查） ==========
+    private RowStore ruleViolationList;
+
+    // ========== 错误文件（超过大小/时间预算、解析失败而被隔离的文件） ==========
+    private RowStore errorFileList;
+    private Set<SourceFile> quarantinedSources = Collections.newSetFromMap(new IdentityHashMap<>());
+    // 扫描被取消/超过整体截止时间后未提取的文件数
+    private int skippedFileCount;
+
+    // ========== Sheet定义（名称、表头、字段、比对主键、默认排序），Excel写入与快照比对共用 ==========
+    static final SheetDef[] SHEET_DEFS = {
+            new SheetDef(ROWS_STRUTS, "Struts配置",
+                    new String[]{"配置文件相对路径", "模块", "form-bean-type", "action-path", "完整action路径", "action-type",
+                            "action-name(form)", "forward-name", "forward-path", "Tiles展开JSP", "是否重复", "重复次数"},
+                    new String[]{"relativePath", "module", "formBean", "actionPath", "fullActionPath", "actionType",
+                            "actionName", "forwardName", "forwardPath", "tilesJsp", "isDuplicate", "duplicateCount"},
+                    new String[]{"relativePath", "module", "actionPath", "formBean", "forwardName"}, false, ""),
+            new SheetDef(ROWS_DO_PATH, "前端文件DO路径",
+                    new String[]{"文件相对路径", ".do路径", "出现次数"},
+                    new String[]{"fileRelativePath", "doPath", "count"},
+                    new String[]{"fileRelativePath", "doPath"}, false, ""),
+            new SheetDef(ROWS_ACTION, "Action类信息",
+                    new String[]{"Action类名", "包名", "文件相对路径", "父类名称", "继承深度", "继承链", "框架基类"},
+                    new String[]{"actionClassName", "packageName", "actionRelativePath", "parentClassName",
+                            "depth", "ancestorChain", "actionBase"},
+                    new String[]{"actionClassName", "actionRelativePath"}, true, "actionClassName"),
+            new SheetDef(ROWS_ACTION_BASE, "Action基类统计",
+                    new String[]{"基类", "文件相对路径", "是否Struts基类", "直接Action子类数", "Action总数", "子类最大层数"},
+                    new String[]{"baseClassName", "fileRelativePath", "strutsBase", "directSubclassCount",
+                            "actionCount", "maxSubclassDepth"},
+                    new String[]{"baseClassName"}, false, "baseClassName"),
+            new SheetDef(ROWS_SERVICE, "Service接口列表",
+                    new String[]{"接口名", "包名", "接口文件相对路径"},
+                    new String[]{"interfaceName", "packageName", "fileRelativePath"},
+                    new String[]{"interfaceName"}, true, "interfaceName"),
+            new SheetDef(ROWS_SERVICE_IMPL, "ServiceImpl实现类列表",
+                    new String[]{"ServiceImpl类名", "包名", "文件相对路径",
+                            "被实现的接口名", "是否有@Service注解", "是否有@SofaService注解", "bindingType值"},
+                    new String[]{"implClassName", "packageName", "fileRelativePath",
+                            "implementedInterfaces", "hasServiceAnnotation", "hasSofaServiceAnnotation", "bindingType"},
+                    new String[]{"implClassName"}, true, "implClassName"),
+            new SheetDef(ROWS_MANAGER, "Manager接口列表",
+                    new String[]{"接口名", "包名", "接口文件相对路径"},
+                    new String[]{"interfaceName", "packageName", "fileRelativePath"},
+                    new String[]{"interfaceName"}, true, "interfaceName"),
+            new SheetDef(ROWS_MANAGER_IMPL, "ManagerImpl实现类列表",
+                    new String[]{"ManagerImpl类名", "包名", "文件相对路径",
+                            "被实现的接口名", "是否有@Service注解", "是否有@Transactional注解"},
+                    new String[]{"implClassName", "packageName", "fileRelativePath",
+                            "implementedInterfaces", "hasServiceAnnotation", "hasTransactionalAnnotation"},
+                    new String[]{"implClassName"}, true, "implClassName"),
+            new SheetDef(ROWS_DAO, "Dao接口列表",
+                    new String[]{"接口名", "包名", "接口文件相对路径"},
+                    new String[]{"interfaceName", "packageName", "fileRelativePath"},
+                    new String[]{"interfaceName"}, true, "interfaceName"),
+            new SheetDef(ROWS_DAO_IMPL, "DaoImpl实现类列表",
+                    new String[]{"DaoImpl类名", "包名", "文件相对路径", "被实现的接口名", "是否有@Repository注解"},
+                    new String[]{"implClassName", "packageName", "fileRelativePath",
+                            "implementedInterfaces", "hasRepositoryAnnotation"},
+                    new String[]{"implClassName"}, true, "implClassName"),
+            new SheetDef(ROWS_WIRING, "Bean依赖关系",
+                    new String[]{"类名", "包名", "注解", "标注位置", "字段/方法/类名", "依赖/暴露类型",
+                            "uniqueId", "bindingType", "是否远程调用", "注解属性", "文件相对路径", "行号"},
+                    new String[]{"sourceClass", "packageName", "annotation", "memberKind", "memberName", "targetType",
+                            "uniqueId", "bindingType", "remote", "attributes", "fileRelativePath", "line"},
+                    new String[]{"fileRelativePath", "annotation", "memberKind", "memberName"}, false, "sourceClass,memberName"),
+            new SheetDef(ROWS_METHOD, "接口方法清单",
+                    new String[]{"接口名", "层", "包名", "方法名", "返回类型", "参数类型", "参数个数",
+                            "接口方法数", "覆盖该方法的实现类", "接口文件相对路径", "行号"},
+                    new String[]{"interfaceName", "layer", "packageName", "methodName", "returnType", "parameterTypes", "parameterCount",
+                            "methodCount", "implementedBy", "fileRelativePath", "line"},
+                    new String[]{"interfaceName", "methodName", "parameterTypes"}, true, "interfaceName,line"),
+            new SheetDef(ROWS_SQL, "SQL语句清单",
+                    new String[]{"来源", "命名空间/DaoImpl类", "语句ID/方法名", "语句类型", "涉及的表",
+                            "调用方（DaoImpl.方法）", "SQL摘要", "文件相对路径", "行号"},
+                    new String[]{"source", "namespace", "statementId", "statementType", "tables",
+                            "callers", "sqlPreview", "fileRelativePath", "line"},
+                    new String[]{"fileRelativePath", "namespace", "statementId"}, false, "namespace,statementId"),
+            new SheetDef(ROWS_PACKAGE_DEP, "包依赖",
+                    new String[]{"源包", "源模块", "依赖包", "依赖包模块", "import数", "所在依赖环"},
+                    new String[]{"sourcePackage", "sourceModule", "targetPackage", "targetModule", "importCount", "cycleGroup"},
+                    new String[]{"sourcePackage", "targetPackage"}, false, "sourcePackage,targetPackage"),
+            new SheetDef(ROWS_MODULE_DEP, "模块依赖",
+                    new String[]{"源模块", "依赖模块", "包依赖数", "import数", "所在依赖环"},
+                    new String[]{"sourceModule", "targetModule", "packageEdgeCount", "importCount", "cycleGroup"},
+                    new String[]{"sourceModule", "targetModule"}, false, "sourceModule,targetModule"),
+            new SheetDef(ROWS_CYCLE, "依赖环",
+                    new String[]{"级别", "依赖环", "成员数", "成员", "环内依赖"},
+                    new String[]{"scope", "cycleGroup", "memberCount", "members", "edges"},
+                    new String[]{"scope", "members"}, false, ""),
+            new SheetDef(ROWS_LAYER_VIOLATION, "分层违规",
+                    new String[]{"文件相对路径", "类名", "所在分层", "import", "被引用分层", "行号"},
+                    new String[]{"fileRelativePath", "className", "sourceLayer", "importName", "targetLayer", "line"},
+                    new String[]{"fileRelativePath", "importName"}, false, "fileRelativePath"),
+            new SheetDef(ROWS_RULE_VIOLATION, "架构规则违规",
+                    new String[]{"规则", "文件相对路径", "类名", "违规内容", "行号"},
+                    new String[]{"rule", "fileRelativePath", "className", "violation", "line"},
+                    new String[]{"rule", "fileRelativePath", "violation"}, false, "rule,fileRelativePath"),
+            new SheetDef(ROWS_ERROR, "错误文件",
+                    new String[]{"文件相对路径", "错误类型", "错误信息", "耗时(ms)", "文件字节数"},
+                    new String[]{"fileRelativePath", "errorType", "message", "elapsedMillis", "fileSize"},
+                    new String[]{"fileRelativePath"}, false, "")
+    };
 
     public static void main(String[] args) {
         try {
@@ -85,110 +268,490 @@ public class CodeAnalysisTool {
             System.setProperty("org.apache.logging.log4j.simplelog.defaultloglevel", "info");
             System.setProperty("log4j2.loggerContextFactory", "org.apache.logging.log4j.simple.SimpleLoggerContextFactory");
 
+            // 快照比对模式：diff <旧快照.xlsx|旧根目录> <新快照.xlsx|新根目录> <报告.xlsx|报告.csv>
+            if (args.length > 0 && "diff".equalsIgnoreCase(args[0])) {
+                SnapshotDiff.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            // 源码索引查询：search <索引文件> <查询词>...
+            if (args.length > 0 && "search".equalsIgnoreCase(args[0])) {
+                SourceIndex.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            // 启动基准：bench <扫描目录> [次数] [AppCDS归档]，对比默认/快速启动JVM参数、Excel/CSV输出的耗时
+            if (args.length > 0 && "bench".equalsIgnoreCase(args[0])) {
+                StartupBenchmark.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            // 本地查询服务模式：serve [端口]，扫描结果常驻内存，文件变化后增量刷新
+            if (args.length > 0 && "serve".equalsIgnoreCase(args[0])) {
+                QueryServer.run(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+
             // 1. 加载配置文件
-            loadConfig();
+            AnalysisOptions options = AnalysisOptions.load();
 
             // 2. 校验配置
-            if (SCAN_BASE_DIR == null || SCAN_BASE_DIR.isEmpty() ||
-                    EXCEL_OUTPUT_PATH == null || EXCEL_OUTPUT_PATH.isEmpty()) {
-                System.err.println("❌ 配置文件缺失必要项！需包含scan.base.dir、excel.output.path");
-                return;
+            String excelOutputPath = options.getExcelOutputPath();
+            boolean excelOutput = excelOutputPath != null && !excelOutputPath.isEmpty();
+            if ((options.getGitRepoDir() == null && options.getScanBaseDir() == null) ||
+                    (!excelOutput && options.getCsvOutputDir() == null)) {
+                System.err.println("❌ 配置文件缺失必要项！需包含scan.base.dir（或scan.git.repo）、excel.output.path（或csv.output.dir）");
+                System.exit(ERROR_EXIT_CODE);
+            }
+            if (options.getGitRepoDir() == null && !options.getScanBaseDir().isDirectory()) {
+                System.err.println("❌ 扫描/源码根目录不存在：" + options.getScanBaseDir().getPath());
+                System.exit(ERROR_EXIT_CODE);
+            }
+            // 只配置CSV目录时不加载POI（提交前检查等小范围扫描启动更快）
+            if (excelOutput) {
+                options.addSink(new ExcelSink(excelOutputPath));
+            }
+            if (options.getCsvOutputDir() != null) {
+                options.addSink(new CsvSink(options.getCsvOutputDir()));
             }
 
-            // 初始化唯一根目录
-            ROOT_DIR = new File(SCAN_BASE_DIR);
-            if (!ROOT_DIR.exists() || !ROOT_DIR.isDirectory()) {
-                System.err.println("❌ 扫描/源码根目录不存在：" + SCAN_BASE_DIR);
-                return;
+            // 3~13. 扫描解析、保存增量缓存、写入Excel
+            AnalysisResult result = new CodeAnalysisTool(options).run();
+
+            System.out.println("\n✅ 全部解析完成！");
+            for (SheetDef def : result.getSheets()) {
+                System.out.println("   - " + def.name + "记录数：" + result.getRowCount(def.id));
+            }
+            if (excelOutput) {
+                System.out.println("✅ Excel生成路径：" + excelOutputPath);
+            }
+            if (options.getCsvOutputDir() != null) {
+                System.out.println("✅ CSV输出目录：" + options.getCsvOutputDir().getPath());
             }
 
-            // 预扫描所有Java文件
-            System.out.println("========== 预扫描所有Java文件 ==========");
-            preScanAllJavaFiles(ROOT_DIR);
+            // CI门禁：有架构规则违规时以非0退出码结束
+            int ruleViolations = result.getRowCount(ROWS_RULE_VIOLATION);
+            if (ruleViolations > 0 && options.isFailOnRuleViolation()) {
+                System.err.println("❌ 架构规则违规" + ruleViolations + "处，详见架构规则违规Sheet");
+                System.exit(RULE_VIOLATION_EXIT_CODE);
+            }
 
-            // ========== 3. 扫描解析Struts配置文件 ==========
-            List<Map<String, String>> strutsConfigList = new ArrayList<>();
-            scanAllStrutsConfig(ROOT_DIR, strutsConfigList);
-            markDuplicateItems(strutsConfigList);
-            printDuplicateSummary();
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(ERROR_EXIT_CODE);
+        }
+    }
 
-            // ========== 4. 扫描前端文件提取.do路径 ==========
-            System.out.println("\n========== 扫描根目录下前端文件提取.do路径 ==========");
-            scanFrontEndFiles(ROOT_DIR);
-            countDoPathInFile();
+    /**
+     * 创建分析引擎：实例之间不共享任何扫描状态，可在同一JVM中并存（如同时扫描两个根目录）；
+     * 同一实例的多次扫描串行执行，增量缓存在实例内保留，避免每次调用都重新提取
+     */
+    public CodeAnalysisTool(AnalysisOptions options) {
+        this.options = options;
+        if (options.getIncrementalCacheFile() != null) {
+            this.incrementalCache = IncrementalCache.load(options.getIncrementalCacheFile());
+        } else if (options.getSourceIndexFile() != null) {
+            this.incrementalCache = IncrementalCache.load(new File(options.getSourceIndexFile().getPath() + ".cache"));
+        } else if (options.getCheckpointFile() != null) {
+            // 只配置了检查点：上次中断留下的检查点即增量缓存，已完成的文件不再提取
+            this.incrementalCache = IncrementalCache.load(options.getCheckpointFile());
+        } else if (options.isCacheInMemory()) {
+            this.incrementalCache = IncrementalCache.inMemory();
+        } else {
+            this.incrementalCache = null;
+        }
+        StringBuilder salt = new StringBuilder(options.getSourceIndexFile() != null ? "index;" : "");
+        for (Extractor extractor : options.getExtractors()) {
+            salt.append(extractor.sheet().id).append(';');
+        }
+        this.cacheSalt = salt.toString();
+        resetState();
+    }
 
-            // ========== 5. 扫描所有以Action结尾的Java文件（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有以Action结尾的Java文件 ==========");
-            scanAllActionJavaFiles(ROOT_DIR);
+    /**
+     * 取消正在进行的扫描（可从其他线程调用）：剩余文件不再提取，已提取的结果照常汇总输出
+     */
+    public void cancel() {
+        currentRun.cancel();
+    }
 
-            // ========== 6. 扫描所有Java文件，提取以Service结尾的接口（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取Service接口 ==========");
-            scanAllServiceInterfaces(ROOT_DIR);
+    public AnalysisOptions getOptions() {
+        return options;
+    }
 
-            // ========== 7. 扫描所有Java文件，提取以ServiceImpl结尾的实现类（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取ServiceImpl实现类 ==========");
-            scanAllServiceImplClasses(ROOT_DIR);
+    /**
+     * 按选项扫描（git提交或根目录），保存增量缓存，再依次写出到各ResultSink
+     */
+    public synchronized AnalysisResult run() throws Exception {
+        AnalysisResult result;
+        // Ctrl+C/kill结束进程时再保存一次检查点，下次从中断处继续
+        Thread checkpointHook = new Thread(this::checkpoint);
+        boolean hooked = incrementalCache != null && options.getCheckpointIntervalMillis() > 0;
+        if (hooked) {
+            Runtime.getRuntime().addShutdownHook(checkpointHook);
+        }
+        try {
+            if (options.getGitRepoDir() != null) {
+                result = analyzeGit(options.getGitRepoDir(), options.getGitRevision());
+            } else if (options.getScanBaseDir() != null) {
+                result = analyze(options.getScanBaseDir());
+            } else {
+                throw new IllegalStateException("❌ 未指定扫描根目录或git仓库");
+            }
+        } finally {
+            if (hooked) {
+                Runtime.getRuntime().removeShutdownHook(checkpointHook);
+            }
+        }
 
-            // ========== 8. 扫描所有Java文件，提取以Manager结尾的接口（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取Manager接口 ==========");
-            scanAllManagerInterfaces(ROOT_DIR);
+        saveCache();
 
-            // ========== 9. 扫描所有Java文件，提取以ManagerImpl结尾的实现类（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取ManagerImpl实现类 ==========");
-            scanAllManagerImplClasses(ROOT_DIR);
+        for (ResultSink sink : options.getSinks()) {
+            sink.write(result);
+        }
+        result.getStageStats().end("output");
+        return result;
+    }
 
-            // ========== 10. 扫描所有Java文件，提取以Dao结尾的接口（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取Dao接口 ==========");
-            scanAllDaoInterfaces(ROOT_DIR);
+    /**
+     * 保存增量缓存（配置了缓存文件时）
+     */
+    public synchronized void saveCache() throws Exception {
+        if (incrementalCache == null) {
+            return;
+        }
+        if (isCheckpointOnly() && skippedFileCount == 0) {
+            // 完整扫描结束，检查点不再需要
+            incrementalCache.delete();
+            System.out.println("✅ 扫描完成，已删除检查点：" + options.getCheckpointFile().getAbsolutePath());
+        } else {
+            incrementalCache.save();
+        }
+    }
 
-            // ========== 11. 扫描所有Java文件，提取以DaoImpl结尾的实现类（不区分大小写） ==========
-            System.out.println("\n========== 扫描所有Java文件提取DaoImpl实现类 ==========");
-            scanAllDaoImplClasses(ROOT_DIR);
+    /**
+     * 增量缓存文件仅用作检查点（未配置incremental.cache.file和源码索引）
+     */
+    private boolean isCheckpointOnly() {
+        return options.getIncrementalCacheFile() == null && options.getSourceIndexFile() == null
+                && options.getCheckpointFile() != null;
+    }
 
-            // ========== 12. 写入9个Sheet的Excel ==========
-            writeExcel(strutsConfigList, frontEndDoPathList, actionClassList,
-                    serviceInterfaceList, serviceImplList, managerInterfaceList, managerImplList, daoInterfaceList, daoImplList, EXCEL_OUTPUT_PATH);
+    /**
+     * 保存检查点：已提取文件的结果写入缓存文件（未配置缓存文件时不做任何事）
+     */
+    private void checkpoint() {
+        synchronized (checkpointLock) {
+            long start = System.nanoTime();
+            try {
+                incrementalCache.checkpoint();
+            } catch (Exception e) {
+                System.out.println("⚠️  检查点保存失败：" + e.getMessage());
+            }
+            lastCheckpoint = System.nanoTime();
+            checkpointCost = lastCheckpoint - start;
+        }
+    }
 
-            System.out.println("\n✅ 全部解析完成！");
-            System.out.println("   - Struts配置记录数：" + strutsConfigList.size());
-            System.out.println("   - 前端DO路径记录数：" + frontEndDoPathList.size());
-            System.out.println("   - Action类记录数：" + actionClassList.size());
-            System.out.println("   - Service接口记录数：" + serviceInterfaceList.size());
-            System.out.println("   - ServiceImpl实现类记录数：" + serviceImplList.size());
-            System.out.println("   - Manager接口记录数：" + managerInterfaceList.size());
-            System.out.println("   - ManagerImpl实现类记录数：" + managerImplList.size());
-            System.out.println("   - Dao接口记录数：" + daoInterfaceList.size());
-            System.out.println("   - DaoImpl实现类记录数：" + daoImplList.size());
-            System.out.println("✅ Excel生成路径：" + EXCEL_OUTPUT_PATH);
+    /**
+     * 距上次检查点超过间隔时保存（提取线程调用，同一时刻只有一个线程保存）；
+     * 每次都是整体重写，间隔至少为上次保存耗时的10倍，缓存很大时保存不会占去大部分扫描时间
+     */
+    private void checkpointIfDue() {
+        long interval = options.getCheckpointIntervalMillis();
+        if (incrementalCache == null || interval <= 0) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            if (System.nanoTime() - lastCheckpoint >= Math.max(interval * 1000000L, checkpointCost * 10)) {
+                checkpoint();
+            }
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 预统计：只取文件元数据（个数、长度），作为进度的总量
+     */
+    private void startProgress(List<SourceFile> sources, List<File> archives) {
+        long totalFiles = 0;
+        long totalBytes = 0;
+        for (SourceFile source : sources) {
+            if (source.extracted == null) {
+                totalFiles++;
+                totalBytes += source.length();
+            }
+        }
+        for (File archive : archives) {
+            totalFiles++;
+            totalBytes += archive.length();
+        }
+        System.out.println("预统计：待提取" + totalFiles + "个文件" + (archives.isEmpty() ? "" : "（其中压缩包" + archives.size() + "个）")
+                + "，共" + ScanProgress.megabytes(totalBytes) + "MB");
+        progressedSources = Collections.newSetFromMap(new IdentityHashMap<>());
+        lastCheckpoint = System.nanoTime();
+        checkpointCost = 0;
+        progress = new ScanProgress(totalFiles, totalBytes, options.getProgressIntervalMillis());
+    }
+
+    /**
+     * 一个文件（或压缩包）提取完成：累加进度，到期时保存检查点
+     */
+    void advanceProgress(long bytes) {
+        ScanProgress current = progress;
+        if (current != null) {
+            current.advance(bytes);
+            checkpointIfDue();
         }
     }
 
     /**
-     * 加载配置文件
+     * 扫描本地git仓库的某个提交或提交区间 A..B（分析B）
+     */
+    public synchronized AnalysisResult analyzeGit(File repoDir, String revision) throws Exception {
+        return GitSource.analyze(this, repoDir, revision);
+    }
+
+    /**
+     * 扫描指定根目录（调用前会清空上一次扫描的状态）
+     */
+    public synchronized AnalysisResult analyze(File rootDir) throws Exception {
+        currentRun = new ScanBudget.Run(options.getRunDeadlineMillis());
+        this.rootDir = rootDir;
+        List<SourceFile> sources = new ArrayList<>();
+        List<File> archives = new ArrayList<>();
+        stageStats = new StageStats(options.isMeasureStageHeap());
+        collectSourceFiles(rootDir, sources, archives);
+        ArchiveSource.Filter archiveFilter = new ArchiveSource.Filter(options);
+        archives = archiveFilter.select(archives, rootDir);
+        startProgress(sources, archives);
+        // WAR/JAR/ZIP内的文件作为虚拟文件参与扫描（流式读取，不解压到磁盘）
+        sources.addAll(ArchiveSource.scanArchives(this, archives, rootDir, archiveFilter));
+        stageStats.end("collect");
+        return analyzeSources(sources);
+    }
+
+    /**
+     * 扫描给定的文件集合（磁盘目录、git提交等）
      */
-    private static void loadConfig() throws Exception {
-        Properties props = new Properties();
-        File configFile = new File("config.properties");
-        InputStream is = configFile.exists() ? new FileInputStream(configFile) :
-                StrutsConfigFullParser.class.getClassLoader().getResourceAsStream("config.properties");
+    public synchronized AnalysisResult analyze(List<SourceFile> sources) throws Exception {
+        currentRun = new ScanBudget.Run(options.getRunDeadlineMillis());
+        stageStats = new StageStats(options.isMeasureStageHeap());
+        startProgress(sources, Collections.<File>emptyList());
+        return analyzeSources(sources);
+    }
+
+    private AnalysisResult analyzeSources(List<SourceFile> sources) throws Exception {
+        resetState();
+        if (incrementalCache != null) {
+            incrementalCache.resetStats();
+        }
+        // 收集时已隔离的文件（如损坏的压缩包）不属于任何阶段，直接计入错误文件清单
+        for (SourceFile source : sources) {
+            if (source.extracted != null) {
+                recordQuarantined(source, source.extracted);
+            }
+        }
 
-        if (is == null) {
-            throw new RuntimeException("❌ 未找到config.properties配置文件");
+        // 流水线提取：读取与解析分开并发，大文件优先；溢写模式下只预先提取Java文件，其他文件仍由各自的阶段按需提取，不在内存中保留
+        List<SourceFile> pipelined = Collections.emptyList();
+        if (options.getReadThreads() > 0) {
+            pipelined = ExtractionPipeline.run(this, sources, options.getSpillDir() != null,
+                    options.getReadThreads(), options.getParseThreads(), options.getReadAheadBytes());
+        }
+
+        // 预扫描所有Java文件
+        System.out.println("========== 预扫描所有Java文件 ==========");
+        preScanAllJavaFiles(sources);
+        stageStats.end("extract");
+
+        // ========== 3. 扫描解析Struts配置文件 ==========
+        List<Map<String, String>> strutsConfigList = new ArrayList<>();
+        scanAllStrutsConfig(sources, strutsConfigList);
+        markDuplicateItems(strutsConfigList);
+        printDuplicateSummary();
+        RowStore strutsConfigRows = newStore(ROWS_STRUTS);
+        for (Map<String, String> row : strutsConfigList) {
+            strutsConfigRows.add(row);
+        }
+        stageStats.end(ROWS_STRUTS);
+
+        // ========== 4. 扫描前端文件提取.do路径 ==========
+        System.out.println("\n========== 扫描根目录下前端文件提取.do路径 ==========");
+        scanFrontEndFiles(sources);
+        stageStats.end(ROWS_DO_PATH);
+
+        // ========== 5. 按继承关系识别Action类（类名不必以Action结尾），统计继承深度和基类 ==========
+        System.out.println("\n========== 按继承关系识别Action类 ==========");
+        scanActionHierarchy(sources);
+        stageStats.end(ROWS_ACTION);
+
+        // ========== 6. 扫描所有Java文件，提取以Service结尾的接口（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取Service接口 ==========");
+        scanAllServiceInterfaces(sources);
+        stageStats.end(ROWS_SERVICE);
+
+        // ========== 7. 扫描所有Java文件，提取以ServiceImpl结尾的实现类（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取ServiceImpl实现类 ==========");
+        scanAllServiceImplClasses(sources);
+        stageStats.end(ROWS_SERVICE_IMPL);
+
+        // ========== 8. 扫描所有Java文件，提取以Manager结尾的接口（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取Manager接口 ==========");
+        scanAllManagerInterfaces(sources);
+        stageStats.end(ROWS_MANAGER);
+
+        // ========== 9. 扫描所有Java文件，提取以ManagerImpl结尾的实现类（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取ManagerImpl实现类 ==========");
+        scanAllManagerImplClasses(sources);
+        stageStats.end(ROWS_MANAGER_IMPL);
+
+        // ========== 10. 扫描所有Java文件，提取以Dao结尾的接口（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取Dao接口 ==========");
+        scanAllDaoInterfaces(sources);
+        stageStats.end(ROWS_DAO);
+
+        // ========== 11. 扫描所有Java文件，提取以DaoImpl结尾的实现类（不区分大小写） ==========
+        System.out.println("\n========== 扫描所有Java文件提取DaoImpl实现类 ==========");
+        scanAllDaoImplClasses(sources);
+        stageStats.end(ROWS_DAO_IMPL);
+
+        // ========== 12. 汇总Spring/SOFA装配清单（与上面各阶段共用同一次文件扫描） ==========
+        System.out.println("\n========== 汇总Bean依赖关系 ==========");
+        scanAllWiringEdges(sources);
+        stageStats.end(ROWS_WIRING);
+
+        // ========== 13. 汇总Service/Manager/Dao接口方法清单，匹配实现类的覆盖方法 ==========
+        System.out.println("\n========== 汇总接口方法清单 ==========");
+        scanAllInterfaceMethods(sources);
+        stageStats.end(ROWS_METHOD);
+
+        // ========== 14. 汇总SQL语句清单，匹配mapper语句ID与DaoImpl方法 ==========
+        System.out.println("\n========== 汇总SQL语句清单 ==========");
+        scanAllSqlStatements(sources);
+        stageStats.end(ROWS_SQL);
+
+        // ========== 15. 汇总包/模块依赖矩阵（import），检测依赖环和分层违规 ==========
+        System.out.println("\n========== 汇总包/模块依赖 ==========");
+        scanAllPackageDependencies(sources);
+        stageStats.end(ROWS_PACKAGE_DEP);
+
+        // ========== 16. 检查架构规则（规则文件中的分层约束） ==========
+        if (options.getRulesFile() != null) {
+            System.out.println("\n========== 检查架构规则 ==========");
+            checkArchitectureRules(sources);
+            stageStats.end(ROWS_RULE_VIOLATION);
+        }
+
+        // ========== 源码索引（由各文件的分词结果重建倒排文件） ==========
+        if (options.getSourceIndexFile() != null) {
+            writeSourceIndex(sources);
+            stageStats.end("sourceIndex");
+        }
+
+        // ========== 扩展提取器的Sheet（按扫描顺序汇总，不去重） ==========
+        List<RowStore> extensionRows = new ArrayList<>();
+        for (Extractor extractor : options.getExtractors()) {
+            extensionRows.add(collectExtensionRows(sources, extractor));
+        }
+        if (!extensionRows.isEmpty()) {
+            stageStats.end("extension");
+        }
+
+        // 提取到此全部完成
+        if (progress != null) {
+            progress.finish();
+            progress = null;
+        }
+
+        // ========== 错误文件（各阶段提取时隔离的文件；取消/超时后为部分报告） ==========
+        printErrorSummary();
+
+        extractionMap.clear();
+        for (SourceFile source : pipelined) {
+            // 调用方可能用同一批文件再次扫描（内容可能已变化），不保留本次的提取结果
+            source.extracted = null;
+        }
+        if (incrementalCache != null) {
+            System.out.println("\n增量缓存：复用" + incrementalCache.getHits() + "个文件，重新提取" + incrementalCache.getMisses() + "个文件");
+            if (options.getIncrementalCacheFile() == null && options.getSourceIndexFile() == null) {
+                // 仅内存缓存：只保留本次用到的条目，常驻进程中不随历史扫描增长
+                incrementalCache.retainUsed();
+            }
         }
-        props.load(is);
-        is.close();
 
-        SCAN_BASE_DIR = props.getProperty("scan.base.dir").trim();
-        EXCEL_OUTPUT_PATH = props.getProperty("excel.output.path").trim();
+        AnalysisResult result = new AnalysisResult(options.getSortConfig(), stageStats);
+        List<RowStore> builtIn = Arrays.asList(strutsConfigRows, frontEndDoPathList, actionClassList, actionBaseList,
+                serviceInterfaceList, serviceImplList, managerInterfaceList, managerImplList, daoInterfaceList, daoImplList,
+                wiringEdgeList, interfaceMethodList, sqlStatementList, packageDependencyList, moduleDependencyList,
+                dependencyCycleList, layerViolationList, ruleViolationList, errorFileList);
+        for (int i = 0; i < SHEET_DEFS.length; i++) {
+            result.put(SHEET_DEFS[i], builtIn.get(i));
+        }
+        for (int i = 0; i < extensionRows.size(); i++) {
+            result.put(options.getExtractors().get(i).sheet(), extensionRows.get(i));
+        }
+        return result;
     }
 
     /**
-     * 预扫描所有Java文件
+     * 清空扫描状态，保证同一实例可连续扫描多个根目录（如快照比对）
+     */
+    private void resetState() {
+        for (RowStore store : rowStores) {
+            store.delete();
+        }
+        rowStores = new ArrayList<>();
+        classNameToRelativePathMap = new HashMap<>();
+        extractionMap = new IdentityHashMap<>();
+        duplicateCountMap = new HashMap<>();
+        frontEndDoPathList = newStore(ROWS_DO_PATH);
+        actionClassList = newStore(ROWS_ACTION);
+        actionBaseList = newStore(ROWS_ACTION_BASE);
+        serviceInterfaceList = newStore(ROWS_SERVICE);
+        serviceInterfaceSet = new HashSet<>();
+        serviceImplList = newStore(ROWS_SERVICE_IMPL);
+        serviceImplSet = new HashSet<>();
+        managerInterfaceList = newStore(ROWS_MANAGER);
+        managerInterfaceSet = new HashSet<>();
+        managerImplList = newStore(ROWS_MANAGER_IMPL);
+        managerImplSet = new HashSet<>();
+        daoInterfaceList = newStore(ROWS_DAO);
+        daoInterfaceSet = new HashSet<>();
+        daoImplList = newStore(ROWS_DAO_IMPL);
+        daoImplSet = new HashSet<>();
+        wiringEdgeList = newStore(ROWS_WIRING);
+        interfaceMethodList = newStore(ROWS_METHOD);
+        sqlStatementList = newStore(ROWS_SQL);
+        packageDependencyList = newStore(ROWS_PACKAGE_DEP);
+        moduleDependencyList = newStore(ROWS_MODULE_DEP);
+        dependencyCycleList = newStore(ROWS_CYCLE);
+        layerViolationList = newStore(ROWS_LAYER_VIOLATION);
+        ruleViolationList = newStore(ROWS_RULE_VIOLATION);
+        errorFileList = newStore(ROWS_ERROR);
+        quarantinedSources = Collections.newSetFromMap(new IdentityHashMap<>());
+        skippedFileCount = 0;
+    }
+
+    private RowStore newStore(String sheetId) {
+        for (SheetDef def : SHEET_DEFS) {
+            if (def.id.equals(sheetId)) {
+                return newStore(def);
+            }
+        }
+        throw new IllegalArgumentException(sheetId);
+    }
+
+    /**
+     * 创建Sheet行集合：排序配置与输出一致（sort.<id>优先），溢写的有序段即可直接归并输出
+     */
+    private RowStore newStore(SheetDef def) {
+        String sortSpec = options.getSortConfig().getOrDefault(def.id, def.defaultSort);
+        RowStore store = new RowStore(def, sortSpec, options.getSpillDir(), options.getSpillRowLimit());
+        rowStores.add(store);
+        return store;
+    }
+
+    /**
+     * 遍历磁盘目录，收集待扫描文件（跳过build目录，只保留Java、Struts配置、XML、前端文件）和压缩包
      */
-    private static void preScanAllJavaFiles(File dir) throws Exception {
+    private void collectSourceFiles(File dir, List<SourceFile> result, List<File> archives) {
         if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
             return;
         }
@@ -198,16 +761,280 @@ public class CodeAnalysisTool {
 
         for (File file : files) {
             if (file.isDirectory()) {
-                preScanAllJavaFiles(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    String content = readFileContent(file);
-                    String className = extractClassName(content);
-                    if (className != null && !className.isEmpty()) {
-                        String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                        classNameToRelativePathMap.put(className, relativePath);
-                    }
+                collectSourceFiles(file, result, archives);
+            } else if (ArchiveSource.isArchive(file.getName())) {
+                archives.add(file);
+            } else if (isCandidate(file.getName())) {
+                String relativePath = rootDir.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
+                result.add(new SourceFile.FileSource(file, relativePath));
+            }
+        }
+    }
+
+    /**
+     * 是否需要参与扫描：Java文件、Struts配置、XML（可能是mapper，解析时按根元素判断）、前端文件
+     */
+    static boolean isCandidateFile(String fileName) {
+        return fileName.endsWith(".java") || isStrutsConfig(fileName) || SqlExtractor.isXmlFile(fileName)
+                || isFrontEndFile(fileName);
+    }
+
+    /**
+     * 是否需要参与扫描：内置文件类型，或任一扩展提取器处理的文件
+     */
+    boolean isCandidate(String fileName) {
+        if (isCandidateFile(fileName)) {
+            return true;
+        }
+        for (Extractor extractor : options.getExtractors()) {
+            if (extractor.accepts(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isStrutsConfig(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        return lowerName.contains("struts") && lowerName.endsWith(".xml");
+    }
+
+    private static boolean isFrontEndFile(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        String suffix = lowerName.lastIndexOf(".") > 0 ? lowerName.substring(lowerName.lastIndexOf(".") + 1) : "";
+        return FRONT_END_SUFFIX.contains(suffix);
+    }
+
+    // ===================== 单文件提取（与跨文件去重/计数分离，便于增量缓存复用） =====================
+
+    /**
+     * 获取文件的提取结果：读取时已提取（压缩包条目）或本次扫描已提取过直接返回，否则走增量缓存/读取文件
+     */
+    private FileExtraction extraction(SourceFile source) throws Exception {
+        FileExtraction result = source.extracted != null ? source.extracted : extractionMap.get(source);
+        if (result == null) {
+            if (currentRun.isStopped()) {
+                // 已取消/超过整体截止时间：剩余文件不再提取，各阶段只汇总已提取的结果（部分报告）
+                result = new FileExtraction();
+                skippedFileCount++;
+                extractionMap.put(source, result);
+                return result;
+            }
+            result = extractCached(source);
+            if (progressedSources.add(source)) {
+                advanceProgress(source.length());
+            }
+            // 溢写模式：非Java文件（前端文件、XML）各只由一个阶段汇总，不在内存中保留到扫描结束；被隔离的文件始终保留，不重复尝试。
+            // Java文件的提取结果被到扩展提取器为止的各阶段共用，始终保留到扫描结束（内存随Java源码规模增长，见config.properties）
+            if (options.getSpillDir() == null || source.name.endsWith(".java") || !result.rows(ROWS_ERROR).isEmpty()) {
+                extractionMap.put(source, result);
+            }
+        }
+        recordQuarantined(source, result);
+        return result;
+    }
+
+    /**
+     * 被隔离的文件计入错误文件清单（每个文件只计一次）
+     */
+    private void recordQuarantined(SourceFile source, FileExtraction result) {
+        if (!result.rows(ROWS_ERROR).isEmpty() && quarantinedSources.add(source)) {
+            for (Map<String, String> row : result.rows(ROWS_ERROR)) {
+                errorFileList.add(new HashMap<>(row));
+            }
+        }
+    }
+
+    /**
+     * 指纹命中增量缓存则复用，否则读取文件提取；不依赖扫描状态，可在多个线程中并发调用
+     */
+    FileExtraction extractCached(SourceFile source) throws Exception {
+        FileExtraction result = cachedExtraction(source);
+        return result != null ? result : extractAndCache(source);
+    }
+
+    /**
+     * 增量缓存中的提取结果，未命中（或未启用缓存）时返回null
+     */
+    FileExtraction cachedExtraction(SourceFile source) {
+        return incrementalCache == null ? null : incrementalCache.get(cacheSalt + source.fingerprint());
+    }
+
+    /**
+     * 读取文件提取（不查缓存），结果写入增量缓存
+     */
+    FileExtraction extractAndCache(SourceFile source) {
+        FileExtraction result = extractWithinBudget(source);
+        // 被隔离的文件不进缓存（超时与机器负载有关），下次扫描重新尝试
+        if (incrementalCache != null && result.rows(ROWS_ERROR).isEmpty()) {
+            incrementalCache.put(cacheSalt + source.fingerprint(), result);
+        }
+        return result;
+    }
+
+    /**
+     * 超过单文件大小上限的文件不读取（提取时直接隔离）
+     */
+    boolean exceedsMaxFileBytes(SourceFile source) {
+        return options.getMaxFileBytes() > 0 && source.length() > options.getMaxFileBytes();
+    }
+
+    boolean isStopped() {
+        return currentRun.isStopped();
+    }
+
+    /**
+     * 在单文件的大小/时间预算内提取：文件过大、超时、解析失败时隔离该文件（错误文件清单中一行），不影响其他文件
+     */
+    private FileExtraction extractWithinBudget(SourceFile source) {
+        long maxBytes = options.getMaxFileBytes();
+        long length = source.length();
+        if (maxBytes > 0 && length > maxBytes) {
+            return quarantine(source, "文件过大", "超过单文件上限" + maxBytes + "字节", 0);
+        }
+        long start = System.nanoTime();
+        ScanBudget.begin(options.getFileTimeoutMillis(), currentRun);
+        try {
+            return extractFile(source);
+        } catch (ScanBudget.Exceeded e) {
+            return quarantine(source, e.type, e.getMessage(), start);
+        } catch (Exception | StackOverflowError e) {
+            // 正则回溯过深等也只影响当前文件
+            return quarantine(source, "解析失败", String.valueOf(e), start);
+        } finally {
+            ScanBudget.end();
+        }
+    }
+
+    static FileExtraction quarantine(SourceFile source, String errorType, String message, long start) {
+        long elapsedMillis = start == 0 ? 0 : (System.nanoTime() - start) / 1000000L;
+        System.err.println("⚠️ 已隔离文件（" + errorType + "）：" + source.displayPath() + "，" + message);
+        Map<String, String> map = new HashMap<>();
+        map.put("fileRelativePath", source.relativePath);
+        map.put("errorType", errorType);                          // 文件过大/超时/已取消/解析失败
+        map.put("message", message);
+        map.put("elapsedMillis", String.valueOf(elapsedMillis));
+        map.put("fileSize", String.valueOf(source.length()));
+        FileExtraction result = new FileExtraction();
+        result.add(ROWS_ERROR, map);
+        return result;
+    }
+
+    private void printErrorSummary() {
+        if (skippedFileCount > 0) {
+            Map<String, String> map = new HashMap<>();
+            map.put("fileRelativePath", "");
+            map.put("errorType", "未扫描");
+            map.put("message", currentRun.stopReason() + "，" + skippedFileCount + "个文件未提取，本次为部分报告");
+            map.put("elapsedMillis", "");
+            map.put("fileSize", "");
+            errorFileList.add(map);
+            System.out.println("\n⚠️ " + currentRun.stopReason() + "：" + skippedFileCount + "个文件未提取，输出部分报告");
+        }
+        if (!quarantinedSources.isEmpty()) {
+            System.out.println("\n⚠️ 共隔离" + quarantinedSources.size() + "个文件，详见错误文件清单");
+        }
+    }
+
+    boolean hasCache() {
+        return incrementalCache != null;
+    }
+
+    /**
+     * 只提取不汇总，用于预热增量缓存（如git提交区间起点中变化过的文件）：
+     * 与正式扫描一样经过流水线提取（未启用流水线时按单线程读取），使用独立的整体截止时间，提取结果写入缓存后即释放
+     */
+    void warmUp(List<SourceFile> sources) throws Exception {
+        currentRun = new ScanBudget.Run(options.getRunDeadlineMillis());
+        startProgress(sources, Collections.<File>emptyList());
+        List<SourceFile> extracted = ExtractionPipeline.run(this, sources, false, Math.max(1, options.getReadThreads()),
+                Math.max(1, options.getParseThreads()), options.getReadAheadBytes());
+        for (SourceFile source : extracted) {
+            source.extracted = null;
+        }
+    }
+
+    /**
+     * 读取单个文件并提取全部行数据（内置 + 扩展提取器），结果只依赖文件内容和相对路径
+     */
+    private FileExtraction extractFile(SourceFile source) throws Exception {
+        FileExtraction result = new FileExtraction();
+        String content = null;
+        if (source.name.endsWith(".java")) {
+            content = source.readContent();
+            // 正则匹配的输入定期检查时间预算，回溯失控时能及时终止
+            CharSequence text = ScanBudget.guard(content);
+            result.className = extractClassName(text);
+            result.packageName = extractPackageName(text);
+            // 注解/装配信息一次扫描得到（跳过注释和字符串），供装配清单和各Impl的注解标记共用
+            // DaoImpl同时收集方法体内的字符串，供SQL语句清单使用
+            boolean daoImpl = source.name.toLowerCase().endsWith("daoimpl.java");
+            WiringExtractor.WiringScan wiring = WiringExtractor.scan(content, source.relativePath, result.packageName, daoImpl);
+            result.rowsFor(ROWS_WIRING).addAll(wiring.edges);
+            result.imports = wiring.imports.toArray(new String[0]);
+            result.importLines = new int[wiring.importLines.size()];
+            for (int i = 0; i < result.importLines.length; i++) {
+                result.importLines[i] = wiring.importLines.get(i);
+            }
+            result.annotations = wiring.annotations.toArray(new String[0]);
+            result.typeName = wiring.typeName;
+            result.superClassName = wiring.superClass;
+            parseMethodDeclarations(wiring, source.relativePath, result.packageName, result);
+            parseServiceInterfaceFile(text, source.relativePath, result);
+            parseServiceImplFile(text, source.relativePath, wiring, result);
+            parseManagerInterfaceFile(text, source.relativePath, result);
+            parseManagerImplFile(text, source.relativePath, wiring, result);
+            parseDaoInterfaceFile(text, source.relativePath, result);
+            parseDaoImplFile(text, source.relativePath, wiring, result);
+            if (daoImpl && wiring.typeName != null) {
+                SqlExtractor.parseDaoLiterals(wiring, source.relativePath, result.rowsFor(ROWS_SQL), result.rowsFor(ROWS_SQL_REF));
+            }
+        } else if (SqlExtractor.isXmlFile(source.name)) {
+            if (options.getSourceIndexFile() != null && !(source instanceof SourceFile.Preloaded)) {
+                // 需要分词时整份读入一次，识别根元素、流式解析和分词都读这份内容，不再从磁盘重复读取
+                source = new SourceFile.Preloaded(source, source.readBytes());
+            }
+            // 按根元素区分（Struts配置的文件名不必含struts）；其他XML读到根元素即停止
+            String root = StrutsModules.rootElement(source);
+            if ("web-app".equals(root)) {
+                StrutsModules.parseWebXml(source, result.rowsFor(ROWS_STRUTS_MODULE), result.rowsFor(ROWS_TILES_CONFIG));
+            } else if (StrutsModules.isTilesRoot(root)) {
+                StrutsModules.parseTilesDefinitions(source, result.rowsFor(ROWS_TILES_DEF), result.rowsFor(ROWS_TILES_PUT));
+            } else if ("struts-config".equals(root) || (root == null && isStrutsConfig(source.name))) {
+                byte[] bytes = source.readBytes();
+                parseSingleStrutsConfig(source, bytes, result);
+                if (options.getSourceIndexFile() != null) {
+                    content = decodeContent(bytes);
+                }
+            } else if ("mapper".equals(root) || "sqlMap".equals(root)) {
+                // 流式读取
+                result.rowsFor(ROWS_SQL).addAll(SqlExtractor.parseMapper(source));
+            }
+        } else if (isFrontEndFile(source.name)) {
+            content = source.readContent();
+            extractDoPathFromFile(ScanBudget.guard(content), source.relativePath, result);
+        }
+        for (Extractor extractor : options.getExtractors()) {
+            if (extractor.accepts(source.name)) {
+                extractor.extract(source, result.rowsFor(extractor.sheet().id));
+            }
+        }
+        if (options.getSourceIndexFile() != null) {
+            // 分词复用已读取的内容（Java、前端文件、Struts配置已解码；其他XML已整份读入内存）；只由扩展提取器处理的文件才需要单独读取
+            result.tokens = SourceIndex.tokenize(content != null ? content : source.readContent());
+        }
+        return result;
+    }
+
+    /**
+     * 预扫描所有Java文件
+     */
+    private void preScanAllJavaFiles(List<SourceFile> sources) throws Exception {
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                String className = extraction(source).className;
+                if (className != null && !className.isEmpty()) {
+                    classNameToRelativePathMap.put(className, source.relativePath);
                 }
             }
         }
@@ -216,7 +1043,7 @@ public class CodeAnalysisTool {
     /**
      * 提取Java文件的类名/接口名（适配不区分大小写）
      */
-    private static String extractClassName(String content) {
+    private static String extractClassName(CharSequence content) {
         Matcher classMatcher = CLASS_DEF_PATTERN.matcher(content);
         if (classMatcher.find()) {
             return classMatcher.group(1).trim();
@@ -255,35 +1082,171 @@ public class CodeAnalysisTool {
     }
 
     // ===================== Struts配置解析 =====================
-    private static void scanAllStrutsConfig(File dir, List<Map<String, String>> resultList) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
+
+    /**
+     * 按web.xml声明的模块汇总Struts配置：action路径加上模块前缀，forward指向的Tiles定义展开为JSP；
+     * 没有被任何web.xml引用的Struts配置（文件名含struts，或根元素为struts-config）作为默认模块汇总
+     */
+    private void scanAllStrutsConfig(List<SourceFile> sources, List<Map<String, String>> resultList) throws Exception {
+        Map<String, SourceFile> xmlByPath = new HashMap<>();
+        List<SourceFile> webXmls = new ArrayList<>();
+        for (SourceFile source : sources) {
+            if (SqlExtractor.isXmlFile(source.name)) {
+                xmlByPath.put(StrutsModules.normalizePath(source.relativePath), source);
+                if (source.name.equalsIgnoreCase("web.xml")) {
+                    webXmls.add(source);
+                }
+            }
         }
+        // 本阶段内每个文件只解析一次（多个模块共用同一配置/Tiles文件；溢写模式下非Java文件不在extractionMap中保留）
+        Map<SourceFile, FileExtraction> parsed = new IdentityHashMap<>();
+        Set<SourceFile> summarized = Collections.newSetFromMap(new IdentityHashMap<>());
+        int moduleCount = 0;
 
-        File[] files = dir.listFiles();
-        if (files == null) return;
+        for (SourceFile webXml : webXmls) {
+            FileExtraction webExtraction = parsedExtraction(webXml, parsed);
+            List<Map<String, String>> moduleRows = webExtraction.rows(ROWS_STRUTS_MODULE);
+            if (moduleRows.isEmpty()) {
+                continue;
+            }
+            String webRoot = StrutsModules.webRoot(webXml.relativePath);
+            // 模块 → 配置文件（保持web.xml中的顺序）
+            Map<String, List<SourceFile>> moduleConfigs = new LinkedHashMap<>();
+            for (Map<String, String> row : moduleRows) {
+                String module = row.get("module");
+                SourceFile config = xmlByPath.get(StrutsModules.resolve(webRoot, row.get("configPath")));
+                if (config == null) {
+                    System.out.println("⚠️  web.xml中的Struts配置不在扫描范围内：" + row.get("configPath") + "（" + webXml.displayPath() + "）");
+                    continue;
+                }
+                moduleConfigs.computeIfAbsent(module, k -> new ArrayList<>()).add(config);
+            }
+            for (Map.Entry<String, List<SourceFile>> entry : moduleConfigs.entrySet()) {
+                moduleCount++;
+                List<String> tilesPaths = new ArrayList<>();
+                for (Map<String, String> row : webExtraction.rows(ROWS_TILES_CONFIG)) {
+                    tilesPaths.add(row.get("configPath"));
+                }
+                for (SourceFile config : entry.getValue()) {
+                    for (Map<String, String> row : parsedExtraction(config, parsed).rows(ROWS_TILES_CONFIG)) {
+                        tilesPaths.add(row.get("configPath"));
+                    }
+                }
+                StrutsModules.TilesDefinitions tiles = tilesDefinitions(webRoot, tilesPaths, xmlByPath, parsed);
+                for (SourceFile config : entry.getValue()) {
+                    System.out.println("解析Struts配置：" + config.displayPath()
+                            + (entry.getKey().isEmpty() ? "" : "（模块" + entry.getKey() + "）"));
+                    addStrutsRows(parsedExtraction(config, parsed), entry.getKey(), tiles, resultList);
+                    summarized.add(config);
+                }
+            }
+        }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllStrutsConfig(file, resultList);
-            } else {
-                String fileName = file.getName().toLowerCase();
-                if (fileName.contains("struts") && fileName.endsWith(".xml")) {
-                    System.out.println("解析Struts配置：" + file.getAbsolutePath());
-                    parseSingleStrutsConfig(file, resultList);
+        for (SourceFile source : sources) {
+            if (summarized.contains(source) || !SqlExtractor.isXmlFile(source.name)) {
+                continue;
+            }
+            boolean byName = isStrutsConfig(source.name);
+            if (byName || (!source.name.equalsIgnoreCase("web.xml") && isStrutsConfigRoot(source))) {
+                System.out.println("解析Struts配置：" + source.displayPath() + (byName ? "" : "（未被web.xml引用，按默认模块汇总）"));
+                FileExtraction extraction = parsedExtraction(source, parsed);
+                List<String> tilesPaths = new ArrayList<>();
+                for (Map<String, String> row : extraction.rows(ROWS_TILES_CONFIG)) {
+                    tilesPaths.add(row.get("configPath"));
                 }
+                String webRoot = StrutsModules.webRoot(source.relativePath);
+                addStrutsRows(extraction, "", tilesDefinitions(webRoot, tilesPaths, xmlByPath, parsed), resultList);
+            }
+        }
+        if (moduleCount > 0) {
+            System.out.println("✅ web.xml声明Struts模块" + moduleCount + "个，共解析" + parsed.size() + "个配置文件（含web.xml、Tiles定义）");
+        }
+    }
+
+    /**
+     * 文件名不含struts的XML是否为Struts配置：已提取的直接看提取结果，否则只读到根元素（不重复提取mapper等XML）
+     */
+    private boolean isStrutsConfigRoot(SourceFile source) throws Exception {
+        FileExtraction extracted = source.extracted != null ? source.extracted : extractionMap.get(source);
+        if (extracted != null) {
+            return !extracted.rows(ROWS_STRUTS).isEmpty();
+        }
+        return "struts-config".equals(StrutsModules.rootElement(source));
+    }
+
+    private FileExtraction parsedExtraction(SourceFile source, Map<SourceFile, FileExtraction> parsed) throws Exception {
+        FileExtraction result = parsed.get(source);
+        if (result == null) {
+            result = extraction(source);
+            parsed.put(source, result);
+        }
+        return result;
+    }
+
+    /**
+     * 一个模块可见的Tiles定义（web.xml和各配置文件TilesPlugin引用的定义文件，按引用顺序）
+     */
+    private StrutsModules.TilesDefinitions tilesDefinitions(String webRoot, List<String> tilesPaths,
+                                                             Map<String, SourceFile> xmlByPath,
+                                                             Map<SourceFile, FileExtraction> parsed) throws Exception {
+        StrutsModules.TilesDefinitions tiles = new StrutsModules.TilesDefinitions();
+        Set<SourceFile> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String path : tilesPaths) {
+            SourceFile source = xmlByPath.get(StrutsModules.resolve(webRoot, path));
+            if (source == null) {
+                System.out.println("⚠️  Tiles定义文件不在扫描范围内：" + path);
+            } else if (added.add(source)) {
+                FileExtraction extraction = parsedExtraction(source, parsed);
+                tiles.add(extraction.rows(ROWS_TILES_DEF), extraction.rows(ROWS_TILES_PUT));
             }
         }
+        return tiles;
+    }
+
+    private void addStrutsRows(FileExtraction extraction, String module, StrutsModules.TilesDefinitions tiles,
+                               List<Map<String, String>> resultList) {
+        for (Map<String, String> row : extraction.rows(ROWS_STRUTS)) {
+            Map<String, String> record = new HashMap<>(row);
+            String actionPath = row.get("actionPath");
+            String fullActionPath = actionPath == null ? null : module + actionPath;
+            String forwardPath = row.get("forwardPath");
+            record.put("module", module);
+            record.put("fullActionPath", fullActionPath);
+            record.put("tilesJsp", tiles.contains(forwardPath) ? String.join(", ", tiles.expand(forwardPath)) : "");
+            // 不同模块的同名action路径不算重复
+            String duplicateKey = getDuplicateKey(fullActionPath, row.get("formBean"), row.get("forwardName"));
+            record.put("duplicateKey", duplicateKey);
+            duplicateCountMap.put(duplicateKey, duplicateCountMap.getOrDefault(duplicateKey, 0) + 1);
+            resultList.add(record);
+        }
     }
 
-    private static void parseSingleStrutsConfig(File file, List<Map<String, String>> resultList) throws Exception {
-        String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
+    private static void parseSingleStrutsConfig(SourceFile source, byte[] bytes, FileExtraction result) throws Exception {
+        String relativePath = source.relativePath;
+        List<Map<String, String>> resultList = result.rowsFor(ROWS_STRUTS);
 
         SAXReader reader = new SAXReader();
-        Document document = reader.read(file);
+        // 不加载外部DTD：离线可用（git/无网络环境），也不依赖DTD默认属性
+        reader.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+        // 不解析外部实体，内部实体的展开次数设上限（实体炸弹只隔离当前文件）
+        reader.setFeature("http://xml.org/sax/features/external-general-entities", false);
+        reader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        try {
+            reader.getXMLReader().setProperty("http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit", "100");
+        } catch (SAXException e) {
+            // 非JDK内置解析器不支持该属性
+        }
+        Document document = reader.read(ScanBudget.guard(new ByteArrayInputStream(bytes)), source.systemId());
         Element root = document.getRootElement();
 
         Map<String, String> formBeanMap = new HashMap<>();
+        // TilesPlugin引用的Tiles定义文件
+        @SuppressWarnings("unchecked")
+        List<Element> tilesProperties = root.selectNodes("//plug-in/set-property[@property='definitions-config']");
+        for (Element property : tilesProperties) {
+            StrutsModules.addTilesConfig(result.rowsFor(ROWS_TILES_CONFIG), property.attributeValue("value", ""));
+        }
+
         List<Element> formBeans = root.selectNodes("//form-beans/form-bean");
         for (Element bean : formBeans) {
             formBeanMap.put(bean.attributeValue("name"), bean.attributeValue("type"));
@@ -299,14 +1262,12 @@ public class CodeAnalysisTool {
             List<Element> forwards = actionEle.selectNodes("forward");
             if (forwards == null || forwards.isEmpty()) {
                 String duplicateKey = getDuplicateKey(actionPath, formBeanType, "");
-                duplicateCountMap.put(duplicateKey, duplicateCountMap.getOrDefault(duplicateKey, 0) + 1);
                 addStrutsRow(resultList, relativePath, formBeanType, actionPath, actionType, actionName, "", "", duplicateKey);
             } else {
                 for (Element forward : forwards) {
                     String forwardName = forward.attributeValue("name");
                     String forwardPath = forward.attributeValue("path");
                     String duplicateKey = getDuplicateKey(actionPath, formBeanType, forwardName);
-                    duplicateCountMap.put(duplicateKey, duplicateCountMap.getOrDefault(duplicateKey, 0) + 1);
                     addStrutsRow(resultList, relativePath, formBeanType, actionPath, actionType, actionName, forwardName, forwardPath, duplicateKey);
                 }
             }
@@ -343,7 +1304,7 @@ public class CodeAnalysisTool {
         resultList.add(map);
     }
 
-    private static void markDuplicateItems(List<Map<String, String>> resultList) {
+    private void markDuplicateItems(List<Map<String, String>> resultList) {
         for (Map<String, String> record : resultList) {
             int count = duplicateCountMap.getOrDefault(record.get("duplicateKey"), 1);
             record.put("isDuplicate", count > 1 ? "是" : "否");
@@ -351,7 +1312,7 @@ public class CodeAnalysisTool {
         }
     }
 
-    private static void printDuplicateSummary() {
+    private void printDuplicateSummary() {
         System.out.println("\n========== Struts配置重复项汇总 ==========");
         int totalDuplicate = 0;
         for (Map.Entry<String, Integer> entry : duplicateCountMap.entrySet()) {
@@ -368,31 +1329,26 @@ public class CodeAnalysisTool {
     }
 
     // ===================== 前端文件DO路径提取 =====================
-    private static void scanFrontEndFiles(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanFrontEndFiles(file);
-            } else {
-                String fileName = file.getName().toLowerCase();
-                String suffix = fileName.lastIndexOf(".") > 0 ? fileName.substring(fileName.lastIndexOf(".") + 1) : "";
-                if (FRONT_END_SUFFIX.contains(suffix)) {
-                    System.out.println("解析前端文件：" + file.getAbsolutePath());
-                    extractDoPathFromFile(file);
+    private void scanFrontEndFiles(List<SourceFile> sources) throws Exception {
+        for (SourceFile source : sources) {
+            if (isFrontEndFile(source.name)) {
+                System.out.println("解析前端文件：" + source.displayPath());
+                // 出现次数按文件内的行计数（行只来自本文件，逐文件统计后即可写入，无需保留全部行）
+                List<Map<String, String>> rows = extraction(source).rows(ROWS_DO_PATH);
+                Map<String, Integer> countMap = new HashMap<>();
+                for (Map<String, String> record : rows) {
+                    countMap.merge(record.get("fileRelativePath") + "_" + record.get("doPath"), 1, Integer::sum);
+                }
+                for (Map<String, String> row : rows) {
+                    Map<String, String> record = new HashMap<>(row);
+                    record.put("count", String.valueOf(countMap.get(record.get("fileRelativePath") + "_" + record.get("doPath"))));
+                    frontEndDoPathList.add(record);
                 }
             }
         }
     }
 
-    private static void extractDoPathFromFile(File file) throws Exception {
-        String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-        String content = readFileContent(file);
+    private static void extractDoPathFromFile(CharSequence content, String relativePath, FileExtraction result) {
 
         Matcher matcher = DO_PATH_PATTERN.matcher(content);
         Set<String> doPathSet = new HashSet<>();
@@ -408,229 +1364,212 @@ public class CodeAnalysisTool {
             map.put("fileRelativePath", relativePath);
             map.put("doPath", doPath);
             map.put("count", "1");
-            frontEndDoPathList.add(map);
+            result.add(ROWS_DO_PATH, map);
         }
     }
 
-    private static String readFileContent(File file) throws Exception {
-        try (java.io.BufferedReader br = new java.io.BufferedReader(
-                new java.io.InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
+    /**
+     * 解码文件内容：优先UTF-8，失败时按GBK读取；统一换行符为\n
+     * <p>
+     * UTF-8须严格解码：InputStreamReader遇到非法字节只会替换为U+FFFD，不会失败，GBK文件的中文因此变成乱码，
+     * 第二个字节为反斜杠的字（如"運"）还会转义掉字符串的结束引号
+     */
+    static String decodeContent(byte[] bytes) throws Exception {
+        String text;
+        try {
+            text = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            text = new String(bytes, "GBK");
+        }
+        try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.StringReader(text))) {
+            StringBuilder sb = new StringBuilder(text.length() + 1);
             String line;
             while ((line = br.readLine()) != null) {
                 sb.append(line).append("\n");
             }
             return sb.toString();
-        } catch (Exception e) {
-            try (java.io.BufferedReader br = new java.io.BufferedReader(
-                    new java.io.InputStreamReader(new FileInputStream(file), "GBK"))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sb.append(line).append("\n");
-                }
-                return sb.toString();
-            }
-        }
-    }
-
-    private static void countDoPathInFile() {
-        Map<String, Integer> tempCountMap = new HashMap<>();
-        for (Map<String, String> record : frontEndDoPathList) {
-            String key = record.get("fileRelativePath") + "_" + record.get("doPath");
-            tempCountMap.put(key, tempCountMap.getOrDefault(key, 0) + 1);
-        }
-
-        for (Map<String, String> record : frontEndDoPathList) {
-            String key = record.get("fileRelativePath") + "_" + record.get("doPath");
-            record.put("count", String.valueOf(tempCountMap.get(key)));
         }
     }
 
-    // ===================== 扫描以Action结尾的Java文件（不区分大小写） =====================
-    private static void scanAllActionJavaFiles(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllActionJavaFiles(file);
-            } else {
-                String fileName = file.getName();
-                // 筛选：.java文件 + 文件名（小写）以action结尾（不区分大小写）
-                if (fileName.endsWith(".java")) {
-                    String nameWithoutExt = fileName.substring(0, fileName.lastIndexOf("."));
-                    if (nameWithoutExt.toLowerCase().endsWith("action")) {
-                        System.out.println("扫描Action文件：" + file.getAbsolutePath());
-                        parseActionJavaFile(file);
-                    }
+    // ===================== 按继承关系识别Action类 =====================
+    private void scanActionHierarchy(List<SourceFile> sources) throws Exception {
+        long start = System.nanoTime();
+        ClassHierarchy hierarchy = new ClassHierarchy();
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                FileExtraction extraction = extraction(source);
+                if (extraction.typeName != null) {
+                    hierarchy.declare(extraction.typeName, hasPackage(extraction) ? extraction.packageName : "",
+                            extraction.superClassName, extraction.imports, source.relativePath);
                 }
             }
         }
-    }
-
-    private static void parseActionJavaFile(File file) throws Exception {
-        // 1. 提取Action类名
-        String content = readFileContent(file);
-        String actionClassName = extractClassName(content);
-        if (actionClassName == null || actionClassName.isEmpty()) {
-            actionClassName = "未提取到类名";
-        }
+        hierarchy.build();
 
-        // 2. 提取包名
-        String packageName = extractPackageName(content);
-
-        // 3. 提取文件相对路径
-        String actionRelativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-
-        // 4. 提取父类名称（仅名称，不查相对路径）
-        String parentClassName = extractParentClassName(content);
-        if (parentClassName == null || parentClassName.isEmpty()) {
-            parentClassName = "无父类";
+        int nodeCount = hierarchy.getNodeCount();
+        boolean[] action = new boolean[nodeCount];
+        int unsuffixedCount = 0;
+        Map<Integer, Integer> depthCounts = new TreeMap<>();
+        for (int id = 0; id < hierarchy.getDeclaredCount(); id++) {
+            if (!hierarchy.isAction(id)) {
+                continue;
+            }
+            action[id] = true;
+            String className = hierarchy.simpleName(id);
+            if (!className.toLowerCase().endsWith("action")) {
+                unsuffixedCount++;
+            }
+            depthCounts.merge(hierarchy.depthOf(id), 1, Integer::sum);
+            String packageName = hierarchy.packageName(id);
+            addActionClassRow(actionClassList, className, packageName.isEmpty() ? "无包名" : packageName,
+                    hierarchy.relativePath(id), hierarchy.superName(id), hierarchy.depthOf(id),
+                    hierarchy.ancestorChain(id), hierarchy.qualifiedName(hierarchy.actionBase(id)));
+            System.out.println("找到Action：" + className + " → " + hierarchy.relativePath(id));
+        }
+
+        // 基类统计：子类先于父类处理，逐级向上累加
+        int[] actionCount = new int[nodeCount];
+        int[] directCount = new int[nodeCount];
+        int[] subclassDepth = new int[nodeCount];
+        for (int id : hierarchy.deepestFirst()) {
+            int parentId = hierarchy.parentOf(id);
+            if (parentId >= 0 && (action[id] || actionCount[id] > 0)) {
+                actionCount[parentId] += actionCount[id] + (action[id] ? 1 : 0);
+                directCount[parentId] += action[id] ? 1 : 0;
+                subclassDepth[parentId] = Math.max(subclassDepth[parentId], subclassDepth[id] + 1);
+            }
         }
-
-        // 5. 组装数据
-        addActionClassRow(actionClassName, packageName, actionRelativePath, parentClassName);
-    }
-
-    private static String extractParentClassName(String content) {
-        Matcher classMatcher = CLASS_DEF_PATTERN.matcher(content);
-        if (classMatcher.find()) {
-            String parentName = classMatcher.group(3);
-            return parentName == null || parentName.isEmpty() ? "" : parentName.trim();
+        int baseCount = 0;
+        for (int id = 0; id < nodeCount; id++) {
+            if (actionCount[id] == 0) {
+                continue;
+            }
+            baseCount++;
+            Map<String, String> map = new HashMap<>();
+            map.put("baseClassName", hierarchy.qualifiedName(id));                // 基类（全限定名，外部类按import写法）
+            map.put("fileRelativePath", hierarchy.isExternal(id) ? "（扫描范围外）" : hierarchy.relativePath(id));
+            map.put("strutsBase", ClassHierarchy.STRUTS_ACTION_BASES.contains(hierarchy.simpleName(id)) ? "是" : "否");
+            map.put("directSubclassCount", String.valueOf(directCount[id]));   // 直接继承它的Action数
+            map.put("actionCount", String.valueOf(actionCount[id]));           // 所有层级的Action子类数
+            map.put("maxSubclassDepth", String.valueOf(subclassDepth[id]));    // 其下Action子类的最大层数
+            actionBaseList.add(map);
+        }
+
+        int total = 0;
+        StringBuilder depthSummary = new StringBuilder();
+        for (Map.Entry<Integer, Integer> entry : depthCounts.entrySet()) {
+            total += entry.getValue();
+            depthSummary.append("  ").append(entry.getKey()).append("层：").append(entry.getValue()).append("个");
+        }
+        System.out.println("✅ 按继承关系识别Action" + total + "个（其中类名不以Action结尾" + unsuffixedCount + "个），基类"
+                + baseCount + "个，共解析" + hierarchy.getDeclaredCount() + "个类，耗时"
+                + (System.nanoTime() - start) / 1000000L + "ms");
+        if (total > 0) {
+            System.out.println("继承深度分布：" + depthSummary.toString().trim());
+        }
+        if (hierarchy.getCycleCount() > 0) {
+            System.out.println("⚠️ 发现" + hierarchy.getCycleCount() + "处循环继承，已在环上断开");
         }
-        return "";
     }
 
-    private static String extractPackageName(String content) {
-        // 包名匹配不区分大小写
-        Pattern packagePattern = Pattern.compile("package\\s+([^;]+);", Pattern.CASE_INSENSITIVE);
-        Matcher packageMatcher = packagePattern.matcher(content);
+    private static String extractPackageName(CharSequence content) {
+        Matcher packageMatcher = PACKAGE_PATTERN.matcher(content);
         return packageMatcher.find() ? packageMatcher.group(1).trim() : "无包名";
     }
 
-    private static void addActionClassRow(String actionClassName, String packageName, String actionRelativePath, String parentClassName) {
+    private static void addActionClassRow(RowStore resultList, String actionClassName, String packageName, String actionRelativePath,
+                                          String parentClassName, int depth, String ancestorChain, String actionBase) {
         Map<String, String> map = new HashMap<>();
         map.put("actionClassName", actionClassName);    // Action类名
         map.put("packageName", packageName);            // 包名
         map.put("actionRelativePath", actionRelativePath); // 文件相对路径
-        map.put("parentClassName", parentClassName);    // 父类名称
-        actionClassList.add(map);
+        map.put("parentClassName", parentClassName);    // 父类名称（源码写法）
+        map.put("depth", String.valueOf(depth));        // 继承深度（到祖先链顶端的父类层数）
+        map.put("ancestorChain", ancestorChain);        // 继承链：直接父类 → … → 顶端
+        map.put("actionBase", actionBase);              // 最近的Struts基类，没有时为祖先链顶端
+        resultList.add(map);
     }
 
-    // ===================== 扫描所有Service接口（不区分大小写） =====================
-    private static void scanAllServiceInterfaces(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllServiceInterfaces(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseServiceInterfaceFile(file);
+    /**
+     * 汇总各文件提取到的类/接口行，按小写类名去重（适配XxxSERVICE、Xxxservice等不规范命名），保留首次出现的记录
+     */
+    private void acceptUniqueRows(List<SourceFile> sources, String rowsKind, String nameField,
+                                         Set<String> nameSet, RowStore resultList, String foundLabel) throws Exception {
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                for (Map<String, String> row : extraction(source).rows(rowsKind)) {
+                    String name = row.get(nameField);
+                    if (nameSet.add(name.toLowerCase())) {
+                        resultList.add(new HashMap<>(row));
+                        System.out.println(foundLabel + name + " → " + row.get("fileRelativePath"));
+                    }
                 }
             }
         }
     }
 
-    private static void parseServiceInterfaceFile(File file) throws Exception {
-        String content = readFileContent(file);
+    // ===================== 扫描所有Service接口（不区分大小写） =====================
+    private void scanAllServiceInterfaces(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_SERVICE, "interfaceName", serviceInterfaceSet, serviceInterfaceList, "找到Service接口：");
+    }
+
+    private static void parseServiceInterfaceFile(CharSequence content, String relativePath, FileExtraction result) {
         Matcher interfaceMatcher = INTERFACE_DEF_PATTERN.matcher(content);
 
         while (interfaceMatcher.find()) {
             String interfaceName = interfaceMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxSERVICE、Xxxservice等不规范命名）
-            String interfaceNameLower = interfaceName.toLowerCase();
-            if (!serviceInterfaceSet.contains(interfaceNameLower)) {
-                serviceInterfaceSet.add(interfaceNameLower);
-                // 接口文件相对路径
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                // 提取包名
-                String packageName = extractPackageName(content);
+            // 提取包名
+            String packageName = extractPackageName(content);
 
-                // 组装数据
-                addServiceInterfaceRow(interfaceName, packageName, relativePath);
-                System.out.println("找到Service接口：" + interfaceName + " → " + relativePath);
-            }
+            // 组装数据
+            addServiceInterfaceRow(result.rowsFor(ROWS_SERVICE), interfaceName, packageName, relativePath);
         }
     }
 
-    private static void addServiceInterfaceRow(String interfaceName, String packageName, String relativePath) {
+    private static void addServiceInterfaceRow(List<Map<String, String>> resultList, String interfaceName, String packageName, String relativePath) {
         Map<String, String> map = new HashMap<>();
         map.put("interfaceName", interfaceName);       // 接口名（保留原大小写）
         map.put("packageName", packageName);           // 包名
         map.put("fileRelativePath", relativePath);     // 接口文件相对路径
-        serviceInterfaceList.add(map);
+        resultList.add(map);
     }
 
     // ===================== 扫描所有ServiceImpl实现类（移除Manager字段，不区分大小写） =====================
-    private static void scanAllServiceImplClasses(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllServiceImplClasses(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseServiceImplFile(file);
-                }
-            }
-        }
+    private void scanAllServiceImplClasses(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_SERVICE_IMPL, "implClassName", serviceImplSet, serviceImplList, "找到ServiceImpl类：");
     }
 
-    private static void parseServiceImplFile(File file) throws Exception {
-        String content = readFileContent(file);
+    private static void parseServiceImplFile(CharSequence content, String relativePath, WiringExtractor.WiringScan wiring,
+                                             FileExtraction result) {
         Matcher serviceImplMatcher = SERVICE_IMPL_DEF_PATTERN.matcher(content);
 
         while (serviceImplMatcher.find()) {
             String implClassName = serviceImplMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxSERVICEIMPL、Xxxserviceimpl等）
-            String implClassNameLower = implClassName.toLowerCase();
-            if (!serviceImplSet.contains(implClassNameLower)) {
-                serviceImplSet.add(implClassNameLower);
-
-                // 1. 提取被实现的接口名
-                String implementedInterfaces = extractImplementedInterfaces(serviceImplMatcher.group(3));
 
-                // 2. 检查是否有@Service注解（大小写不敏感）
-                boolean hasServiceAnnotation = SERVICE_ANNOTATION_PATTERN.matcher(content).find();
+            // 1. 提取被实现的接口名
+            String implementedInterfaces = extractImplementedInterfaces(serviceImplMatcher.group(3));
 
-                // 3. 检查是否有@SofaService注解，并提取bindingType（大小写不敏感）
-                String sofaServiceInfo = extractSofaServiceInfo(content);
-                boolean hasSofaServiceAnnotation = !sofaServiceInfo.startsWith("无");
-                String bindingType = sofaServiceInfo.split("\\|")[1];
+            // 2. 检查是否有@Service注解（大小写不敏感，不含注释中的注解）
+            boolean hasServiceAnnotation = wiring.hasService;
 
-                // 4. 基础信息
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                String packageName = extractPackageName(content);
+            // 3. 检查是否有@SofaService注解，并提取bindingType（大小写不敏感）
+            boolean hasSofaServiceAnnotation = wiring.sofaServiceBindingType != null;
+            String bindingType = hasSofaServiceAnnotation ? wiring.sofaServiceBindingType : "无";
 
-                // 组装数据（移除Manager字段）
-                addServiceImplRow(
-                        implClassName, packageName, relativePath,
-                        implementedInterfaces,
-                        hasServiceAnnotation ? "是" : "否",
-                        hasSofaServiceAnnotation ? "是" : "否",
-                        bindingType
-                );
+            // 4. 基础信息
+            String packageName = extractPackageName(content);
 
-                System.out.println("找到ServiceImpl类：" + implClassName + " → " + relativePath);
-            }
+            // 组装数据（移除Manager字段）
+            addServiceImplRow(result.rowsFor(ROWS_SERVICE_IMPL),
+                    implClassName, packageName, relativePath,
+                    implementedInterfaces,
+                    hasServiceAnnotation ? "是" : "否",
+                    hasSofaServiceAnnotation ? "是" : "否",
+                    bindingType
+            );
         }
     }
 
@@ -655,20 +1594,8 @@ public class CodeAnalysisTool {
         return interfaceNames.isEmpty() ? "无实现接口" : String.join(", ", interfaceNames);
     }
 
-    private static String extractSofaServiceInfo(String content) {
-        Matcher sofaServiceMatcher = SOFA_SERVICE_ANNOTATION_PATTERN.matcher(content);
-        if (!sofaServiceMatcher.find()) {
-            return "无|无";
-        }
-
-        String annotationContent = sofaServiceMatcher.group(1);
-        Matcher bindingTypeMatcher = BINDING_TYPE_PATTERN.matcher(annotationContent);
-        String bindingType = bindingTypeMatcher.find() ? bindingTypeMatcher.group(1).trim() : "未指定";
-
-        return "有|" + bindingType;
-    }
-
     private static void addServiceImplRow(
+            List<Map<String, String>> resultList,
             String implClassName, String packageName, String relativePath,
             String implementedInterfaces, String hasServiceAnnotation,
             String hasSofaServiceAnnotation, String bindingType
@@ -681,119 +1608,71 @@ public class CodeAnalysisTool {
         map.put("hasServiceAnnotation", hasServiceAnnotation); // 是否有@Service注解
         map.put("hasSofaServiceAnnotation", hasSofaServiceAnnotation); // 是否有@SofaService注解
         map.put("bindingType", bindingType);                   // bindingType值
-        serviceImplList.add(map);
+        resultList.add(map);
     }
 
     // ===================== 扫描所有Manager接口（不区分大小写） =====================
-    private static void scanAllManagerInterfaces(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllManagerInterfaces(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseManagerInterfaceFile(file);
-                }
-            }
-        }
+    private void scanAllManagerInterfaces(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_MANAGER, "interfaceName", managerInterfaceSet, managerInterfaceList, "找到Manager接口：");
     }
 
-    private static void parseManagerInterfaceFile(File file) throws Exception {
-        String content = readFileContent(file);
+    private static void parseManagerInterfaceFile(CharSequence content, String relativePath, FileExtraction result) {
         Matcher managerInterfaceMatcher = MANAGER_INTERFACE_DEF_PATTERN.matcher(content);
 
         while (managerInterfaceMatcher.find()) {
             String interfaceName = managerInterfaceMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxMANAGER、Xxxmanager等）
-            String interfaceNameLower = interfaceName.toLowerCase();
-            if (!managerInterfaceSet.contains(interfaceNameLower)) {
-                managerInterfaceSet.add(interfaceNameLower);
-                // 接口文件相对路径
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                // 提取包名
-                String packageName = extractPackageName(content);
+            // 提取包名
+            String packageName = extractPackageName(content);
 
-                // 组装数据
-                addManagerInterfaceRow(interfaceName, packageName, relativePath);
-                System.out.println("找到Manager接口：" + interfaceName + " → " + relativePath);
-            }
+            // 组装数据
+            addManagerInterfaceRow(result.rowsFor(ROWS_MANAGER), interfaceName, packageName, relativePath);
         }
     }
 
-    private static void addManagerInterfaceRow(String interfaceName, String packageName, String relativePath) {
+    private static void addManagerInterfaceRow(List<Map<String, String>> resultList, String interfaceName, String packageName, String relativePath) {
         Map<String, String> map = new HashMap<>();
         map.put("interfaceName", interfaceName);       // 接口名（保留原大小写）
         map.put("packageName", packageName);           // 包名
         map.put("fileRelativePath", relativePath);     // 接口文件相对路径
-        managerInterfaceList.add(map);
+        resultList.add(map);
     }
 
     // ===================== 扫描所有ManagerImpl实现类（移除Dao字段，不区分大小写） =====================
-    private static void scanAllManagerImplClasses(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllManagerImplClasses(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseManagerImplFile(file);
-                }
-            }
-        }
+    private void scanAllManagerImplClasses(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_MANAGER_IMPL, "implClassName", managerImplSet, managerImplList, "找到ManagerImpl类：");
     }
 
-    private static void parseManagerImplFile(File file) throws Exception {
-        String content = readFileContent(file);
+    private static void parseManagerImplFile(CharSequence content, String relativePath, WiringExtractor.WiringScan wiring,
+                                             FileExtraction result) {
         Matcher managerImplMatcher = MANAGER_IMPL_DEF_PATTERN.matcher(content);
 
         while (managerImplMatcher.find()) {
             String implClassName = managerImplMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxMANAGERIMPL、Xxxmanagerimpl等）
-            String implClassNameLower = implClassName.toLowerCase();
-            if (!managerImplSet.contains(implClassNameLower)) {
-                managerImplSet.add(implClassNameLower);
 
-                // 1. 提取被实现的接口名
-                String implementedInterfaces = extractImplementedInterfaces(managerImplMatcher.group(3));
+            // 1. 提取被实现的接口名
+            String implementedInterfaces = extractImplementedInterfaces(managerImplMatcher.group(3));
 
-                // 2. 检查是否有@Service注解（大小写不敏感）
-                boolean hasServiceAnnotation = SERVICE_ANNOTATION_PATTERN.matcher(content).find();
+            // 2. 检查是否有@Service注解（大小写不敏感）
+            boolean hasServiceAnnotation = wiring.hasService;
 
-                // 3. 检查是否有@Transactional注解（大小写不敏感）
-                boolean hasTransactionalAnnotation = TRANSACTIONAL_ANNOTATION_PATTERN.matcher(content).find();
+            // 3. 检查是否有@Transactional注解（大小写不敏感，不含注释中的注解）
+            boolean hasTransactionalAnnotation = wiring.hasTransactional;
 
-                // 4. 基础信息
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                String packageName = extractPackageName(content);
+            // 4. 基础信息
+            String packageName = extractPackageName(content);
 
-                // 组装数据（移除Dao字段）
-                addManagerImplRow(
-                        implClassName, packageName, relativePath,
-                        implementedInterfaces,
-                        hasServiceAnnotation ? "是" : "否",
-                        hasTransactionalAnnotation ? "是" : "否"
-                );
-
-                System.out.println("找到ManagerImpl类：" + implClassName + " → " + relativePath);
-            }
+            // 组装数据（移除Dao字段）
+            addManagerImplRow(result.rowsFor(ROWS_MANAGER_IMPL),
+                    implClassName, packageName, relativePath,
+                    implementedInterfaces,
+                    hasServiceAnnotation ? "是" : "否",
+                    hasTransactionalAnnotation ? "是" : "否"
+            );
         }
     }
 
     private static void addManagerImplRow(
+            List<Map<String, String>> resultList,
             String implClassName, String packageName, String relativePath,
             String implementedInterfaces, String hasServiceAnnotation,
             String hasTransactionalAnnotation
@@ -805,115 +1684,67 @@ public class CodeAnalysisTool {
         map.put("implementedInterfaces", implementedInterfaces); // 被实现的接口名
         map.put("hasServiceAnnotation", hasServiceAnnotation); // 是否有@Service注解
         map.put("hasTransactionalAnnotation", hasTransactionalAnnotation); // 是否有@Transactional注解
-        managerImplList.add(map);
+        resultList.add(map);
     }
 
     // ===================== 扫描所有Dao接口（不区分大小写） =====================
-    private static void scanAllDaoInterfaces(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllDaoInterfaces(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseDaoInterfaceFile(file);
-                }
-            }
-        }
+    private void scanAllDaoInterfaces(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_DAO, "interfaceName", daoInterfaceSet, daoInterfaceList, "找到Dao接口：");
     }
 
-    private static void parseDaoInterfaceFile(File file) throws Exception {
-        String content = readFileContent(file);
+    private static void parseDaoInterfaceFile(CharSequence content, String relativePath, FileExtraction result) {
         Matcher daoInterfaceMatcher = DAO_INTERFACE_DEF_PATTERN.matcher(content);
 
         while (daoInterfaceMatcher.find()) {
             String interfaceName = daoInterfaceMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxDAO、Xxxdao等）
-            String interfaceNameLower = interfaceName.toLowerCase();
-            if (!daoInterfaceSet.contains(interfaceNameLower)) {
-                daoInterfaceSet.add(interfaceNameLower);
-                // 接口文件相对路径
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                // 提取包名
-                String packageName = extractPackageName(content);
+            // 提取包名
+            String packageName = extractPackageName(content);
 
-                // 组装数据
-                addDaoInterfaceRow(interfaceName, packageName, relativePath);
-                System.out.println("找到Dao接口：" + interfaceName + " → " + relativePath);
-            }
+            // 组装数据
+            addDaoInterfaceRow(result.rowsFor(ROWS_DAO), interfaceName, packageName, relativePath);
         }
     }
 
-    private static void addDaoInterfaceRow(String interfaceName, String packageName, String relativePath) {
+    private static void addDaoInterfaceRow(List<Map<String, String>> resultList, String interfaceName, String packageName, String relativePath) {
         Map<String, String> map = new HashMap<>();
         map.put("interfaceName", interfaceName);       // 接口名（保留原大小写）
         map.put("packageName", packageName);           // 包名
         map.put("fileRelativePath", relativePath);     // 接口文件相对路径
-        daoInterfaceList.add(map);
+        resultList.add(map);
     }
 
     // ===================== 扫描所有DaoImpl实现类（不区分大小写） =====================
-    private static void scanAllDaoImplClasses(File dir) throws Exception {
-        if (!dir.isDirectory() || dir.getName().equalsIgnoreCase("build")) {
-            return;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) return;
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanAllDaoImplClasses(file);
-            } else {
-                String fileName = file.getName();
-                if (fileName.endsWith(".java")) {
-                    parseDaoImplFile(file);
-                }
-            }
-        }
+    private void scanAllDaoImplClasses(List<SourceFile> sources) throws Exception {
+        acceptUniqueRows(sources, ROWS_DAO_IMPL, "implClassName", daoImplSet, daoImplList, "找到DaoImpl类：");
     }
 
-    private static void parseDaoImplFile(File file) throws Exception {
-        String content = readFileContent(file);
+    private static void parseDaoImplFile(CharSequence content, String relativePath, WiringExtractor.WiringScan wiring,
+                                         FileExtraction result) {
         Matcher daoImplMatcher = DAO_IMPL_DEF_PATTERN.matcher(content);
 
         while (daoImplMatcher.find()) {
             String implClassName = daoImplMatcher.group(1).trim();
-            // 去重：存储小写类名，避免重复（适配XxxDAOIMPL、Xxxdaoimpl等）
-            String implClassNameLower = implClassName.toLowerCase();
-            if (!daoImplSet.contains(implClassNameLower)) {
-                daoImplSet.add(implClassNameLower);
 
-                // 1. 提取被实现的接口名
-                String implementedInterfaces = extractImplementedInterfaces(daoImplMatcher.group(3));
+            // 1. 提取被实现的接口名
+            String implementedInterfaces = extractImplementedInterfaces(daoImplMatcher.group(3));
 
-                // 2. 检查是否有@Repository注解（大小写不敏感）
-                boolean hasRepositoryAnnotation = REPOSITORY_ANNOTATION_PATTERN.matcher(content).find();
+            // 2. 检查是否有@Repository注解（大小写不敏感，不含注释中的注解）
+            boolean hasRepositoryAnnotation = wiring.hasRepository;
 
-                // 3. 基础信息
-                String relativePath = ROOT_DIR.toURI().relativize(file.toURI()).getPath().replace("/", File.separator);
-                String packageName = extractPackageName(content);
+            // 3. 基础信息
+            String packageName = extractPackageName(content);
 
-                // 组装数据
-                addDaoImplRow(
-                        implClassName, packageName, relativePath,
-                        implementedInterfaces,
-                        hasRepositoryAnnotation ? "是" : "否"
-                );
-
-                System.out.println("找到DaoImpl类：" + implClassName + " → " + relativePath);
-            }
+            // 组装数据
+            addDaoImplRow(result.rowsFor(ROWS_DAO_IMPL),
+                    implClassName, packageName, relativePath,
+                    implementedInterfaces,
+                    hasRepositoryAnnotation ? "是" : "否"
+            );
         }
     }
 
     private static void addDaoImplRow(
+            List<Map<String, String>> resultList,
             String implClassName, String packageName, String relativePath,
             String implementedInterfaces, String hasRepositoryAnnotation
     ) {
@@ -923,220 +1754,602 @@ public class CodeAnalysisTool {
         map.put("fileRelativePath", relativePath);             // 文件相对路径
         map.put("implementedInterfaces", implementedInterfaces); // 被实现的接口名
         map.put("hasRepositoryAnnotation", hasRepositoryAnnotation); // 是否有@Repository注解
-        daoImplList.add(map);
-    }
-
-    // ===================== Excel写入 =====================
-    private static void writeExcel(List<Map<String, String>> strutsList,
-                                   List<Map<String, String>> frontEndList,
-                                   List<Map<String, String>> actionClassList,
-                                   List<Map<String, String>> serviceInterfaceList,
-                                   List<Map<String, String>> serviceImplList,
-                                   List<Map<String, String>> managerInterfaceList,
-                                   List<Map<String, String>> managerImplList,
-                                   List<Map<String, String>> daoInterfaceList,
-                                   List<Map<String, String>> daoImplList,
-                                   String outPath) throws Exception {
-        Workbook workbook = new XSSFWorkbook();
-
-        // ========== Sheet1：Struts配置 ==========
-        Sheet sheet1 = workbook.createSheet("Struts配置");
-        String[] strutsHeaders = {
-                "配置文件相对路径", "form-bean-type", "action-path", "action-type",
-                "action-name(form)", "forward-name", "forward-path", "是否重复", "重复次数"
-        };
-        Row sheet1Head = sheet1.createRow(0);
-        for (int i = 0; i < strutsHeaders.length; i++) {
-            sheet1Head.createCell(i).setCellValue(strutsHeaders[i]);
-        }
-        int row1 = 1;
-        for (Map<String, String> map : strutsList) {
-            Row row = sheet1.createRow(row1++);
-            row.createCell(0).setCellValue(map.get("relativePath"));
-            row.createCell(1).setCellValue(map.get("formBean"));
-            row.createCell(2).setCellValue(map.get("actionPath"));
-            row.createCell(3).setCellValue(map.get("actionType"));
-            row.createCell(4).setCellValue(map.get("actionName"));
-            row.createCell(5).setCellValue(map.get("forwardName"));
-            row.createCell(6).setCellValue(map.get("forwardPath"));
-            row.createCell(7).setCellValue(map.get("isDuplicate"));
-            row.createCell(8).setCellValue(map.get("duplicateCount"));
-        }
-
-        // ========== Sheet2：前端文件DO路径 ==========
-        Sheet sheet2 = workbook.createSheet("前端文件DO路径");
-        String[] frontEndHeaders = {"文件相对路径", ".do路径", "出现次数"};
-        Row sheet2Head = sheet2.createRow(0);
-        for (int i = 0; i < frontEndHeaders.length; i++) {
-            sheet2Head.createCell(i).setCellValue(frontEndHeaders[i]);
-        }
-        int row2 = 1;
-        for (Map<String, String> map : frontEndList) {
-            Row row = sheet2.createRow(row2++);
-            row.createCell(0).setCellValue(map.get("fileRelativePath"));
-            row.createCell(1).setCellValue(map.get("doPath"));
-            row.createCell(2).setCellValue(map.get("count"));
-        }
-
-        // ========== Sheet3：Action类信息 ==========
-        Sheet sheet3 = workbook.createSheet("Action类信息");
-        String[] actionClassHeaders = {
-                "Action类名", "包名", "文件相对路径", "父类名称"
-        };
-        Row sheet3Head = sheet3.createRow(0);
-        for (int i = 0; i < actionClassHeaders.length; i++) {
-            sheet3Head.createCell(i).setCellValue(actionClassHeaders[i]);
-        }
-        int row3 = 1;
-        // 排序：按Action类名（小写）升序排列，适配不规范命名
-        Collections.sort(actionClassList, (o1, o2) -> o1.get("actionClassName").toLowerCase().compareTo(o2.get("actionClassName").toLowerCase()));
-        for (Map<String, String> map : actionClassList) {
-            Row row = sheet3.createRow(row3++);
-            row.createCell(0).setCellValue(map.get("actionClassName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("actionRelativePath"));
-            row.createCell(3).setCellValue(map.get("parentClassName"));
-        }
-
-        // ========== Sheet4：Service接口列表 ==========
-        Sheet sheet4 = workbook.createSheet("Service接口列表");
-        String[] serviceInterfaceHeaders = {
-                "接口名", "包名", "接口文件相对路径"
-        };
-        Row sheet4Head = sheet4.createRow(0);
-        for (int i = 0; i < serviceInterfaceHeaders.length; i++) {
-            sheet4Head.createCell(i).setCellValue(serviceInterfaceHeaders[i]);
-        }
-        int row4 = 1;
-        // 排序：按接口名（小写）升序排列
-        Collections.sort(serviceInterfaceList, (o1, o2) -> o1.get("interfaceName").toLowerCase().compareTo(o2.get("interfaceName").toLowerCase()));
-        for (Map<String, String> map : serviceInterfaceList) {
-            Row row = sheet4.createRow(row4++);
-            row.createCell(0).setCellValue(map.get("interfaceName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-        }
-
-        // ========== Sheet5：ServiceImpl实现类列表（移除Manager字段列） ==========
-        Sheet sheet5 = workbook.createSheet("ServiceImpl实现类列表");
-        String[] serviceImplHeaders = {
-                "ServiceImpl类名", "包名", "文件相对路径",
-                "被实现的接口名", "是否有@Service注解", "是否有@SofaService注解",
-                "bindingType值"
-        };
-        Row sheet5Head = sheet5.createRow(0);
-        for (int i = 0; i < serviceImplHeaders.length; i++) {
-            sheet5Head.createCell(i).setCellValue(serviceImplHeaders[i]);
-        }
-        int row5 = 1;
-        // 排序：按ServiceImpl类名（小写）升序排列
-        Collections.sort(serviceImplList, (o1, o2) -> o1.get("implClassName").toLowerCase().compareTo(o2.get("implClassName").toLowerCase()));
-        for (Map<String, String> map : serviceImplList) {
-            Row row = sheet5.createRow(row5++);
-            row.createCell(0).setCellValue(map.get("implClassName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-            row.createCell(3).setCellValue(map.get("implementedInterfaces"));
-            row.createCell(4).setCellValue(map.get("hasServiceAnnotation"));
-            row.createCell(5).setCellValue(map.get("hasSofaServiceAnnotation"));
-            row.createCell(6).setCellValue(map.get("bindingType"));
-        }
-
-        // ========== Sheet6：Manager接口列表 ==========
-        Sheet sheet6 = workbook.createSheet("Manager接口列表");
-        String[] managerInterfaceHeaders = {
-                "接口名", "包名", "接口文件相对路径"
-        };
-        Row sheet6Head = sheet6.createRow(0);
-        for (int i = 0; i < managerInterfaceHeaders.length; i++) {
-            sheet6Head.createCell(i).setCellValue(managerInterfaceHeaders[i]);
-        }
-        int row6 = 1;
-        // 排序：按接口名（小写）升序排列
-        Collections.sort(managerInterfaceList, (o1, o2) -> o1.get("interfaceName").toLowerCase().compareTo(o2.get("interfaceName").toLowerCase()));
-        for (Map<String, String> map : managerInterfaceList) {
-            Row row = sheet6.createRow(row6++);
-            row.createCell(0).setCellValue(map.get("interfaceName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-        }
-
-        // ========== Sheet7：ManagerImpl实现类列表（移除Dao字段列） ==========
-        Sheet sheet7 = workbook.createSheet("ManagerImpl实现类列表");
-        String[] managerImplHeaders = {
-                "ManagerImpl类名", "包名", "文件相对路径",
-                "被实现的接口名", "是否有@Service注解", "是否有@Transactional注解"
-        };
-        Row sheet7Head = sheet7.createRow(0);
-        for (int i = 0; i < managerImplHeaders.length; i++) {
-            sheet7Head.createCell(i).setCellValue(managerImplHeaders[i]);
-        }
-        int row7 = 1;
-        // 排序：按ManagerImpl类名（小写）升序排列
-        Collections.sort(managerImplList, (o1, o2) -> o1.get("implClassName").toLowerCase().compareTo(o2.get("implClassName").toLowerCase()));
-        for (Map<String, String> map : managerImplList) {
-            Row row = sheet7.createRow(row7++);
-            row.createCell(0).setCellValue(map.get("implClassName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-            row.createCell(3).setCellValue(map.get("implementedInterfaces"));
-            row.createCell(4).setCellValue(map.get("hasServiceAnnotation"));
-            row.createCell(5).setCellValue(map.get("hasTransactionalAnnotation"));
-        }
-
-        // ========== Sheet8：Dao接口列表 ==========
-        Sheet sheet8 = workbook.createSheet("Dao接口列表");
-        String[] daoInterfaceHeaders = {
-                "接口名", "包名", "接口文件相对路径"
-        };
-        Row sheet8Head = sheet8.createRow(0);
-        for (int i = 0; i < daoInterfaceHeaders.length; i++) {
-            sheet8Head.createCell(i).setCellValue(daoInterfaceHeaders[i]);
-        }
-        int row8 = 1;
-        // 排序：按接口名（小写）升序排列
-        Collections.sort(daoInterfaceList, (o1, o2) -> o1.get("interfaceName").toLowerCase().compareTo(o2.get("interfaceName").toLowerCase()));
-        for (Map<String, String> map : daoInterfaceList) {
-            Row row = sheet8.createRow(row8++);
-            row.createCell(0).setCellValue(map.get("interfaceName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-        }
-
-        // ========== Sheet9：DaoImpl实现类列表 ==========
-        Sheet sheet9 = workbook.createSheet("DaoImpl实现类列表");
-        String[] daoImplHeaders = {
-                "DaoImpl类名", "包名", "文件相对路径",
-                "被实现的接口名", "是否有@Repository注解"
-        };
-        Row sheet9Head = sheet9.createRow(0);
-        for (int i = 0; i < daoImplHeaders.length; i++) {
-            sheet9Head.createCell(i).setCellValue(daoImplHeaders[i]);
-        }
-        int row9 = 1;
-        // 排序：按DaoImpl类名（小写）升序排列
-        Collections.sort(daoImplList, (o1, o2) -> o1.get("implClassName").toLowerCase().compareTo(o2.get("implClassName").toLowerCase()));
-        for (Map<String, String> map : daoImplList) {
-            Row row = sheet9.createRow(row9++);
-            row.createCell(0).setCellValue(map.get("implClassName"));
-            row.createCell(1).setCellValue(map.get("packageName"));
-            row.createCell(2).setCellValue(map.get("fileRelativePath"));
-            row.createCell(3).setCellValue(map.get("implementedInterfaces"));
-            row.createCell(4).setCellValue(map.get("hasRepositoryAnnotation"));
-        }
-
-        // 自动调整列宽
-        for (int i = 1; i <= 9; i++) {
-            Sheet sheet = workbook.getSheetAt(i - 1);
-            for (int j = 0; j < sheet.getRow(0).getLastCellNum(); j++) {
-                sheet.autoSizeColumn(j);
-            }
-        }
-
-        // 写入文件
-        try (FileOutputStream outputStream = new FileOutputStream(outPath)) {
-            workbook.write(outputStream);
-        }
-        workbook.close();
+        resultList.add(map);
+    }
+
+    // ===================== 汇总Spring/SOFA装配清单 =====================
+    private void scanAllWiringEdges(List<SourceFile> sources) throws Exception {
+        int remoteCount = 0;
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                for (Map<String, String> row : extraction(source).rows(ROWS_WIRING)) {
+                    wiringEdgeList.add(new HashMap<>(row));
+                    if ("是".equals(row.get("remote"))) {
+                        remoteCount++;
+                    }
+                }
+            }
+        }
+        System.out.println("装配边数：" + wiringEdgeList.size() + "，其中远程调用（bolt/rest等）：" + remoteCount);
+    }
+
+    // ===================== 接口方法清单 =====================
+    private void scanAllInterfaceMethods(List<SourceFile> sources) throws Exception {
+        // 接口名（小写）→ 实现类名 → 实现类声明的方法签名
+        Map<String, Map<String, Set<String>>> implsByInterface = new HashMap<>();
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                for (Map<String, String> row : extraction(source).rows(ROWS_METHOD_IMPL)) {
+                    Set<String> signatures = new HashSet<>(Arrays.asList(row.get("signatures").split("\\|")));
+                    for (String interfaceName : row.get("interfaces").split(",")) {
+                        implsByInterface.computeIfAbsent(interfaceName.toLowerCase(), k -> new LinkedHashMap<>())
+                                .put(row.get("className"), signatures);
+                    }
+                }
+            }
+        }
+
+        // 同名接口只保留第一个文件（与接口列表的去重一致）
+        Map<String, String> interfaceFiles = new HashMap<>();
+        int unimplemented = 0;
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                for (Map<String, String> row : extraction(source).rows(ROWS_METHOD)) {
+                    String interfaceKey = row.get("interfaceName").toLowerCase();
+                    String firstFile = interfaceFiles.putIfAbsent(interfaceKey, row.get("fileRelativePath"));
+                    if (firstFile != null && !firstFile.equals(row.get("fileRelativePath"))) {
+                        continue;
+                    }
+                    List<String> overriding = new ArrayList<>();
+                    Map<String, Set<String>> impls = implsByInterface.get(interfaceKey);
+                    if (impls != null) {
+                        for (Map.Entry<String, Set<String>> impl : impls.entrySet()) {
+                            if (impl.getValue().contains(row.get("signature"))) {
+                                overriding.add(impl.getKey());
+                            }
+                        }
+                    }
+                    if (overriding.isEmpty()) {
+                        unimplemented++;
+                    }
+                    Map<String, String> map = new HashMap<>(row);
+                    map.put("implementedBy", overriding.isEmpty() ? "无" : String.join(", ", overriding));
+                    interfaceMethodList.add(map);
+                }
+            }
+        }
+        System.out.println("接口方法数：" + interfaceMethodList.size() + "（接口" + interfaceFiles.size() + "个），其中无实现类覆盖：" + unimplemented);
+    }
+
+    // ===================== SQL语句清单 =====================
+    private void scanAllSqlStatements(List<SourceFile> sources) throws Exception {
+        // DaoImpl中出现的语句ID → 调用方（DaoImpl类名.方法名）
+        Map<String, Set<String>> callersById = new HashMap<>();
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                for (Map<String, String> row : extraction(source).rows(ROWS_SQL_REF)) {
+                    callersById.computeIfAbsent(row.get("statementId"), k -> new LinkedHashSet<>()).add(row.get("caller"));
+                }
+            }
+        }
+
+        int mapperCount = 0;
+        int inlineCount = 0;
+        int uncalled = 0;
+        for (SourceFile source : sources) {
+            if (!source.name.endsWith(".java") && !SqlExtractor.isXmlFile(source.name)) {
+                continue;
+            }
+            for (Map<String, String> row : extraction(source).rows(ROWS_SQL)) {
+                Map<String, String> map = new HashMap<>(row);
+                if (source.name.endsWith(".java")) {
+                    inlineCount++;
+                } else {
+                    mapperCount++;
+                    // 调用方：带命名空间的语句ID（iBatis useStatementNamespaces / MyBatis完整ID）或不带命名空间的ID
+                    String namespace = row.get("namespace");
+                    String statementId = row.get("statementId");
+                    Set<String> callers = new LinkedHashSet<>();
+                    if (!namespace.isEmpty()) {
+                        callers.addAll(callersById.getOrDefault(namespace + "." + statementId, Collections.emptySet()));
+                    }
+                    callers.addAll(callersById.getOrDefault(statementId, Collections.emptySet()));
+                    // MyBatis接口绑定：命名空间为Dao接口的全限定名时，语句ID即接口方法名
+                    String namespaceType = namespace.substring(namespace.lastIndexOf('.') + 1);
+                    if (daoInterfaceSet.contains(namespaceType.toLowerCase())) {
+                        callers.add(namespaceType + "." + statementId);
+                    }
+                    if (callers.isEmpty()) {
+                        uncalled++;
+                    }
+                    map.put("callers", callers.isEmpty() ? "无" : String.join(", ", callers));
+                }
+                sqlStatementList.add(map);
+            }
+        }
+        System.out.println("mapper语句数：" + mapperCount + "（其中未找到调用方：" + uncalled + "），DaoImpl内联SQL数：" + inlineCount);
+    }
+
+    /**
+     * 方法声明（与装配清单同一次扫描得到）：Service/Manager/Dao接口每个方法一行；
+     * 实现了接口的类只记录方法签名，汇总时用于匹配覆盖关系
+     */
+    private static void parseMethodDeclarations(WiringExtractor.WiringScan wiring, String relativePath, String packageName,
+                                                FileExtraction result) {
+        if (wiring.typeName == null || wiring.methods.isEmpty()) {
+            return;
+        }
+        if (wiring.isInterface) {
+            String layer = methodLayer(wiring.typeName);
+            if (layer == null) {
+                return;
+            }
+            // 同一接口的行共用相同的字符串实例，方法数很多时减少内存占用
+            String methodCount = String.valueOf(wiring.methods.size());
+            for (WiringExtractor.MethodDecl method : wiring.methods) {
+                Map<String, String> map = new HashMap<>(16);
+                map.put("interfaceName", wiring.typeName);           // 接口名（保留原大小写）
+                map.put("layer", layer);                             // Service/Manager/Dao
+                map.put("packageName", packageName);                 // 包名
+                map.put("methodName", method.name);                  // 方法名
+                map.put("returnType", method.returnType);            // 返回类型（保留泛型）
+                map.put("parameterTypes", String.join(", ", method.parameterTypes)); // 参数类型（逗号分隔）
+                map.put("parameterCount", String.valueOf(method.parameterTypes.size()));
+                map.put("methodCount", methodCount);                 // 该接口的方法总数
+                map.put("implementedBy", "");                        // 汇总时填写
+                map.put("fileRelativePath", relativePath);           // 接口文件相对路径
+                map.put("line", String.valueOf(method.line));        // 行号
+                map.put("signature", method.signature());            // 覆盖匹配用（不输出）
+                result.add(ROWS_METHOD, map);
+            }
+        } else if (!wiring.implementedInterfaces.isEmpty()) {
+            StringBuilder signatures = new StringBuilder();
+            for (WiringExtractor.MethodDecl method : wiring.methods) {
+                if (signatures.length() > 0) {
+                    signatures.append('|');
+                }
+                signatures.append(method.signature());
+            }
+            Map<String, String> map = new HashMap<>();
+            map.put("className", wiring.typeName);
+            map.put("interfaces", String.join(",", wiring.implementedInterfaces));
+            map.put("signatures", signatures.toString());
+            result.add(ROWS_METHOD_IMPL, map);
+        }
+    }
+
+    /**
+     * 按接口名后缀（不区分大小写）判断所属层，不是Service/Manager/Dao接口返回null
+     */
+    private static String methodLayer(String interfaceName) {
+        String lowerName = interfaceName.toLowerCase();
+        for (String layer : METHOD_LAYERS) {
+            if (lowerName.endsWith(layer.toLowerCase())) {
+                return layer;
+            }
+        }
+        return null;
+    }
+
+    // ===================== 包/模块依赖矩阵 =====================
+
+    /**
+     * 先登记所有文件声明的包（扫描范围内的包），再把每条import解析到包，汇总为包依赖和模块依赖；
+     * 下层类import上层类（按类名后缀，其次按包名中的action/service/manager/dao段）记为分层违规
+     */
+    private void scanAllPackageDependencies(List<SourceFile> sources) throws Exception {
+        DependencyMatrix matrix = new DependencyMatrix();
+        for (SourceFile source : sources) {
+            if (source.name.endsWith(".java")) {
+                FileExtraction extraction = extraction(source);
+                if (hasPackage(extraction)) {
+                    matrix.declare(extraction.packageName, DependencyMatrix.moduleOf(source.relativePath));
+                }
+            }
+        }
+
+        int importCount = 0;
+        for (SourceFile source : sources) {
+            if (!source.name.endsWith(".java")) {
+                continue;
+            }
+            FileExtraction extraction = extraction(source);
+            if (!hasPackage(extraction) || extraction.imports == null) {
+                continue;
+            }
+            int sourcePackage = matrix.packageId(extraction.packageName);
+            int sourceLayer = dependencyLayer(extraction.className, extraction.packageName);
+            for (int i = 0; i < extraction.imports.length; i++) {
+                String importName = extraction.imports[i];
+                int targetPackage = matrix.resolve(importName);
+                if (targetPackage < 0) {
+                    continue;
+                }
+                importCount++;
+                matrix.addDependency(sourcePackage, targetPackage);
+                int targetLayer = dependencyLayer(importedClassName(importName, matrix.packageName(targetPackage)),
+                        matrix.packageName(targetPackage));
+                if (sourceLayer >= 0 && targetLayer > sourceLayer) {
+                    Map<String, String> map = new HashMap<>();
+                    map.put("fileRelativePath", source.relativePath);
+                    map.put("className", extraction.className == null ? "" : extraction.className);
+                    map.put("sourceLayer", DEPENDENCY_LAYERS[sourceLayer]);
+                    map.put("importName", importName);
+                    map.put("targetLayer", DEPENDENCY_LAYERS[targetLayer]);
+                    map.put("line", String.valueOf(extraction.importLines[i]));
+                    layerViolationList.add(map);
+                }
+            }
+        }
+        matrix.build();
+
+        DependencyMatrix.Graph packages = matrix.packages();
+        String[] packageCycles = cycleLabels(packages, "P", id -> matrix.packageName(id));
+        for (int u = 0; u < packages.nodeCount; u++) {
+            for (int e = packages.offsets[u]; e < packages.offsets[u + 1]; e++) {
+                int v = packages.targets[e];
+                Map<String, String> map = new HashMap<>();
+                map.put("sourcePackage", matrix.packageName(u));
+                map.put("sourceModule", matrix.moduleName(matrix.moduleOf(u)));
+                map.put("targetPackage", matrix.packageName(v));
+                map.put("targetModule", matrix.moduleName(matrix.moduleOf(v)));
+                map.put("importCount", String.valueOf(packages.weights[e]));
+                map.put("cycleGroup", cycleLabel(packages, packageCycles, u, v));
+                packageDependencyList.add(map);
+            }
+        }
+
+        DependencyMatrix.Graph modules = matrix.modules();
+        String[] moduleCycles = cycleLabels(modules, "M", matrix::moduleName);
+        for (int u = 0; u < modules.nodeCount; u++) {
+            for (int e = modules.offsets[u]; e < modules.offsets[u + 1]; e++) {
+                int v = modules.targets[e];
+                Map<String, String> map = new HashMap<>();
+                map.put("sourceModule", matrix.moduleName(u));
+                map.put("targetModule", matrix.moduleName(v));
+                map.put("packageEdgeCount", String.valueOf(modules.counts[e]));
+                map.put("importCount", String.valueOf(modules.weights[e]));
+                map.put("cycleGroup", cycleLabel(modules, moduleCycles, u, v));
+                moduleDependencyList.add(map);
+            }
+        }
+        int packageCycleCount = addCycleRows("包", packages, packageCycles, id -> matrix.packageName(id));
+        int moduleCycleCount = addCycleRows("模块", modules, moduleCycles, matrix::moduleName);
+
+        System.out.println("包数：" + matrix.getPackageCount() + "（分布在多个模块的包：" + matrix.getSplitPackageCount()
+                + "），模块数：" + matrix.getModuleCount() + "，范围内import数：" + importCount);
+        System.out.println("包依赖数：" + packages.edgeCount() + "，模块依赖数：" + modules.edgeCount());
+        System.out.println("包级依赖环：" + packageCycleCount + "，模块级依赖环：" + moduleCycleCount
+                + "，分层违规：" + layerViolationList.size());
+    }
+
+    private static boolean hasPackage(FileExtraction extraction) {
+        return extraction.packageName != null && !"无包名".equals(extraction.packageName);
+    }
+
+    /**
+     * import中的类名：包名之后的第一段（a.b.C.Inner → C），导入整个包时为空
+     */
+    private static String importedClassName(String importName, String packageName) {
+        if (importName.length() <= packageName.length() + 1) {
+            return "";
+        }
+        String rest = importName.substring(packageName.length() + 1);
+        int dot = rest.indexOf('.');
+        String name = dot >= 0 ? rest.substring(0, dot) : rest;
+        return "*".equals(name) ? "" : name;
+    }
+
+    /**
+     * 分层（DEPENDENCY_LAYERS下标）：类名后缀（Impl同层），其次包名中的action/service/manager/dao段，都没有返回-1
+     */
+    private static int dependencyLayer(String className, String packageName) {
+        if (className != null && !className.isEmpty()) {
+            String lowerName = className.toLowerCase();
+            if (lowerName.endsWith("impl")) {
+                lowerName = lowerName.substring(0, lowerName.length() - 4);
+            }
+            for (int i = 0; i < DEPENDENCY_LAYERS.length; i++) {
+                if (lowerName.endsWith(DEPENDENCY_LAYERS[i].toLowerCase())) {
+                    return i;
+                }
+            }
+        }
+        int layer = -1;
+        for (String segment : packageName.toLowerCase().split("\\.")) {
+            for (int i = 0; i < DEPENDENCY_LAYERS.length; i++) {
+                String name = DEPENDENCY_LAYERS[i].toLowerCase();
+                if (segment.equals(name) || segment.equals(name + "s")) {
+                    // 取最靠后的一段（如com.x.action.dao按dao算）
+                    layer = i;
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * 依赖环编号：按成员数降序、再按成员名排序后依次编号（P1、P2…），同一源码树多次扫描编号稳定；不在环中的分量为null
+     */
+    private static String[] cycleLabels(DependencyMatrix.Graph graph, String prefix,
+                                        IntFunction<String> names) {
+        String[] firstMember = new String[graph.componentSize.length];
+        for (int u = 0; u < graph.nodeCount; u++) {
+            int c = graph.component[u];
+            String name = names.apply(u);
+            if (graph.componentSize[c] > 1 && (firstMember[c] == null || name.compareTo(firstMember[c]) < 0)) {
+                firstMember[c] = name;
+            }
+        }
+        List<Integer> cycles = new ArrayList<>();
+        for (int c = 0; c < firstMember.length; c++) {
+            if (firstMember[c] != null) {
+                cycles.add(c);
+            }
+        }
+        cycles.sort((a, b) -> graph.componentSize[a] != graph.componentSize[b]
+                ? Integer.compare(graph.componentSize[b], graph.componentSize[a]) : firstMember[a].compareTo(firstMember[b]));
+        String[] labels = new String[firstMember.length];
+        for (int i = 0; i < cycles.size(); i++) {
+            labels[cycles.get(i)] = prefix + (i + 1);
+        }
+        return labels;
+    }
+
+    private static String cycleLabel(DependencyMatrix.Graph graph, String[] labels, int u, int v) {
+        int c = graph.component[u];
+        return c == graph.component[v] && labels[c] != null ? labels[c] : "";
+    }
+
+    /**
+     * 每个依赖环一行：成员（按名称排序）和环内的依赖边，超过上限时截断
+     */
+    private int addCycleRows(String scope, DependencyMatrix.Graph graph, String[] labels,
+                             IntFunction<String> names) {
+        Map<Integer, List<String>> members = new TreeMap<>();
+        Map<Integer, List<String>> edges = new HashMap<>();
+        for (int u = 0; u < graph.nodeCount; u++) {
+            int c = graph.component[u];
+            if (labels[c] == null) {
+                continue;
+            }
+            members.computeIfAbsent(c, k -> new ArrayList<>()).add(names.apply(u));
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                if (graph.component[graph.targets[e]] == c) {
+                    edges.computeIfAbsent(c, k -> new ArrayList<>()).add(names.apply(u) + " → " + names.apply(graph.targets[e]));
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<String>> entry : members.entrySet()) {
+            List<String> memberNames = entry.getValue();
+            List<String> edgeNames = edges.get(entry.getKey());
+            Collections.sort(memberNames);
+            Collections.sort(edgeNames);
+            Map<String, String> map = new HashMap<>();
+            map.put("scope", scope);
+            map.put("cycleGroup", labels[entry.getKey()]);
+            map.put("memberCount", String.valueOf(memberNames.size()));
+            map.put("members", joinLimited(memberNames));
+            map.put("edges", joinLimited(edgeNames));
+            dependencyCycleList.add(map);
+        }
+        return members.size();
+    }
+
+    private static String joinLimited(List<String> values) {
+        if (values.size() <= CYCLE_LIST_LIMIT) {
+            return String.join(", ", values);
+        }
+        return String.join(", ", values.subList(0, CYCLE_LIST_LIMIT)) + " …共" + values.size() + "个";
+    }
+
+    // ===================== 架构规则 =====================
+
+    /**
+     * 由提取结果构建类模型（import的类型 + 注入的依赖类型 + 注解），逐类检查规则文件中的约束
+     */
+    private void checkArchitectureRules(List<SourceFile> sources) throws Exception {
+        ArchitectureRules rules = ArchitectureRules.load(options.getRulesFile());
+        List<ArchitectureRules.ClassModel> models = new ArrayList<>();
+        // 扫描范围内声明的包和类型（无包名的类按类名），引用只保留解析到这些包/类型的（与包依赖矩阵一致）
+        Set<String> declaredPackages = new HashSet<>();
+        Set<String> declaredTypes = new HashSet<>();
+        for (SourceFile source : sources) {
+            if (!source.name.endsWith(".java")) {
+                continue;
+            }
+            FileExtraction extraction = extraction(source);
+            if (extraction.className == null || extraction.className.isEmpty()) {
+                continue;
+            }
+            String packageName = hasPackage(extraction) ? extraction.packageName : "";
+            String qualifiedName = packageName.isEmpty() ? extraction.className : packageName + "." + extraction.className;
+            ArchitectureRules.ClassModel model = new ArchitectureRules.ClassModel(extraction.className, qualifiedName,
+                    source.relativePath);
+            if (!packageName.isEmpty()) {
+                declaredPackages.add(packageName);
+            }
+            declaredTypes.add(qualifiedName);
+            // import：简单名 → 全限定名，注入的类型按import解析，否则视为同包
+            Map<String, String> imported = new HashMap<>();
+            if (extraction.imports != null) {
+                for (int i = 0; i < extraction.imports.length; i++) {
+                    String type = importedType(extraction.imports[i]);
+                    if (type != null) {
+                        String simpleName = type.substring(type.lastIndexOf('.') + 1);
+                        imported.put(simpleName, type);
+                        model.addReference(simpleName, type, extraction.importLines[i]);
+                    }
+                }
+            }
+            for (Map<String, String> edge : extraction.rows(ROWS_WIRING)) {
+                String targetType = edge.get("targetType");
+                if (targetType == null || targetType.isEmpty()) {
+                    continue;
+                }
+                // 泛型字段（如List<LotDao>）按原始类型计
+                for (String type : targetType.replaceAll("<.*", "").split(",")) {
+                    String simpleName = type.substring(type.lastIndexOf('.') + 1);
+                    String qualified = type.indexOf('.') >= 0 ? type : imported.getOrDefault(simpleName,
+                            packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+                    model.addReference(simpleName, qualified, Integer.parseInt(edge.get("line")));
+                }
+            }
+            if (extraction.annotations != null) {
+                model.annotations.addAll(Arrays.asList(extraction.annotations));
+            }
+            models.add(model);
+        }
+        // JDK、第三方库的类型（如EntityManager、ExecutorService、PlatformTransactionManager）不参与规则检查
+        for (ArchitectureRules.ClassModel model : models) {
+            model.retainReferences(type -> isDeclaredType(type, declaredPackages, declaredTypes));
+        }
+
+        long start = System.nanoTime();
+        List<Map<String, String>> violations = new ArrayList<>();
+        for (ArchitectureRules.ClassModel model : models) {
+            rules.check(model, violations);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000L;
+        for (Map<String, String> row : violations) {
+            ruleViolationList.add(row);
+        }
+        System.out.println("规则数：" + rules.size() + "，检查类数：" + models.size() + "，违规数：" + violations.size()
+                + "，耗时：" + elapsedMillis + "ms");
+    }
+
+    /**
+     * import对应的类型全限定名：按命名约定取第一个大写开头的段（静态导入去掉成员），导入整个包时返回null
+     */
+    /**
+     * 类型是否在扫描范围内：本身是扫描到的类，或属于扫描范围内声明的包（a.b.C、a.b.C.Inner）
+     */
+    private static boolean isDeclaredType(String type, Set<String> declaredPackages, Set<String> declaredTypes) {
+        if (declaredTypes.contains(type)) {
+            return true;
+        }
+        for (int dot = type.lastIndexOf('.'); dot > 0; dot = type.lastIndexOf('.', dot - 1)) {
+            if (declaredPackages.contains(type.substring(0, dot))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String importedType(String importName) {
+        String[] parts = importName.split("\\.");
+        StringBuilder type = new StringBuilder();
+        for (String part : parts) {
+            if (part.equals("*")) {
+                return null;
+            }
+            if (type.length() > 0) {
+                type.append('.');
+            }
+            type.append(part);
+            if (!part.isEmpty() && Character.isUpperCase(part.charAt(0))) {
+                return type.toString();
+            }
+        }
+        return null;
+    }
+
+    // ===================== 源码索引 =====================
+    private void writeSourceIndex(List<SourceFile> sources) throws Exception {
+        System.out.println("\n========== 生成源码索引 ==========");
+        List<String> paths = new ArrayList<>(sources.size());
+        List<SourceIndex.FileTokens> tokens = new ArrayList<>(sources.size());
+        for (SourceFile source : sources) {
+            paths.add(source.relativePath);
+            tokens.add(extraction(source).tokens);
+        }
+        SourceIndex.write(options.getSourceIndexFile(), paths, tokens);
+    }
+
+    // ===================== 扩展提取器 =====================
+    private RowStore collectExtensionRows(List<SourceFile> sources, Extractor extractor) throws Exception {
+        String id = extractor.sheet().id;
+        RowStore resultList = newStore(extractor.sheet());
+        for (SourceFile source : sources) {
+            if (extractor.accepts(source.name)) {
+                for (Map<String, String> row : extraction(source).rows(id)) {
+                    resultList.add(new HashMap<>(row));
+                }
+            }
+        }
+        System.out.println(extractor.sheet().name + "记录数：" + resultList.size());
+        return resultList;
+    }
+
+    /**
+     * 单个文件的提取结果（跨文件去重、重复计数之前的原始行），可序列化到增量缓存
+     */
+    public static class FileExtraction implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // 预扫描得到的类名/接口名
+        String className;
+        // 包名和import（与装配清单同一次扫描得到），供包/模块依赖矩阵使用
+        String packageName;
+        String[] imports;
+        int[] importLines;
+        // 文件中出现过的注解（小写简单名），供架构规则使用
+        String[] annotations;
+        // 顶层类型（含abstract/非public类）及其直接父类的源码写法，供继承层次使用
+        String typeName;
+        String superClassName;
+        // 源码索引的分词结果（未启用源码索引时为null）
+        SourceIndex.FileTokens tokens;
+        // 结果分类（ROWS_*）→ 行数据
+        final Map<String, List<Map<String, String>>> rows = new HashMap<>();
+
+        List<Map<String, String>> rows(String kind) {
+            List<Map<String, String>> list = rows.get(kind);
+            return list == null ? Collections.<Map<String, String>>emptyList() : list;
+        }
+
+        List<Map<String, String>> rowsFor(String kind) {
+            return rows.computeIfAbsent(kind, k -> new ArrayList<>());
+        }
+
+        void add(String kind, Map<String, String> row) {
+            rowsFor(kind).add(row);
+        }
+    }
+
+    /**
+     * Sheet定义：名称、表头、字段key（与表头一一对应）、比对主键字段、默认排序
+     */
+    public static class SheetDef {
+        // 标识（与ROWS_*一致），用于配置项如sort.<id>
+        public final String id;
+        public final String name;
+        public final String[] headers;
+        public final String[] fields;
+        public final String[] keyFields;
+        // 主键是否忽略大小写（类名去重本身不区分大小写）
+        public final boolean keyIgnoreCase;
+        // 默认排序（字段名逗号分隔，-前缀降序，空表示保持扫描顺序）
+        public final String defaultSort;
+
+        public SheetDef(String id, String name, String[] headers, String[] fields, String[] keyFields,
+                 boolean keyIgnoreCase, String defaultSort) {
+            this.id = id;
+            this.name = name;
+            this.headers = headers;
+            this.fields = fields;
+            this.keyFields = keyFields;
+            this.keyIgnoreCase = keyIgnoreCase;
+            this.defaultSort = defaultSort;
+        }
+
+        int fieldIndex(String field) {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].equals(field)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 }
@@ -0,0 +1,67 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * CSV输出：每个Sheet一个"<Sheet名>.csv"文件（UTF-8带BOM，Excel可直接打开），排序与Excel一致
+ * <p>
+ * 不加载POI，小范围扫描（提交前检查、IDE外部工具）时启动和输出都比写xlsx快得多。
+ */
+public class CsvSink implements ResultSink {
+
+    private final File outDir;
+
+    public CsvSink(File outDir) {
+        this.outDir = outDir;
+    }
+
+    @Override
+    public void write(AnalysisResult result) throws Exception {
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new RuntimeException("❌ 无法创建CSV输出目录：" + outDir.getAbsolutePath());
+        }
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            File file = new File(outDir, def.name + ".csv");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                // 写入BOM，Excel直接打开不乱码
+                writer.write('\uFEFF');
+                writeLine(writer, def.headers);
+                String[] values = new String[def.fields.length];
+                for (Map<String, String> row : result.getSortedRows(def)) {
+                    for (int i = 0; i < def.fields.length; i++) {
+                        values[i] = row.get(def.fields[i]);
+                    }
+                    writeLine(writer, values);
+                }
+            }
+        }
+    }
+
+    /**
+     * 写一行CSV：含逗号、引号、换行的值加引号，引号转义为两个引号
+     */
+    static void writeLine(Writer writer, String[] values) throws Exception {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i] == null ? "" : values[i];
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    public File getOutDir() {
+        return outDir;
+    }
+}
@@ -0,0 +1,319 @@
+import java.util.*;
+
+/**
+ * 包/模块依赖矩阵：由各Java文件的package和import汇总
+ * <p>
+ * 包名、模块名各自编号（HashMap只用于名称→编号），依赖边存放在基本类型数组中，
+ * 汇总后压缩为邻接数组（CSR：offsets/targets/weights），几万个类、几十万条import也只占几MB。
+ * 只统计扫描范围内声明过的包（java.*、第三方库的import不计入），同一包内的import不算依赖。
+ * 强连通分量（Tarjan，非递归，包很多时不会栈溢出）中包含两个及以上节点的即为依赖环。
+ */
+public class DependencyMatrix {
+
+    private final Map<String, Integer> packageIds = new HashMap<>();
+    private final List<String> packageNames = new ArrayList<>();
+    // 包所属模块：第一个声明该包的文件所在模块（同一包分散在多个模块时记为拆分包）
+    private int[] packageModule = new int[64];
+    private final Map<String, Integer> moduleIds = new HashMap<>();
+    private final List<String> moduleNames = new ArrayList<>();
+    private int splitPackageCount;
+    private final Graph.Builder packageEdges = new Graph.Builder();
+    private Graph packageGraph;
+    private Graph moduleGraph;
+
+    /**
+     * 登记一个文件声明的包（先登记全部文件，再添加import）
+     */
+    void declare(String packageName, String module) {
+        Integer moduleId = moduleIds.get(module);
+        if (moduleId == null) {
+            moduleId = moduleNames.size();
+            moduleIds.put(module, moduleId);
+            moduleNames.add(module);
+        }
+        Integer id = packageIds.get(packageName);
+        if (id == null) {
+            id = packageNames.size();
+            packageIds.put(packageName, id);
+            packageNames.add(packageName);
+            if (id == packageModule.length) {
+                packageModule = Arrays.copyOf(packageModule, id * 2);
+            }
+            packageModule[id] = moduleId;
+        } else if (packageModule[id] != moduleId && packageModule[id] >= 0) {
+            splitPackageCount++;
+            // 只计一次
+            packageModule[id] = -1 - packageModule[id];
+        }
+    }
+
+    /**
+     * 包编号，未声明的包返回-1
+     */
+    int packageId(String packageName) {
+        Integer id = packageIds.get(packageName);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * import解析到扫描范围内的包：a.b.C、a.b.C.Inner、静态导入a.b.C.method、a.b.*、a.b.C.*，范围外返回-1
+     */
+    int resolve(String importName) {
+        String name = importName;
+        if (name.endsWith(".*")) {
+            name = name.substring(0, name.length() - 2);
+            int id = packageId(name);
+            if (id >= 0) {
+                return id;
+            }
+        }
+        for (int dot = name.lastIndexOf('.'); dot > 0; dot = name.lastIndexOf('.', dot - 1)) {
+            int id = packageId(name.substring(0, dot));
+            if (id >= 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 一条import形成的依赖（同一包内忽略）
+     */
+    void addDependency(int sourcePackage, int targetPackage) {
+        if (sourcePackage >= 0 && targetPackage >= 0 && sourcePackage != targetPackage) {
+            packageEdges.add(sourcePackage, targetPackage, 1);
+        }
+    }
+
+    /**
+     * 压缩为邻接数组，汇总模块依赖并计算两级的强连通分量
+     */
+    void build() {
+        packageGraph = packageEdges.build(packageNames.size());
+        Graph.Builder moduleEdges = new Graph.Builder();
+        for (int u = 0; u < packageGraph.nodeCount; u++) {
+            for (int e = packageGraph.offsets[u]; e < packageGraph.offsets[u + 1]; e++) {
+                int source = moduleOf(u);
+                int target = moduleOf(packageGraph.targets[e]);
+                if (source != target) {
+                    moduleEdges.add(source, target, packageGraph.weights[e]);
+                }
+            }
+        }
+        moduleGraph = moduleEdges.build(moduleNames.size());
+        packageGraph.computeComponents();
+        moduleGraph.computeComponents();
+    }
+
+    Graph packages() {
+        return packageGraph;
+    }
+
+    Graph modules() {
+        return moduleGraph;
+    }
+
+    String packageName(int id) {
+        return packageNames.get(id);
+    }
+
+    int moduleOf(int packageId) {
+        int module = packageModule[packageId];
+        return module >= 0 ? module : -1 - module;
+    }
+
+    String moduleName(int moduleId) {
+        return moduleNames.get(moduleId);
+    }
+
+    int getPackageCount() {
+        return packageNames.size();
+    }
+
+    int getModuleCount() {
+        return moduleNames.size();
+    }
+
+    int getSplitPackageCount() {
+        return splitPackageCount;
+    }
+
+    /**
+     * 模块：相对路径中src目录之前的部分（Maven/Gradle多模块），没有src时为第一级目录；压缩包条目为压缩包路径
+     */
+    static String moduleOf(String relativePath) {
+        String path = relativePath.replace('\\', '/');
+        int archive = path.indexOf("!/");
+        if (archive > 0) {
+            return path.substring(0, archive);
+        }
+        if (path.startsWith("src/")) {
+            return "(根目录)";
+        }
+        int src = path.indexOf("/src/");
+        if (src > 0) {
+            return path.substring(0, src);
+        }
+        int slash = path.indexOf('/');
+        return slash > 0 ? path.substring(0, slash) : "(根目录)";
+    }
+
+    /**
+     * 有向图的邻接数组：节点u的出边为[offsets[u], offsets[u+1])，同一目标的多条边已合并
+     * （weights为原始权重之和，counts为合并前的条数）
+     */
+    static class Graph {
+        final int nodeCount;
+        final int[] offsets;
+        final int[] targets;
+        final int[] weights;
+        final int[] counts;
+        // 强连通分量：节点 → 分量编号，及各分量的节点数
+        int[] component;
+        int[] componentSize;
+
+        private Graph(int nodeCount, int[] offsets, int[] targets, int[] weights, int[] counts) {
+            this.nodeCount = nodeCount;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.counts = counts;
+        }
+
+        int edgeCount() {
+            return targets.length;
+        }
+
+        /**
+         * 节点是否处在依赖环中（所在强连通分量不止一个节点）
+         */
+        boolean inCycle(int node) {
+            return componentSize[component[node]] > 1;
+        }
+
+        /**
+         * Tarjan强连通分量（显式栈，避免深层递归）
+         */
+        void computeComponents() {
+            int[] index = new int[nodeCount];
+            int[] low = new int[nodeCount];
+            boolean[] onStack = new boolean[nodeCount];
+            int[] stack = new int[nodeCount];
+            int[] callNode = new int[nodeCount];
+            int[] callEdge = new int[nodeCount];
+            component = new int[nodeCount];
+            Arrays.fill(index, -1);
+            int[] sizes = new int[Math.max(1, nodeCount)];
+            int counter = 0;
+            int stackTop = 0;
+            int componentCount = 0;
+            for (int root = 0; root < nodeCount; root++) {
+                if (index[root] >= 0) {
+                    continue;
+                }
+                int depth = 0;
+                callNode[0] = root;
+                callEdge[0] = offsets[root];
+                index[root] = low[root] = counter++;
+                stack[stackTop++] = root;
+                onStack[root] = true;
+                while (depth >= 0) {
+                    int u = callNode[depth];
+                    if (callEdge[depth] < offsets[u + 1]) {
+                        int v = targets[callEdge[depth]++];
+                        if (index[v] < 0) {
+                            index[v] = low[v] = counter++;
+                            stack[stackTop++] = v;
+                            onStack[v] = true;
+                            depth++;
+                            callNode[depth] = v;
+                            callEdge[depth] = offsets[v];
+                        } else if (onStack[v]) {
+                            low[u] = Math.min(low[u], index[v]);
+                        }
+                        continue;
+                    }
+                    if (low[u] == index[u]) {
+                        int v;
+                        do {
+                            v = stack[--stackTop];
+                            onStack[v] = false;
+                            component[v] = componentCount;
+                            sizes[componentCount]++;
+                        } while (v != u);
+                        componentCount++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int parent = callNode[depth];
+                        low[parent] = Math.min(low[parent], low[u]);
+                    }
+                }
+            }
+            componentSize = Arrays.copyOf(sizes, componentCount);
+        }
+
+        /**
+         * 边的收集：三个并行的int数组，build时按源节点计数排序后合并重复边
+         */
+        static class Builder {
+            private int[] sources = new int[1024];
+            private int[] targets = new int[1024];
+            private int[] weights = new int[1024];
+            private int size;
+
+            void add(int source, int target, int weight) {
+                if (size == sources.length) {
+                    sources = Arrays.copyOf(sources, size * 2);
+                    targets = Arrays.copyOf(targets, size * 2);
+                    weights = Arrays.copyOf(weights, size * 2);
+                }
+                sources[size] = source;
+                targets[size] = target;
+                weights[size] = weight;
+                size++;
+            }
+
+            Graph build(int nodeCount) {
+                int[] offsets = new int[nodeCount + 1];
+                for (int i = 0; i < size; i++) {
+                    offsets[sources[i] + 1]++;
+                }
+                for (int u = 0; u < nodeCount; u++) {
+                    offsets[u + 1] += offsets[u];
+                }
+                // 目标和权重打包成long（目标在高位），每个节点的出边段内排序后相邻的即为重复边
+                long[] packed = new long[size];
+                int[] fill = Arrays.copyOf(offsets, nodeCount);
+                for (int i = 0; i < size; i++) {
+                    packed[fill[sources[i]]++] = ((long) targets[i] << 32) | (weights[i] & 0xFFFFFFFFL);
+                }
+                int[] mergedOffsets = new int[nodeCount + 1];
+                int[] mergedTargets = new int[size];
+                int[] mergedWeights = new int[size];
+                int[] mergedCounts = new int[size];
+                int out = 0;
+                for (int u = 0; u < nodeCount; u++) {
+                    Arrays.sort(packed, offsets[u], offsets[u + 1]);
+                    mergedOffsets[u] = out;
+                    for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                        int target = (int) (packed[i] >>> 32);
+                        int weight = (int) packed[i];
+                        if (out > mergedOffsets[u] && mergedTargets[out - 1] == target) {
+                            mergedWeights[out - 1] += weight;
+                            mergedCounts[out - 1]++;
+                        } else {
+                            mergedTargets[out] = target;
+                            mergedWeights[out] = weight;
+                            mergedCounts[out] = 1;
+                            out++;
+                        }
+                    }
+                }
+                mergedOffsets[nodeCount] = out;
+                return new Graph(nodeCount, mergedOffsets, Arrays.copyOf(mergedTargets, out),
+                        Arrays.copyOf(mergedWeights, out), Arrays.copyOf(mergedCounts, out));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.util.Map;
+
+/**
+ * Excel输出：每个结果集一个Sheet，按排序配置排序后写入，列宽自适应；结果集溢写到临时文件时改为流式写入。
+ * 超过Excel单Sheet行数上限（1048576行）的结果集续写到<Sheet名>_2、_3…
+ */
+public class ExcelSink implements ResultSink {
+
+    // 超过该行数的Sheet不再逐行autoSizeColumn（耗时与行数成正比），按前若干行估算列宽
+    static final int AUTO_SIZE_ROW_LIMIT = 10000;
+    // 估算列宽的最大字符数
+    private static final int MAX_COLUMN_CHARS = 80;
+    // 流式写入时内存中保留的行数
+    private static final int STREAMING_WINDOW = 500;
+    // Excel单Sheet最大行数（含表头）
+    static final int MAX_SHEET_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    private final String outPath;
+    private final int maxSheetRows;
+
+    public ExcelSink(String outPath) {
+        this(outPath, MAX_SHEET_ROWS);
+    }
+
+    ExcelSink(String outPath, int maxSheetRows) {
+        this.outPath = outPath;
+        this.maxSheetRows = maxSheetRows;
+    }
+
+    @Override
+    public void write(AnalysisResult result) throws Exception {
+        // 行数据已溢写到临时文件时流式写入（只在内存中保留窗口内的行），否则沿用普通工作簿
+        Workbook workbook = result.isSpilled() ? new SXSSFWorkbook(STREAMING_WINDOW) : new XSSFWorkbook();
+
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            // 超过该行数的Sheet不再逐列autoSizeColumn，按表头和前若干行估算列宽（写入时顺便统计）
+            boolean autoSize = result.getRowCount(def.id) <= AUTO_SIZE_ROW_LIMIT;
+            int part = 1;
+            Sheet sheet = createSheet(workbook, def, def.name, autoSize);
+            int[] widths = headerWidths(def);
+
+            // 排序：默认按类名/接口名（小写）升序，可通过sort.<id>配置多列排序
+            int rowNum = 1;
+            for (Map<String, String> map : result.getSortedRows(def)) {
+                if (rowNum >= maxSheetRows) {
+                    // 达到Excel单Sheet行数上限：续写到<Sheet名>_2、_3…，表头相同
+                    adjustWidths(sheet, def, autoSize, widths);
+                    part++;
+                    sheet = createSheet(workbook, def, continuationName(def.name, part), autoSize);
+                    widths = headerWidths(def);
+                    rowNum = 1;
+                }
+                Row row = sheet.createRow(rowNum);
+                for (int i = 0; i < def.fields.length; i++) {
+                    String value = map.get(def.fields[i]);
+                    row.createCell(i).setCellValue(value);
+                    if (!autoSize && rowNum <= AUTO_SIZE_ROW_LIMIT) {
+                        widths[i] = Math.max(widths[i], displayWidth(value));
+                    }
+                }
+                rowNum++;
+            }
+            adjustWidths(sheet, def, autoSize, widths);
+            if (part > 1) {
+                System.out.println("⚠️ " + def.name + "共" + result.getRowCount(def.id) + "行，超过Excel单Sheet上限，已拆分为" + part + "个Sheet");
+            }
+        }
+
+        // 写入文件
+        try (FileOutputStream outputStream = new FileOutputStream(outPath)) {
+            workbook.write(outputStream);
+        }
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+        workbook.close();
+    }
+
+    private static Sheet createSheet(Workbook workbook, CodeAnalysisTool.SheetDef def, String name, boolean autoSize) {
+        Sheet sheet = workbook.createSheet(name);
+        if (autoSize && sheet instanceof SXSSFSheet) {
+            ((SXSSFSheet) sheet).trackAllColumnsForAutoSizing();
+        }
+        Row head = sheet.createRow(0);
+        for (int i = 0; i < def.headers.length; i++) {
+            head.createCell(i).setCellValue(def.headers[i]);
+        }
+        return sheet;
+    }
+
+    private static int[] headerWidths(CodeAnalysisTool.SheetDef def) {
+        int[] widths = new int[def.headers.length];
+        for (int i = 0; i < def.headers.length; i++) {
+            widths[i] = displayWidth(def.headers[i]);
+        }
+        return widths;
+    }
+
+    private static void adjustWidths(Sheet sheet, CodeAnalysisTool.SheetDef def, boolean autoSize, int[] widths) {
+        for (int j = 0; j < def.headers.length; j++) {
+            if (autoSize) {
+                sheet.autoSizeColumn(j);
+            } else {
+                sheet.setColumnWidth(j, (Math.min(widths[j], MAX_COLUMN_CHARS) + 2) * 256);
+            }
+        }
+    }
+
+    /**
+     * 续写Sheet的名称：<Sheet名>_2、_3…（快照比对读取时合并回原Sheet）
+     */
+    static String continuationName(String sheetName, int part) {
+        return sheetName + "_" + part;
+    }
+
+    private static int displayWidth(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int width = 0;
+        for (int i = 0; i < value.length(); i++) {
+            width += value.charAt(i) > 0xFF ? 2 : 1;
+        }
+        return width;
+    }
+
+    public String getOutPath() {
+        return outPath;
+    }
+}
@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 流水线提取：读取（I/O）和解析（CPU）分为两级线程池，各阶段开始前把文件全部提取好
+ * <p>
+ * 网络共享上小文件多的目录受I/O延迟限制，生成的大文件受正则解析的CPU限制，二者按目录顺序混在一起时
+ * 谁也跑不满。读取线程可以远多于CPU数，读到的内容放入按文件大小排序的队列，由与CPU数相同的解析线程取出提取；
+ * 已读取未解析的字节数受预取额度限制（内存上限），额度用完时读取线程等待。
+ * 文件按大小降序调度，最大的文件最先开始，结束时不会剩一个大文件拖尾；相邻的小文件合批交接，减少线程间的交接次数。
+ * 增量缓存命中的文件在读取阶段直接复用，不读取。
+ * 结束时打印两个阶段的利用率（忙碌时间 / (线程数 × 耗时)）和等待比例，用于按环境调整线程数。
+ */
+class ExtractionPipeline {
+
+    // 一个小文件只有几KB时，逐个文件在线程间交接的开销与解析本身相当：相邻的小文件合为一批，
+    // 批内字节数或文件数到上限即截止，超过批字节上限的大文件单独成批
+    static final long BATCH_BYTES = 256 * 1024;
+    static final int BATCH_FILES = 64;
+
+    /**
+     * 一批文件（按大小降序相邻）：读取线程整批读取后放入队列，解析线程整批提取
+     */
+    private static class Batch {
+        final List<SourceFile> sources = new ArrayList<>();
+        // 文件大小在调度前取一次，排序与队列比较不再访问文件系统
+        final List<Long> lengths = new ArrayList<>();
+        // 需要解析的文件及已读取的内容（null表示由解析线程自行读取，如超过大小上限、读取失败的文件）
+        final List<SourceFile> toParse = new ArrayList<>();
+        final List<byte[]> contents = new ArrayList<>();
+        long totalBytes;
+        int permits;
+
+        void add(SourceFile source, long length) {
+            sources.add(source);
+            lengths.add(length);
+            totalBytes += length;
+        }
+
+        // 批内最大的文件
+        long largest() {
+            return sources.isEmpty() ? Long.MIN_VALUE : lengths.get(0);
+        }
+    }
+
+    // 结束标记，排在所有批之后
+    private static final Batch END = new Batch();
+
+    private final CodeAnalysisTool engine;
+    private final int readThreads;
+    private final int parseThreads;
+    // 预取额度（KB）
+    private final int readAheadKb;
+    private final Semaphore readAhead;
+    private final PriorityBlockingQueue<Batch> queue = new PriorityBlockingQueue<>(64,
+            Comparator.comparingLong(Batch::largest).reversed());
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final AtomicLong readBusyNanos = new AtomicLong();
+    private final AtomicLong readWaitNanos = new AtomicLong();
+    private final AtomicLong parseBusyNanos = new AtomicLong();
+    private final AtomicLong parseWaitNanos = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicInteger cacheHits = new AtomicInteger();
+    private final AtomicInteger parsedCount = new AtomicInteger();
+
+    private ExtractionPipeline(CodeAnalysisTool engine, int readThreads, int parseThreads, long readAheadBytes) {
+        this.engine = engine;
+        this.readThreads = readThreads;
+        this.parseThreads = Math.max(1, parseThreads);
+        this.readAheadKb = (int) Math.max(1, Math.min(Integer.MAX_VALUE, readAheadBytes / 1024));
+        this.readAhead = new Semaphore(readAheadKb);
+    }
+
+    /**
+     * 提取尚未提取的文件，结果放在source.extracted中；返回本次提取的文件（扫描结束后清除其结果）
+     */
+    static List<SourceFile> run(CodeAnalysisTool engine, List<SourceFile> sources, boolean javaOnly,
+                                int readThreads, int parseThreads, long readAheadBytes) throws Exception {
+        List<SourceFile> pending = new ArrayList<>();
+        List<Long> lengths = new ArrayList<>();
+        for (SourceFile source : sources) {
+            if (source.extracted == null && (!javaOnly || source.name.endsWith(".java"))) {
+                pending.add(source);
+                lengths.add(source.length());
+            }
+        }
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        // 大文件优先
+        Integer[] order = new Integer[pending.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> lengths.get(i)).reversed());
+        List<Batch> batches = new ArrayList<>();
+        Batch batch = null;
+        for (int i : order) {
+            if (batch == null || batch.totalBytes >= BATCH_BYTES || batch.sources.size() >= BATCH_FILES) {
+                batch = new Batch();
+                batches.add(batch);
+            }
+            batch.add(pending.get(i), lengths.get(i));
+        }
+        new ExtractionPipeline(engine, readThreads, parseThreads, readAheadBytes).extract(batches, pending.size());
+        return pending;
+    }
+
+    private void extract(List<Batch> batches, int fileCount) throws Exception {
+        long start = System.nanoTime();
+        ExecutorService readers = Executors.newFixedThreadPool(readThreads);
+        ExecutorService parsers = Executors.newFixedThreadPool(parseThreads);
+        try {
+            for (int i = 0; i < parseThreads; i++) {
+                parsers.execute(this::parseLoop);
+            }
+            // 固定线程池按提交顺序执行，提交顺序即大文件优先
+            for (Batch batch : batches) {
+                readers.execute(() -> read(batch));
+            }
+            readers.shutdown();
+            while (!readers.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+            for (int i = 0; i < parseThreads; i++) {
+                queue.add(END);
+            }
+            parsers.shutdown();
+            while (!parsers.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+        } finally {
+            readers.shutdownNow();
+            parsers.shutdownNow();
+        }
+        Throwable error = failure.get();
+        if (error != null) {
+            throw error instanceof Exception ? (Exception) error : new RuntimeException(error);
+        }
+        report(fileCount, batches.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * 读取阶段：缓存命中直接复用；其余文件占用预取额度整批读入内存，放入解析队列
+     */
+    private void read(Batch batch) {
+        if (engine.isStopped() || failure.get() != null) {
+            // 已取消/超过整体截止时间：留给各阶段按未提取处理
+            return;
+        }
+        long busyStart = System.nanoTime();
+        long toRead = 0;
+        List<Boolean> oversize = new ArrayList<>();
+        for (int i = 0; i < batch.sources.size(); i++) {
+            SourceFile source = batch.sources.get(i);
+            CodeAnalysisTool.FileExtraction cached = engine.cachedExtraction(source);
+            if (cached != null) {
+                source.extracted = cached;
+                cacheHits.incrementAndGet();
+                engine.advanceProgress(batch.lengths.get(i));
+                continue;
+            }
+            batch.toParse.add(source);
+            // 超过大小上限的不读取，由解析线程按大小上限隔离
+            boolean skip = engine.exceedsMaxFileBytes(source);
+            oversize.add(skip);
+            if (!skip) {
+                toRead += batch.lengths.get(i);
+            }
+        }
+        readBusyNanos.addAndGet(System.nanoTime() - busyStart);
+        if (batch.toParse.isEmpty()) {
+            return;
+        }
+        batch.permits = (int) Math.max(1, Math.min(readAheadKb, (toRead + 1023) / 1024));
+        long waitStart = System.nanoTime();
+        try {
+            readAhead.acquire(batch.permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        readWaitNanos.addAndGet(System.nanoTime() - waitStart);
+        busyStart = System.nanoTime();
+        for (int i = 0; i < batch.toParse.size(); i++) {
+            byte[] bytes = null;
+            if (!oversize.get(i)) {
+                try {
+                    bytes = batch.toParse.get(i).readBytes();
+                    bytesRead.addAndGet(bytes.length);
+                } catch (Exception e) {
+                    // 读取失败：由解析线程重新读取，失败时按解析失败隔离该文件
+                }
+            }
+            batch.contents.add(bytes);
+        }
+        readBusyNanos.addAndGet(System.nanoTime() - busyStart);
+        queue.add(batch);
+    }
+
+    /**
+     * 解析阶段：按批内最大文件从队列中取出整批提取，释放预取额度
+     */
+    private void parseLoop() {
+        while (true) {
+            long waitStart = System.nanoTime();
+            Batch batch;
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            parseWaitNanos.addAndGet(System.nanoTime() - waitStart);
+            if (batch == END) {
+                return;
+            }
+            long busyStart = System.nanoTime();
+            try {
+                for (int i = 0; i < batch.toParse.size() && !engine.isStopped() && failure.get() == null; i++) {
+                    SourceFile source = batch.toParse.get(i);
+                    byte[] bytes = batch.contents.get(i);
+                    // 释放已提取文件的内容，其余仍受预取额度约束
+                    batch.contents.set(i, null);
+                    source.extracted = engine.extractAndCache(bytes == null ? source : new SourceFile.Preloaded(source, bytes));
+                    parsedCount.incrementAndGet();
+                    engine.advanceProgress(bytes == null ? source.length() : bytes.length);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                readAhead.release(batch.permits);
+                parseBusyNanos.addAndGet(System.nanoTime() - busyStart);
+            }
+        }
+    }
+
+    private void report(int fileCount, int batchCount, long elapsedNanos) {
+        double wall = Math.max(1, elapsedNanos);
+        long readUtil = Math.round(readBusyNanos.get() * 100.0 / (readThreads * wall));
+        long readWait = Math.round(readWaitNanos.get() * 100.0 / (readThreads * wall));
+        long parseUtil = Math.round(parseBusyNanos.get() * 100.0 / (parseThreads * wall));
+        long parseWait = Math.round(parseWaitNanos.get() * 100.0 / (parseThreads * wall));
+        System.out.println("流水线提取：" + fileCount + "个文件（缓存命中" + cacheHits.get() + "个，解析" + parsedCount.get() + "个，共" + batchCount + "批），读取"
+                + ScanProgress.megabytes(bytesRead.get()) + "MB，耗时" + elapsedNanos / 1000000L + "ms");
+        System.out.println("  读取阶段：" + readThreads + "线程，利用率" + readUtil + "%，等待预取额度" + readWait + "%");
+        System.out.println("  解析阶段：" + parseThreads + "线程，利用率" + parseUtil + "%，等待读取" + parseWait + "%");
+        if (parsedCount.get() == 0) {
+            return;
+        }
+        if (parseUtil >= 90) {
+            System.out.println("  提示：解析阶段接近满载（CPU为瓶颈），增加读取线程无益");
+        } else if (parseWait >= 50 && readWait < 10) {
+            System.out.println("  提示：解析线程多数时间在等待读取（I/O为瓶颈），可增大pipeline.read.threads");
+        } else if (readWait >= 50) {
+            System.out.println("  提示：读取线程多数时间在等待预取额度，可增大pipeline.readahead.mb或pipeline.parse.threads");
+        }
+    }
+}
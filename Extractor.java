@@ -0,0 +1,26 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扩展提取器：从单个文件中提取一类行数据，输出为独立的Sheet
+ * <p>
+ * 与内置提取共用同一次文件遍历和增量缓存；行数据只能依赖文件内容和相对路径（缓存按内容指纹复用），
+ * 各文件的行按扫描顺序汇总，不做跨文件去重。
+ */
+public interface Extractor {
+
+    /**
+     * 输出的Sheet定义，id同时作为行数据分类，不能与内置Sheet重复
+     */
+    CodeAnalysisTool.SheetDef sheet();
+
+    /**
+     * 是否处理该文件（按文件名判断，也决定该文件是否进入扫描清单）
+     */
+    boolean accepts(String fileName);
+
+    /**
+     * 提取单个文件，行数据追加到rows（字段key与sheet().fields对应）
+     */
+    void extract(SourceFile source, List<Map<String, String>> rows) throws Exception;
+}
@@ -0,0 +1,247 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * git对象库扫描：直接读取本地仓库某个提交中的文件，无需检出工作区
+ * <p>
+ * 文件清单来自 git ls-tree（带blob ID和大小），文件内容通过常驻的 git cat-file --batch 进程按blob ID读取，
+ * 全程只访问本地对象库，不需要网络。配合增量缓存时以blob ID作为指纹，未变化的blob直接命中上次扫描的缓存。
+ * 扫描提交区间 A..B 时只预热A中在区间内变化过的文件（B中已没有这些blob），
+ * A、B两端的文件此后都在缓存中；两端相同的blob在扫描B时提取一次即可，不为预热重复提取整个A。
+ */
+public class GitSource implements Closeable {
+
+    private final File repoDir;
+    private final CodeAnalysisTool engine;
+    private Process catFileProcess;
+    private OutputStream catFileIn;
+    private InputStream catFileOut;
+
+    GitSource(CodeAnalysisTool engine, File repoDir) {
+        this.engine = engine;
+        this.repoDir = repoDir;
+    }
+
+    /**
+     * 扫描仓库的某个提交（HEAD、分支、标签、提交ID），或提交区间 A..B（分析B，A中变化过的文件用于预热增量缓存）
+     */
+    static AnalysisResult analyze(CodeAnalysisTool engine, File repoDir, String revision) throws Exception {
+        if (!repoDir.isDirectory()) {
+            throw new RuntimeException("❌ git仓库目录不存在：" + repoDir.getAbsolutePath());
+        }
+        try (GitSource git = new GitSource(engine, repoDir)) {
+            String target = revision;
+            int rangeIndex = revision.indexOf("..");
+            if (rangeIndex >= 0) {
+                String base = revision.substring(0, rangeIndex);
+                target = revision.substring(rangeIndex + 2);
+                Set<String> changed = git.changedPaths(base, target);
+                System.out.println("提交区间：" + base + " → " + target + "，变化文件数：" + changed.size());
+                if (engine.hasCache()) {
+                    List<SourceFile> warmUp = new ArrayList<>();
+                    for (SourceFile source : git.listFiles(base)) {
+                        if (changed.contains(source.relativePath.replace(File.separatorChar, '/'))) {
+                            warmUp.add(source);
+                        }
+                    }
+                    System.out.println("========== 预热增量缓存：" + base + "（" + warmUp.size() + "个变化文件） ==========");
+                    engine.warmUp(warmUp);
+                } else {
+                    System.out.println("⚠️  未配置增量缓存，提交区间起点不参与复用");
+                }
+            }
+            System.out.println("========== 扫描git提交：" + target + " ==========");
+            return engine.analyze(git.listFiles(target));
+        }
+    }
+
+    /**
+     * 列出提交中的待扫描文件（跳过build目录，只保留Java、Struts配置、前端文件及扩展提取器处理的文件）
+     */
+    List<SourceFile> listFiles(String revision) throws Exception {
+        String commitId = new String(runGit("rev-parse", "--verify", revision + "^{commit}"), StandardCharsets.UTF_8).trim();
+        byte[] output = runGit("ls-tree", "-r", "-l", "-z", "--full-tree", commitId);
+
+        List<SourceFile> result = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] != 0) {
+                continue;
+            }
+            // 格式：<mode> SP <type> SP <object> SP+ <size> TAB <path>
+            String entry = new String(output, start, i - start, StandardCharsets.UTF_8);
+            start = i + 1;
+            int tab = entry.indexOf('\t');
+            String[] meta = entry.substring(0, tab).trim().split("\\s+");
+            String path = entry.substring(tab + 1);
+            if (!"blob".equals(meta[1]) || isInBuildDir(path)) {
+                continue;
+            }
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            if (engine.isCandidate(fileName)) {
+                result.add(new GitBlob(this, commitId, meta[2], Long.parseLong(meta[3]), path.replace("/", File.separator)));
+            }
+        }
+        System.out.println("提交" + commitId.substring(0, 8) + "中待扫描文件数：" + result.size());
+        return result;
+    }
+
+    private static boolean isInBuildDir(String path) {
+        String[] parts = path.split("/");
+        for (int i = 0; i < parts.length - 1; i++) {
+            if (parts[i].equalsIgnoreCase("build")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 两个提交之间新增、删除、修改过的文件路径（以/分隔）
+     */
+    private Set<String> changedPaths(String base, String target) throws Exception {
+        byte[] output = runGit("diff-tree", "-r", "-z", "--name-only", "--no-commit-id", base, target);
+        Set<String> paths = new HashSet<>();
+        int start = 0;
+        for (int i = 0; i < output.length; i++) {
+            if (output[i] == 0) {
+                paths.add(new String(output, start, i - start, StandardCharsets.UTF_8));
+                start = i + 1;
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 按blob ID读取内容（单个常驻cat-file进程，按请求顺序串行读取）
+     */
+    synchronized byte[] readBlob(String objectId) throws Exception {
+        if (catFileProcess == null) {
+            ProcessBuilder builder = new ProcessBuilder("git", "cat-file", "--batch");
+            builder.directory(repoDir);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            catFileProcess = builder.start();
+            catFileIn = catFileProcess.getOutputStream();
+            catFileOut = new BufferedInputStream(catFileProcess.getInputStream(), 1 << 16);
+        }
+        catFileIn.write((objectId + "\n").getBytes(StandardCharsets.US_ASCII));
+        catFileIn.flush();
+
+        // 响应头：<object> SP <type> SP <size> LF，随后是内容和一个LF
+        String header = readLine(catFileOut);
+        String[] parts = header.split(" ");
+        if (parts.length < 3 || !"blob".equals(parts[1])) {
+            throw new RuntimeException("❌ 读取git对象失败：" + header);
+        }
+        int size = Integer.parseInt(parts[2]);
+        byte[] content = new byte[size];
+        int offset = 0;
+        while (offset < size) {
+            int read = catFileOut.read(content, offset, size - offset);
+            if (read < 0) {
+                throw new RuntimeException("❌ git cat-file输出提前结束：" + objectId);
+            }
+            offset += read;
+        }
+        catFileOut.read();
+        return content;
+    }
+
+    private static String readLine(InputStream in) throws Exception {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new RuntimeException("❌ git cat-file进程意外退出");
+            }
+            line.write(b);
+        }
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] runGit(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        for (String arg : args) {
+            command.add(arg);
+        }
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.directory(repoDir);
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        Process process = builder.start();
+        process.getOutputStream().close();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream in = process.getInputStream()) {
+            byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                output.write(buffer, 0, read);
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new RuntimeException("❌ git命令执行失败：" + String.join(" ", command));
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        if (catFileProcess != null) {
+            try {
+                catFileIn.close();
+                catFileProcess.waitFor();
+            } catch (Exception e) {
+                catFileProcess.destroy();
+            }
+            catFileProcess = null;
+        }
+    }
+
+    /**
+     * git对象库中的blob
+     */
+    static class GitBlob extends SourceFile {
+        private final GitSource git;
+        private final String commitId;
+        private final String objectId;
+        private final long size;
+
+        GitBlob(GitSource git, String commitId, String objectId, long size, String relativePath) {
+            super(relativePath);
+            this.git = git;
+            this.commitId = commitId;
+            this.objectId = objectId;
+            this.size = size;
+        }
+
+        @Override
+        public long length() {
+            return size;
+        }
+
+        @Override
+        public byte[] readBytes() throws Exception {
+            return git.readBlob(objectId);
+        }
+
+        @Override
+        String fingerprint() {
+            // 行数据中包含相对路径，因此指纹 = blob ID + 路径
+            return "blob:" + objectId + "|" + relativePath;
+        }
+
+        @Override
+        public String displayPath() {
+            return commitId.substring(0, 8) + ":" + relativePath;
+        }
+    }
+}
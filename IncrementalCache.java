@@ -0,0 +1,155 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 增量缓存：内容指纹（磁盘文件为长度+修改时间，git为blob ID）→ 单文件提取结果
+ * <p>
+ * 指纹未变化的文件直接复用上次的提取结果，只有新增或修改的文件才会重新读取解析。
+ * 保存时只保留本次扫描用到的条目，缓存大小随源码树而不是历史次数增长。
+ * 也可以只保存在内存中（常驻进程内同一引擎实例的多次扫描复用）。
+ */
+public class IncrementalCache {
+
+    // 提取结果结构或内容变化时递增（如GBK文件解码修正），旧缓存自动作废
+    private static final int FORMAT_VERSION = 9;
+
+    // 缓存文件，null表示仅内存缓存
+    private final File file;
+    private final Map<String, CodeAnalysisTool.FileExtraction> entries;
+    private final Set<String> usedKeys = new HashSet<>();
+    private int hits;
+    private int misses;
+
+    private IncrementalCache(File file, Map<String, CodeAnalysisTool.FileExtraction> entries) {
+        this.file = file;
+        this.entries = entries;
+    }
+
+    /**
+     * 加载缓存文件，不存在、版本不符或损坏时返回空缓存
+     */
+    @SuppressWarnings("unchecked")
+    static IncrementalCache load(File file) {
+        Map<String, CodeAnalysisTool.FileExtraction> entries = new HashMap<>();
+        if (file.isFile()) {
+            try (ObjectInputStream in = new ObjectInputStream(new GZIPInputStream(
+                    new BufferedInputStream(new FileInputStream(file))))) {
+                if (in.readInt() == FORMAT_VERSION) {
+                    entries = (Map<String, CodeAnalysisTool.FileExtraction>) in.readObject();
+                } else {
+                    System.out.println("⚠️  增量缓存版本不一致，将全量提取：" + file.getAbsolutePath());
+                }
+            } catch (Exception e) {
+                System.out.println("⚠️  增量缓存读取失败，将全量提取：" + e.getMessage());
+                entries = new HashMap<>();
+            }
+        }
+        System.out.println("加载增量缓存：" + file.getAbsolutePath() + "（" + entries.size() + "个文件）");
+        return new IncrementalCache(file, entries);
+    }
+
+    /**
+     * 仅内存缓存，不读写文件
+     */
+    static IncrementalCache inMemory() {
+        return new IncrementalCache(null, new HashMap<String, CodeAnalysisTool.FileExtraction>());
+    }
+
+    synchronized CodeAnalysisTool.FileExtraction get(String fingerprint) {
+        CodeAnalysisTool.FileExtraction extraction = entries.get(fingerprint);
+        if (extraction != null) {
+            usedKeys.add(fingerprint);
+            hits++;
+        }
+        return extraction;
+    }
+
+    synchronized void put(String fingerprint, CodeAnalysisTool.FileExtraction extraction) {
+        entries.put(fingerprint, extraction);
+        usedKeys.add(fingerprint);
+        misses++;
+    }
+
+    synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+    }
+
+    synchronized int getHits() {
+        return hits;
+    }
+
+    synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * 丢弃本次未用到的条目（仅内存缓存使用，保存到文件时由save完成同样的裁剪）
+     */
+    synchronized void retainUsed() {
+        entries.keySet().retainAll(usedKeys);
+        usedKeys.clear();
+    }
+
+    /**
+     * 保存缓存（只保留本次用到的条目），先写临时文件再替换，避免中断时留下半个文件
+     */
+    synchronized void save() throws Exception {
+        if (file == null) {
+            return;
+        }
+        Map<String, CodeAnalysisTool.FileExtraction> used = new HashMap<>();
+        for (String key : usedKeys) {
+            used.put(key, entries.get(key));
+        }
+        write(used);
+        System.out.println("✅ 增量缓存已保存：" + file.getAbsolutePath() + "（" + used.size() + "个文件）");
+    }
+
+    /**
+     * 扫描过程中的检查点：保存全部条目（本次已提取的 + 上次保存、本次尚未用到的），
+     * 进程被中断后重新扫描时，已完成的文件直接命中缓存，从中断处继续
+     */
+    synchronized void checkpoint() throws Exception {
+        if (file == null) {
+            return;
+        }
+        write(entries);
+        System.out.println("检查点已保存：" + file.getAbsolutePath() + "（" + entries.size() + "个文件）");
+    }
+
+    /**
+     * 删除缓存文件（检查点文件在扫描完整结束后不再需要）
+     */
+    synchronized void delete() {
+        if (file != null && file.exists() && !file.delete()) {
+            System.out.println("⚠️  无法删除检查点文件：" + file.getAbsolutePath());
+        }
+    }
+
+    private void write(Map<String, CodeAnalysisTool.FileExtraction> map) throws Exception {
+        File tmp = new File(file.getAbsolutePath() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp))))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeObject(map);
+        }
+        if (file.exists() && !file.delete()) {
+            throw new RuntimeException("❌ 无法覆盖增量缓存：" + file.getAbsolutePath());
+        }
+        if (!tmp.renameTo(file)) {
+            throw new RuntimeException("❌ 无法写入增量缓存：" + file.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 本地查询服务：扫描结果常驻内存，按action路径、类名、包名、文件建立索引，提供HTTP/JSON查询
+ * <p>
+ * 只监听回环地址（127.0.0.1），不对外暴露。目录扫描模式下监听文件变化，变化平息后重新扫描，
+ * 引擎实例保留增量缓存，只有修改过的文件才会重新读取；新索引构建完成后整体替换，查询不受影响。
+ * <p>
+ * 接口（GET，返回JSON）：
+ * <ul>
+ * <li>/api/lookup?index=actionPath|class|package|file&amp;key=... 精确查找</li>
+ * <li>/api/search?index=...&amp;prefix=...&amp;limit=50 前缀查找</li>
+ * <li>/api/trace?path=/lot/trackIn.do 处理该路径的Action及其调用到的Dao</li>
+ * <li>/api/status 索引状态；/api/refresh 立即重新扫描</li>
+ * </ul>
+ */
+public class QueryServer {
+
+    static final int DEFAULT_PORT = 8765;
+    // 文件变化后等待该时长无新变化再刷新，避免保存/检出时连续触发
+    private static final long REFRESH_DEBOUNCE_MS = 500;
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 1000;
+
+    private final CodeAnalysisTool engine;
+    private final int port;
+    private volatile AnalysisIndex index;
+    private HttpServer server;
+    private ExecutorService executor;
+    private Thread watcher;
+
+    QueryServer(AnalysisOptions options, int port) {
+        // 未配置缓存文件时使用内存缓存，刷新时只重新提取变化的文件
+        if (options.getIncrementalCacheFile() == null) {
+            options.setCacheInMemory(true);
+        }
+        this.engine = new CodeAnalysisTool(options);
+        this.port = port;
+    }
+
+    /**
+     * 命令行入口：serve [端口]，扫描来源读取config.properties
+     */
+    static void run(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        QueryServer queryServer = new QueryServer(AnalysisOptions.load(), port);
+        queryServer.start();
+        System.out.println("✅ 查询服务已启动：http://127.0.0.1:" + queryServer.getPort() + "/api/status");
+    }
+
+    synchronized void start() throws Exception {
+        refresh();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/api/lookup", exchange -> handle(exchange, this::lookup));
+        server.createContext("/api/search", exchange -> handle(exchange, this::search));
+        server.createContext("/api/trace", exchange -> handle(exchange, this::trace));
+        server.createContext("/api/status", exchange -> handle(exchange, params -> status()));
+        server.createContext("/api/refresh", exchange -> handle(exchange, params -> {
+            refresh();
+            return status();
+        }));
+        executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.start();
+
+        File root = engine.getOptions().getScanBaseDir();
+        if (engine.getOptions().getGitRepoDir() == null && root != null) {
+            watcher = new Thread(() -> watch(root.toPath()), "query-server-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    synchronized void stop() {
+        if (watcher != null) {
+            watcher.interrupt();
+        }
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 重新扫描并替换索引（同一时间只有一次刷新）
+     */
+    synchronized void refresh() throws Exception {
+        long start = System.currentTimeMillis();
+        AnalysisOptions options = engine.getOptions();
+        AnalysisResult result = options.getGitRepoDir() != null
+                ? engine.analyzeGit(options.getGitRepoDir(), options.getGitRevision())
+                : engine.analyze(options.getScanBaseDir());
+        engine.saveCache();
+        index = new AnalysisIndex(result);
+        System.out.println("✅ 索引已刷新（耗时" + (System.currentTimeMillis() - start) + "ms）");
+    }
+
+    // ===================== 文件变化监听 =====================
+
+    private void watch(Path root) {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            registerAll(watchService, root);
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(watchService, key);
+                // 等待变化平息，期间新建的目录也加入监听
+                WatchKey next;
+                while ((next = watchService.poll(REFRESH_DEBOUNCE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(watchService, next);
+                }
+                if (changed) {
+                    try {
+                        refresh();
+                    } catch (Exception e) {
+                        System.err.println("❌ 刷新索引失败：" + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("⚠️  文件监听不可用，仅支持/api/refresh手动刷新：" + e.getMessage());
+        }
+    }
+
+    private boolean drain(WatchService watchService, WatchKey key) throws Exception {
+        boolean changed = false;
+        Path dir = (Path) key.watchable();
+        for (java.nio.file.WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            String fileName = path.getFileName().toString();
+            if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    registerAll(watchService, path);
+                }
+                changed = true;
+            } else if (engine.isCandidate(fileName) || ArchiveSource.isArchive(fileName)) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private static void registerAll(WatchService watchService, Path dir) throws Exception {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            dirs.filter(Files::isDirectory)
+                    .filter(path -> path.getFileName() == null || !path.getFileName().toString().equalsIgnoreCase("build"))
+                    .forEach(path -> {
+                        try {
+                            path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                        } catch (Exception e) {
+                            System.err.println("⚠️  无法监听目录：" + path + "，" + e.getMessage());
+                        }
+                    });
+        }
+    }
+
+    // ===================== 查询接口 =====================
+
+    private String lookup(Map<String, String> params) {
+        AnalysisIndex current = index;
+        String indexName = indexParam(params);
+        List<AnalysisIndex.Hit> hits = current.lookup(indexName, required(params, "key"));
+        return hitsJson(hits);
+    }
+
+    private String search(Map<String, String> params) {
+        AnalysisIndex current = index;
+        String indexName = indexParam(params);
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_LIMIT;
+        List<AnalysisIndex.Hit> hits = current.search(indexName, required(params, "prefix"), Math.min(Math.max(limit, 1), MAX_LIMIT));
+        return hitsJson(hits);
+    }
+
+    private String trace(Map<String, String> params) {
+        AnalysisIndex current = index;
+        String path = required(params, "path");
+        StringBuilder json = new StringBuilder("{\"path\":").append(quote(path)).append(",\"mappings\":[");
+        boolean first = true;
+        for (AnalysisIndex.Hit hit : current.lookup(AnalysisIndex.INDEX_ACTION_PATH, path)) {
+            if (CodeAnalysisTool.ROWS_STRUTS.equals(hit.sheet.id)) {
+                json.append(first ? "" : ",").append(rowJson(hit.sheet, hit.row));
+                first = false;
+            }
+        }
+        json.append("],\"daoPaths\":[");
+        first = true;
+        for (List<String> chain : current.traceDaos(path)) {
+            json.append(first ? "[" : ",[");
+            for (int i = 0; i < chain.size(); i++) {
+                json.append(i == 0 ? "" : ",").append(quote(chain.get(i)));
+            }
+            json.append(']');
+            first = false;
+        }
+        return json.append("]}").toString();
+    }
+
+    private String status() {
+        AnalysisIndex current = index;
+        StringBuilder json = new StringBuilder("{\"builtAt\":").append(current.getBuiltAt()).append(",\"sheets\":{");
+        boolean first = true;
+        for (CodeAnalysisTool.SheetDef def : current.getResult().getSheets()) {
+            json.append(first ? "" : ",").append(quote(def.id)).append(':').append(current.getResult().getRowCount(def.id));
+            first = false;
+        }
+        json.append("},\"indexes\":{");
+        first = true;
+        for (String name : AnalysisIndex.indexNames()) {
+            json.append(first ? "" : ",").append(quote(name)).append(':').append(current.size(name));
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    private static String indexParam(Map<String, String> params) {
+        String indexName = required(params, "index");
+        if (!AnalysisIndex.isIndex(indexName)) {
+            throw new IllegalArgumentException("index只能是" + AnalysisIndex.indexNames());
+        }
+        return indexName;
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("缺少参数：" + name);
+        }
+        return value;
+    }
+
+    // ===================== HTTP/JSON =====================
+
+    private interface Handler {
+        String handle(Map<String, String> params) throws Exception;
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) {
+        long start = System.nanoTime();
+        int status = 200;
+        String body;
+        try {
+            body = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = "{\"error\":" + quote(e.getMessage()) + "}";
+        } catch (Exception e) {
+            status = 500;
+            body = "{\"error\":" + quote(String.valueOf(e.getMessage())) + "}";
+        }
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.getResponseHeaders().set("X-Elapsed-Micros", String.valueOf((System.nanoTime() - start) / 1000));
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️  响应写出失败：" + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    private static String hitsJson(List<AnalysisIndex.Hit> hits) {
+        StringBuilder json = new StringBuilder("{\"count\":").append(hits.size()).append(",\"hits\":[");
+        for (int i = 0; i < hits.size(); i++) {
+            json.append(i == 0 ? "" : ",").append(rowJson(hits.get(i).sheet, hits.get(i).row));
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String rowJson(CodeAnalysisTool.SheetDef def, Map<String, String> row) {
+        StringBuilder json = new StringBuilder("{\"sheet\":").append(quote(def.id)).append(",\"row\":{");
+        for (int i = 0; i < def.fields.length; i++) {
+            json.append(i == 0 ? "" : ",").append(quote(def.fields[i])).append(':').append(quote(row.get(def.fields[i])));
+        }
+        return json.append("}}").toString();
+    }
+
+    static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * 结果输出：Excel、CSV、数据库、构建插件报告等，由调用方注册到AnalysisOptions
+ */
+public interface ResultSink {
+
+    void write(AnalysisResult result) throws Exception;
+}
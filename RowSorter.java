@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 行排序：每行只计算一次排序键（小写、数字补齐），比较时不再查Map、不再创建字符串
+ * <p>
+ * 排序配置格式：字段1,-字段2（-前缀表示降序），空配置保持原顺序。排序是稳定的，
+ * 行数超过阈值时使用并行排序。
+ */
+public class RowSorter {
+
+    // 超过该行数使用Arrays.parallelSort
+    static final int PARALLEL_THRESHOLD = 20000;
+    // 纯数字字段左侧补零的宽度，使"10"排在"9"之后
+    private static final int NUMBER_WIDTH = 12;
+
+    /**
+     * 按排序配置返回排好序的新列表，原列表不变
+     */
+    static List<Map<String, String>> sort(List<Map<String, String>> rows, String sortSpec) {
+        Spec spec = Spec.parse(sortSpec);
+        if (spec == null || rows.size() < 2) {
+            return rows;
+        }
+
+        SortEntry[] entries = new SortEntry[rows.size()];
+        for (int r = 0; r < entries.length; r++) {
+            Map<String, String> row = rows.get(r);
+            entries[r] = new SortEntry(spec.keys(row), row);
+        }
+
+        if (spec.fields.length == 1 && !spec.descending[0]) {
+            sortEntries(entries, (a, b) -> a.keys[0].compareTo(b.keys[0]));
+        } else {
+            sortEntries(entries, (a, b) -> spec.compare(a.keys, b.keys));
+        }
+
+        List<Map<String, String>> result = new ArrayList<>(entries.length);
+        for (SortEntry entry : entries) {
+            result.add(entry.row);
+        }
+        return result;
+    }
+
+    private static void sortEntries(SortEntry[] entries, Comparator<SortEntry> comparator) {
+        if (entries.length >= PARALLEL_THRESHOLD) {
+            Arrays.parallelSort(entries, comparator);
+        } else {
+            Arrays.sort(entries, comparator);
+        }
+    }
+
+    /**
+     * 排序键：小写；纯数字左侧补零按数值排序
+     */
+    static String collationKey(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && value.length() < NUMBER_WIDTH && isDigits(value)) {
+            StringBuilder sb = new StringBuilder(NUMBER_WIDTH);
+            for (int i = value.length(); i < NUMBER_WIDTH; i++) {
+                sb.append('0');
+            }
+            return sb.append(value).toString();
+        }
+        return value.toLowerCase();
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 解析后的排序配置，排序和有序段归并共用
+     */
+    static class Spec {
+        final String[] fields;
+        final boolean[] descending;
+
+        private Spec(String[] fields, boolean[] descending) {
+            this.fields = fields;
+            this.descending = descending;
+        }
+
+        /**
+         * 解析排序配置，空配置返回null（保持原顺序）
+         */
+        static Spec parse(String sortSpec) {
+            if (sortSpec == null || sortSpec.trim().isEmpty()) {
+                return null;
+            }
+            String[] specs = sortSpec.split(",");
+            String[] fields = new String[specs.length];
+            boolean[] descending = new boolean[specs.length];
+            for (int i = 0; i < specs.length; i++) {
+                String spec = specs[i].trim();
+                descending[i] = spec.startsWith("-");
+                fields[i] = descending[i] ? spec.substring(1).trim() : spec;
+            }
+            return new Spec(fields, descending);
+        }
+
+        String[] keys(Map<String, String> row) {
+            String[] keys = new String[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                keys[i] = collationKey(row.get(fields[i]));
+            }
+            return keys;
+        }
+
+        int compare(String[] a, String[] b) {
+            for (int i = 0; i < fields.length; i++) {
+                int cmp = a[i].compareTo(b[i]);
+                if (cmp != 0) {
+                    return descending[i] ? -cmp : cmp;
+                }
+            }
+            return 0;
+        }
+    }
+
+    private static class SortEntry {
+        final String[] keys;
+        final Map<String, String> row;
+
+        SortEntry(String[] keys, Map<String, String> row) {
+            this.keys = keys;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 一个Sheet的行集合
+ * <p>
+ * 未配置溢写目录时全部保存在内存（扫描顺序）。配置后，内存中的行数达到阈值即按Sheet的排序配置排好序，
+ * 作为一个有序段写入临时文件；读取时对各有序段和内存中剩余的行做k路归并，
+ * 内存中只保留当前批次和每个有序段的一行，行数再多占用的内存也是固定的。
+ * 有序段只保存输出字段和排序字段。
+ */
+public class RowStore {
+
+    // 归并时每个有序段的读缓冲（段数可能很多，不宜过大）
+    private static final int RUN_BUFFER_SIZE = 8192;
+    // 有序段数达到该值时先合并为一个，归并时同时打开的文件数有上限
+    private static final int MAX_RUNS = 64;
+
+    private final String[] fields;
+    private final String sortSpec;
+    private final File spillDir;
+    private final int spillRowLimit;
+    private List<Map<String, String>> buffer = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private int size;
+
+    /**
+     * spillDir为null表示不溢写
+     */
+    RowStore(CodeAnalysisTool.SheetDef def, String sortSpec, File spillDir, int spillRowLimit) {
+        Set<String> stored = new LinkedHashSet<>(Arrays.asList(def.fields));
+        RowSorter.Spec spec = RowSorter.Spec.parse(sortSpec);
+        if (spec != null) {
+            stored.addAll(Arrays.asList(spec.fields));
+        }
+        this.fields = stored.toArray(new String[0]);
+        this.sortSpec = sortSpec;
+        this.spillDir = spillDir;
+        this.spillRowLimit = Math.max(1, spillRowLimit);
+    }
+
+    void add(Map<String, String> row) {
+        buffer.add(row);
+        size++;
+        if (spillDir != null && buffer.size() >= spillRowLimit) {
+            spill();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isSpilled() {
+        return !runs.isEmpty();
+    }
+
+    /**
+     * 全部行：未溢写时为内存中的列表（扫描顺序）；已溢写时按排序配置归并后读入内存（只用于行数可控的场景）
+     */
+    List<Map<String, String>> toList() {
+        if (runs.isEmpty()) {
+            return buffer;
+        }
+        List<Map<String, String>> list = new ArrayList<>(size);
+        for (Map<String, String> row : sorted()) {
+            list.add(row);
+        }
+        return list;
+    }
+
+    /**
+     * 按排序配置排好序的行，逐行读取（已溢写时k路归并，同键按扫描顺序）
+     */
+    Iterable<Map<String, String>> sorted() {
+        List<Map<String, String>> tail = RowSorter.sort(buffer, sortSpec);
+        if (runs.isEmpty()) {
+            return tail;
+        }
+        return () -> new MergeIterator(runs, tail, RowSorter.Spec.parse(sortSpec), fields);
+    }
+
+    /**
+     * 删除有序段文件
+     */
+    void delete() {
+        for (File run : runs) {
+            if (!run.delete()) {
+                run.deleteOnExit();
+            }
+        }
+        runs.clear();
+        buffer = new ArrayList<>();
+        size = 0;
+    }
+
+    private void spill() {
+        try {
+            if (!spillDir.isDirectory() && !spillDir.mkdirs()) {
+                throw new IOException("无法创建目录");
+            }
+            runs.add(writeRun(RowSorter.sort(buffer, sortSpec)));
+            buffer = new ArrayList<>();
+            if (runs.size() >= MAX_RUNS) {
+                // 已有的有序段归并成一个（先写新段再删旧段）
+                Iterator<Map<String, String>> merged = new MergeIterator(runs, Collections.<Map<String, String>>emptyList(),
+                        RowSorter.Spec.parse(sortSpec), fields);
+                File run = writeRun(() -> merged);
+                for (File old : runs) {
+                    old.delete();
+                }
+                runs.clear();
+                runs.add(run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("❌ 行数据溢写失败：" + spillDir.getAbsolutePath(), e);
+        }
+    }
+
+    private File writeRun(Iterable<Map<String, String>> rows) throws IOException {
+        File run = File.createTempFile("rows-", ".run", spillDir);
+        run.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), 1 << 16))) {
+            for (Map<String, String> row : rows) {
+                for (String field : fields) {
+                    writeString(out, row.get(field));
+                }
+            }
+        }
+        return run;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * k路归并：每个有序段（及内存中剩余的行）当前行放入优先队列，键相同时段号小的先出（保持扫描顺序）；
+     * 无排序配置时依次拼接
+     */
+    private static class MergeIterator implements Iterator<Map<String, String>> {
+        private final RowSorter.Spec spec;
+        private final List<Cursor> cursors = new ArrayList<>();
+        private final PriorityQueue<Cursor> queue;
+        private int current;
+
+        MergeIterator(List<File> runs, List<Map<String, String>> tail, RowSorter.Spec spec, String[] fields) {
+            this.spec = spec;
+            this.queue = spec == null ? null : new PriorityQueue<>(Math.max(1, runs.size() + 1), (a, b) -> {
+                int cmp = spec.compare(a.keys, b.keys);
+                return cmp != 0 ? cmp : Integer.compare(a.index, b.index);
+            });
+            for (File run : runs) {
+                cursors.add(new RunCursor(cursors.size(), run, fields));
+            }
+            cursors.add(new ListCursor(cursors.size(), tail));
+            if (queue != null) {
+                for (Cursor cursor : cursors) {
+                    advance(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (queue != null) {
+                return !queue.isEmpty();
+            }
+            while (current < cursors.size()) {
+                Cursor cursor = cursors.get(current);
+                if (cursor.row != null || cursor.next()) {
+                    return true;
+                }
+                current++;
+            }
+            return false;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Cursor cursor = queue != null ? queue.poll() : cursors.get(current);
+            Map<String, String> row = cursor.row;
+            cursor.row = null;
+            if (queue != null) {
+                advance(cursor);
+            }
+            return row;
+        }
+
+        private void advance(Cursor cursor) {
+            if (cursor.next()) {
+                cursor.keys = spec.keys(cursor.row);
+                queue.add(cursor);
+            }
+        }
+    }
+
+    private abstract static class Cursor {
+        final int index;
+        Map<String, String> row;
+        String[] keys;
+
+        Cursor(int index) {
+            this.index = index;
+        }
+
+        /**
+         * 读取下一行到row，没有更多行时返回false
+         */
+        abstract boolean next();
+    }
+
+    private static class ListCursor extends Cursor {
+        private final Iterator<Map<String, String>> iterator;
+
+        ListCursor(int index, List<Map<String, String>> rows) {
+            super(index);
+            this.iterator = rows.iterator();
+        }
+
+        @Override
+        boolean next() {
+            row = iterator.hasNext() ? iterator.next() : null;
+            return row != null;
+        }
+    }
+
+    private static class RunCursor extends Cursor {
+        private final File run;
+        private final String[] fields;
+        private DataInputStream in;
+        private boolean done;
+
+        RunCursor(int index, File run, String[] fields) {
+            super(index);
+            this.run = run;
+            this.fields = fields;
+        }
+
+        @Override
+        boolean next() {
+            if (done) {
+                return false;
+            }
+            try {
+                if (in == null) {
+                    in = new DataInputStream(new BufferedInputStream(new FileInputStream(run), RUN_BUFFER_SIZE));
+                }
+                Map<String, String> map = new HashMap<>();
+                try {
+                    map.put(fields[0], readString(in));
+                } catch (EOFException e) {
+                    in.close();
+                    done = true;
+                    row = null;
+                    return false;
+                }
+                for (int i = 1; i < fields.length; i++) {
+                    map.put(fields[i], readString(in));
+                }
+                row = map;
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("❌ 读取溢写文件失败：" + run.getAbsolutePath(), e);
+            }
+        }
+    }
+}
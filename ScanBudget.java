@@ -0,0 +1,165 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 协作式取消：单个文件的提取时间预算 + 整次扫描的取消标记/截止时间
+ * <p>
+ * 提取文件前在当前线程登记预算，词法扫描、正则匹配、XML解析等长循环中定期调用tick()，
+ * 超时或扫描被取消时抛出Exceeded，由引擎把该文件隔离到错误清单，其余文件照常扫描。
+ * 正则无法从外部中断，所以把输入包装成定期检查预算的CharSequence（guard）。
+ */
+public class ScanBudget {
+
+    // 每隔多少次tick检查一次时间（System.nanoTime本身也有开销）
+    private static final int CHECK_INTERVAL = 4096;
+    private static final ThreadLocal<ScanBudget> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 超出预算：type为错误类型（超时/已取消），用于错误清单
+     */
+    static class Exceeded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final String type;
+
+        Exceeded(String type, String message) {
+            super(message, null, false, false);
+            this.type = type;
+        }
+    }
+
+    /**
+     * 一次扫描的取消标记和整体截止时间（System.nanoTime，Long.MAX_VALUE表示不限）
+     */
+    static class Run {
+        private final long deadline;
+        private volatile boolean cancelled;
+
+        Run(long deadlineMillis) {
+            this.deadline = deadlineMillis > 0 ? System.nanoTime() + deadlineMillis * 1000000L : Long.MAX_VALUE;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * 已取消或已超过整体截止时间
+         */
+        boolean isStopped() {
+            return cancelled || System.nanoTime() - deadline > 0;
+        }
+
+        String stopReason() {
+            return cancelled ? "扫描已取消" : "超过整体截止时间";
+        }
+    }
+
+    private final long fileDeadline;
+    private final long timeoutMillis;
+    private final Run run;
+    private int ticks;
+
+    private ScanBudget(long timeoutMillis, Run run) {
+        this.timeoutMillis = timeoutMillis;
+        this.fileDeadline = timeoutMillis > 0 ? System.nanoTime() + timeoutMillis * 1000000L : Long.MAX_VALUE;
+        this.run = run;
+    }
+
+    /**
+     * 当前线程开始提取一个文件（timeoutMillis&lt;=0表示不限时）
+     */
+    static void begin(long timeoutMillis, Run run) {
+        CURRENT.set(new ScanBudget(timeoutMillis, run));
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 当前线程的预算，不在提取过程中时为null
+     */
+    static ScanBudget current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 长循环中调用：每CHECK_INTERVAL次检查一次
+     */
+    void tick() {
+        if (++ticks >= CHECK_INTERVAL) {
+            ticks = 0;
+            check();
+        }
+    }
+
+    void check() {
+        if (run != null && run.isStopped()) {
+            throw new Exceeded("已取消", run.stopReason());
+        }
+        if (System.nanoTime() - fileDeadline > 0) {
+            throw new Exceeded("超时", "单文件提取超过" + timeoutMillis + "ms");
+        }
+    }
+
+    /**
+     * 正则输入：读取字符时定期检查预算，回溯失控的匹配也能在预算内终止
+     */
+    static CharSequence guard(String content) {
+        ScanBudget budget = current();
+        return budget == null ? content : new GuardedText(content, budget);
+    }
+
+    /**
+     * XML解析输入：读取时检查预算
+     */
+    static InputStream guard(InputStream in) {
+        ScanBudget budget = current();
+        return budget == null ? in : new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                budget.tick();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                budget.check();
+                return super.read(b, off, len);
+            }
+        };
+    }
+
+    private static class GuardedText implements CharSequence {
+        private final String text;
+        private final ScanBudget budget;
+
+        GuardedText(String text, ScanBudget budget) {
+            this.text = text;
+            this.budget = budget;
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            budget.tick();
+            return text.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+}
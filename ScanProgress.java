@@ -0,0 +1,86 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫描进度：预统计的文件数/字节数为总量，每提取完一个文件累加一次，
+ * 按固定间隔打印百分比（按字节）、吞吐量和预计剩余时间。压缩包并发提取，计数需线程安全。
+ */
+public class ScanProgress {
+
+    private final long totalFiles;
+    private final long totalBytes;
+    private final long intervalNanos;
+    private final long start = System.nanoTime();
+    private long doneFiles;
+    private long doneBytes;
+    private long lastReport = start;
+
+    /**
+     * intervalMillis&lt;=0表示不打印过程进度
+     */
+    ScanProgress(long totalFiles, long totalBytes, long intervalMillis) {
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+        this.intervalNanos = intervalMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(intervalMillis) : Long.MAX_VALUE;
+    }
+
+    /**
+     * 一个文件（或一个压缩包）提取完成
+     */
+    synchronized void advance(long bytes) {
+        doneFiles++;
+        doneBytes += Math.max(0, bytes);
+        long now = System.nanoTime();
+        if (now - lastReport >= intervalNanos) {
+            lastReport = now;
+            System.out.println(describe(now));
+        }
+    }
+
+    /**
+     * 提取阶段结束时打印一次汇总
+     */
+    synchronized void finish() {
+        System.out.println(describe(System.nanoTime()));
+    }
+
+    private String describe(long now) {
+        double seconds = Math.max(1e-3, (now - start) / 1e9);
+        double percent = totalBytes > 0 ? Math.min(100.0, doneBytes * 100.0 / totalBytes)
+                : totalFiles > 0 ? Math.min(100.0, doneFiles * 100.0 / totalFiles) : 100.0;
+        double bytesPerSecond = doneBytes / seconds;
+        StringBuilder line = new StringBuilder("进度：");
+        line.append(oneDecimal(percent)).append('%')
+                .append("  ").append(doneFiles).append('/').append(totalFiles).append("个文件")
+                .append("  ").append(megabytes(doneBytes)).append('/').append(megabytes(totalBytes)).append("MB")
+                .append("  ").append(oneDecimal(doneFiles / seconds)).append("个文件/s")
+                .append("  ").append(megabytes((long) bytesPerSecond)).append("MB/s");
+        if (doneBytes < totalBytes && bytesPerSecond > 0) {
+            line.append("  预计剩余").append(duration((long) ((totalBytes - doneBytes) / bytesPerSecond)));
+        } else {
+            line.append("  已用时").append(duration((long) seconds));
+        }
+        return line.toString();
+    }
+
+    /**
+     * 保留一位小数（不用String.format：小范围扫描时加载Formatter占启动时间的不小一部分）
+     */
+    static String megabytes(long bytes) {
+        return oneDecimal(bytes / (1024.0 * 1024.0));
+    }
+
+    private static String oneDecimal(double value) {
+        long tenths = Math.round(value * 10);
+        return tenths / 10 + "." + tenths % 10;
+    }
+
+    private static String duration(long seconds) {
+        if (seconds >= 3600) {
+            return seconds / 3600 + "小时" + seconds % 3600 / 60 + "分";
+        }
+        if (seconds >= 60) {
+            return seconds / 60 + "分" + seconds % 60 + "秒";
+        }
+        return seconds + "秒";
+    }
+}
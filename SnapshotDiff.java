@@ -0,0 +1,421 @@
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 快照比对：比较两次分析结果（Excel快照或扫描根目录），输出新增/删除/变更的记录
+ * <p>
+ * 9个结果集分别按主键排序后做归并连接（sorted-merge join），整体复杂度O(n log n)，
+ * 读取Excel快照使用POI事件模型流式解析，避免大文件整体加载到内存。
+ */
+public class SnapshotDiff {
+
+    static final String CHANGE_ADDED = "新增";
+    static final String CHANGE_REMOVED = "删除";
+    static final String CHANGE_MODIFIED = "变更";
+
+    // 主键字段之间的分隔符（不会出现在路径、类名中）
+    private static final char KEY_SPLIT = '\u0001';
+
+    private static final String[] REPORT_HEADERS = {"Sheet", "变更类型", "主键", "字段", "旧值", "新值"};
+    private static final String DETAIL_SHEET = "变更明细";
+
+    /**
+     * 命令行入口：diff <旧快照.xlsx|旧根目录> <新快照.xlsx|新根目录> <报告.xlsx|报告.csv>
+     */
+    static void run(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("❌ 用法：diff <旧快照.xlsx|旧根目录> <新快照.xlsx|新根目录> <报告.xlsx|报告.csv>");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<List<String[]>> oldSheets = loadSnapshot(new File(args[0]));
+        List<List<String[]>> newSheets = loadSnapshot(new File(args[1]));
+
+        List<String[]> changes = new ArrayList<>();
+        int[][] summary = new int[CodeAnalysisTool.SHEET_DEFS.length][3];
+        for (int i = 0; i < CodeAnalysisTool.SHEET_DEFS.length; i++) {
+            diffSheet(CodeAnalysisTool.SHEET_DEFS[i], oldSheets.get(i), newSheets.get(i), changes, summary[i]);
+        }
+
+        String reportPath = args[2];
+        if (reportPath.toLowerCase().endsWith(".csv")) {
+            writeCsvReport(changes, reportPath);
+        } else {
+            writeExcelReport(changes, summary, reportPath);
+        }
+
+        System.out.println("\n========== 快照比对汇总 ==========");
+        for (int i = 0; i < CodeAnalysisTool.SHEET_DEFS.length; i++) {
+            System.out.println(String.format("%s：新增%d，删除%d，变更%d",
+                    CodeAnalysisTool.SHEET_DEFS[i].name, summary[i][0], summary[i][1], summary[i][2]));
+        }
+        System.out.println("✅ 比对报告路径：" + reportPath + "（耗时" + (System.currentTimeMillis() - start) + "ms）");
+    }
+
+    /**
+     * 加载快照：.xlsx文件按Sheet名读取，目录则现场扫描
+     */
+    static List<List<String[]>> loadSnapshot(File source) throws Exception {
+        if (source.isDirectory()) {
+            System.out.println("扫描快照根目录：" + source.getAbsolutePath());
+            AnalysisResult sheets = new CodeAnalysisTool(new AnalysisOptions()).analyze(source);
+            List<List<String[]>> result = new ArrayList<>();
+            for (CodeAnalysisTool.SheetDef def : CodeAnalysisTool.SHEET_DEFS) {
+                result.add(toRows(def, sheets.getRows(def.id)));
+            }
+            return result;
+        }
+        if (!source.isFile()) {
+            throw new RuntimeException("❌ 快照不存在：" + source.getAbsolutePath());
+        }
+        System.out.println("读取快照文件：" + source.getAbsolutePath());
+        return readExcelSnapshot(source);
+    }
+
+    private static List<String[]> toRows(CodeAnalysisTool.SheetDef def, List<Map<String, String>> records) {
+        List<String[]> rows = new ArrayList<>(records.size());
+        for (Map<String, String> record : records) {
+            String[] row = new String[def.fields.length];
+            for (int i = 0; i < def.fields.length; i++) {
+                String value = record.get(def.fields[i]);
+                row[i] = value == null ? "" : value;
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 流式读取Excel快照（XSSF事件模型），按第一行表头的文字对应到SHEET_DEFS的字段（旧版本工具生成的快照列可能更少、顺序不同），
+     * 按字段顺序返回；快照中没有的列为null，不参与比对
+     */
+    private static List<List<String[]>> readExcelSnapshot(File file) throws Exception {
+        Map<String, Integer> sheetIndex = new HashMap<>();
+        List<List<String[]>> result = new ArrayList<>();
+        for (int i = 0; i < CodeAnalysisTool.SHEET_DEFS.length; i++) {
+            sheetIndex.put(CodeAnalysisTool.SHEET_DEFS[i].name, i);
+            result.add(new ArrayList<>());
+        }
+
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            XSSFReader.SheetIterator it = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (it.hasNext()) {
+                try (InputStream sheetStream = it.next()) {
+                    // 超过单Sheet行数上限时续写的<Sheet名>_2、_3…合并回原Sheet
+                    String sheetName = it.getSheetName();
+                    Integer index = sheetIndex.get(sheetName);
+                    if (index == null && sheetName.matches(".+_\\d+")) {
+                        index = sheetIndex.get(sheetName.substring(0, sheetName.lastIndexOf('_')));
+                    }
+                    if (index == null) {
+                        continue;
+                    }
+                    SnapshotSheetHandler handler = new SnapshotSheetHandler(CodeAnalysisTool.SHEET_DEFS[index], result.get(index));
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, handler,
+                            new org.apache.poi.ss.usermodel.DataFormatter(), false));
+                    parser.parse(new InputSource(sheetStream));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 逐行收集单元格文本：表头行确定各列对应的字段（表头不认识的列忽略），数据行中快照有的列空单元格补""，没有的列为null
+     */
+    private static class SnapshotSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final CodeAnalysisTool.SheetDef def;
+        private final List<String[]> rows;
+        private final Map<String, Integer> fieldByHeader = new HashMap<>();
+        // 列号 → 字段下标（-1表示忽略该列）
+        private int[] columnField = new int[0];
+        private boolean[] present;
+        private String[] current;
+        private boolean header;
+
+        SnapshotSheetHandler(CodeAnalysisTool.SheetDef def, List<String[]> rows) {
+            this.def = def;
+            this.rows = rows;
+            this.present = new boolean[def.fields.length];
+            for (int i = 0; i < def.headers.length; i++) {
+                fieldByHeader.put(def.headers[i], i);
+            }
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            header = rowNum == 0;
+            current = new String[def.fields.length];
+            for (int i = 0; i < current.length; i++) {
+                current[i] = present[i] ? "" : null;
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!header) {
+                rows.add(current);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = new CellReference(cellReference).getCol();
+            if (header) {
+                Integer field = formattedValue == null ? null : fieldByHeader.get(formattedValue.trim());
+                if (col >= columnField.length) {
+                    int oldLength = columnField.length;
+                    columnField = Arrays.copyOf(columnField, col + 1);
+                    Arrays.fill(columnField, oldLength, columnField.length, -1);
+                }
+                if (field != null) {
+                    columnField[col] = field;
+                    present[field] = true;
+                }
+            } else if (col < columnField.length && columnField[col] >= 0 && formattedValue != null) {
+                current[columnField[col]] = formattedValue;
+            }
+        }
+    }
+
+    // ===================== 归并比对 =====================
+
+    /**
+     * 对单个结果集做排序归并连接，changes追加变更明细，counter依次累计新增/删除/变更数。
+     * 只比较两边都有的列（旧快照缺少的列不参与主键和变更判断）
+     */
+    static void diffSheet(CodeAnalysisTool.SheetDef def, List<String[]> oldRows, List<String[]> newRows,
+                          List<String[]> changes, int[] counter) {
+        boolean[] compared = new boolean[def.fields.length];
+        for (int c = 0; c < compared.length; c++) {
+            compared[c] = hasColumn(oldRows, c) && hasColumn(newRows, c);
+        }
+        List<Integer> keyColumns = new ArrayList<>();
+        for (String keyField : def.keyFields) {
+            int index = def.fieldIndex(keyField);
+            if (compared[index]) {
+                keyColumns.add(index);
+            }
+        }
+        int[] keyIndexes = new int[keyColumns.size()];
+        for (int k = 0; k < keyIndexes.length; k++) {
+            keyIndexes[k] = keyColumns.get(k);
+        }
+        KeyedRow[] olds = sortByKey(def, keyIndexes, compared, oldRows);
+        KeyedRow[] news = sortByKey(def, keyIndexes, compared, newRows);
+
+        int i = 0;
+        int j = 0;
+        while (i < olds.length || j < news.length) {
+            int cmp = i >= olds.length ? 1 : j >= news.length ? -1 : olds[i].compareKey(news[j]);
+            if (cmp < 0) {
+                changes.add(new String[]{def.name, CHANGE_REMOVED, olds[i].displayKey(), "", joinRow(olds[i].row), ""});
+                counter[1]++;
+                i++;
+            } else if (cmp > 0) {
+                changes.add(new String[]{def.name, CHANGE_ADDED, news[j].displayKey(), "", "", joinRow(news[j].row)});
+                counter[0]++;
+                j++;
+            } else {
+                boolean modified = false;
+                for (int c = 0; c < def.fields.length; c++) {
+                    if (compared[c] && !olds[i].row[c].equals(news[j].row[c])) {
+                        changes.add(new String[]{def.name, CHANGE_MODIFIED, news[j].displayKey(), def.headers[c],
+                                olds[i].row[c], news[j].row[c]});
+                        modified = true;
+                    }
+                }
+                if (modified) {
+                    counter[2]++;
+                }
+                i++;
+                j++;
+            }
+        }
+    }
+
+    /**
+     * 主键只计算一次并缓存；主键相同的行（如重复的Struts配置）按整行内容排序后依次编号，
+     * 归并时按（主键，序号）比较，保证一一配对（序号按数值比较，不受位数影响）
+     */
+    private static KeyedRow[] sortByKey(CodeAnalysisTool.SheetDef def, int[] keyIndexes, boolean[] compared,
+                                        List<String[]> rows) {
+        KeyedRow[] keyed = new KeyedRow[rows.size()];
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < keyed.length; r++) {
+            String[] row = rows.get(r);
+            sb.setLength(0);
+            for (int k = 0; k < keyIndexes.length; k++) {
+                if (k > 0) {
+                    sb.append(KEY_SPLIT);
+                }
+                String value = row[keyIndexes[k]];
+                sb.append(def.keyIgnoreCase ? value.toLowerCase() : value);
+            }
+            keyed[r] = new KeyedRow(sb.toString(), joinRow(row, compared), row);
+        }
+        Comparator<KeyedRow> byKeyThenRow = (a, b) -> {
+            int cmp = a.key.compareTo(b.key);
+            return cmp != 0 ? cmp : a.content.compareTo(b.content);
+        };
+        Arrays.parallelSort(keyed, byKeyThenRow);
+
+        int occurrence = 0;
+        for (int r = 0; r < keyed.length; r++) {
+            occurrence = r > 0 && keyed[r].key.equals(keyed[r - 1].key) ? occurrence + 1 : 0;
+            keyed[r].occurrence = occurrence;
+        }
+        // 同一主键组内序号递增，数组按（主键，序号）有序
+        return keyed;
+    }
+
+    /**
+     * 快照中是否有该列（整个Sheet一致，看第一行即可；没有行时视为有）
+     */
+    private static boolean hasColumn(List<String[]> rows, int column) {
+        return rows.isEmpty() || rows.get(0)[column] != null;
+    }
+
+    private static String joinRow(String[] row) {
+        return joinRow(row, null);
+    }
+
+    /**
+     * 整行文本（只取compared中的列，null表示全部列；快照中没有的列为空）
+     */
+    private static String joinRow(String[] row, boolean[] compared) {
+        StringBuilder sb = new StringBuilder();
+        boolean first = true;
+        for (int c = 0; c < row.length; c++) {
+            if (compared != null && !compared[c]) {
+                continue;
+            }
+            if (!first) {
+                sb.append(" | ");
+            }
+            sb.append(row[c] == null ? "" : row[c]);
+            first = false;
+        }
+        return sb.toString();
+    }
+
+    private static class KeyedRow {
+        final String key;
+        final String content;
+        final String[] row;
+        int occurrence;
+
+        KeyedRow(String key, String content, String[] row) {
+            this.key = key;
+            this.content = content;
+            this.row = row;
+        }
+
+        int compareKey(KeyedRow other) {
+            int cmp = key.compareTo(other.key);
+            return cmp != 0 ? cmp : Integer.compare(occurrence, other.occurrence);
+        }
+
+        String displayKey() {
+            String display = key.replace(KEY_SPLIT, '/');
+            return occurrence > 0 ? display + "/#" + occurrence : display;
+        }
+    }
+
+    // ===================== 报告输出 =====================
+
+    private static void writeExcelReport(List<String[]> changes, int[][] summary, String outPath) throws Exception {
+        writeExcelReport(changes, summary, outPath, ExcelSink.MAX_SHEET_ROWS);
+    }
+
+    /**
+     * 变更明细超过单Sheet行数上限（maxSheetRows，含表头）时续写到变更明细_2、_3…
+     */
+    static void writeExcelReport(List<String[]> changes, int[][] summary, String outPath, int maxSheetRows)
+            throws Exception {
+        // 流式写入，内存中只保留窗口内的行
+        SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+        try {
+            Sheet summarySheet = workbook.createSheet("比对汇总");
+            String[] summaryHeaders = {"Sheet", "新增", "删除", "变更"};
+            Row summaryHead = summarySheet.createRow(0);
+            for (int i = 0; i < summaryHeaders.length; i++) {
+                summaryHead.createCell(i).setCellValue(summaryHeaders[i]);
+            }
+            for (int i = 0; i < summary.length; i++) {
+                Row row = summarySheet.createRow(i + 1);
+                row.createCell(0).setCellValue(CodeAnalysisTool.SHEET_DEFS[i].name);
+                row.createCell(1).setCellValue(summary[i][0]);
+                row.createCell(2).setCellValue(summary[i][1]);
+                row.createCell(3).setCellValue(summary[i][2]);
+            }
+
+            int part = 1;
+            Sheet detailSheet = createDetailSheet(workbook, DETAIL_SHEET);
+            int rowNum = 1;
+            for (String[] change : changes) {
+                if (rowNum >= maxSheetRows) {
+                    part++;
+                    detailSheet = createDetailSheet(workbook, ExcelSink.continuationName(DETAIL_SHEET, part));
+                    rowNum = 1;
+                }
+                Row row = detailSheet.createRow(rowNum++);
+                for (int i = 0; i < change.length; i++) {
+                    row.createCell(i).setCellValue(change[i]);
+                }
+            }
+
+            try (FileOutputStream outputStream = new FileOutputStream(outPath)) {
+                workbook.write(outputStream);
+            }
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet createDetailSheet(SXSSFWorkbook workbook, String name) {
+        Sheet sheet = workbook.createSheet(name);
+        Row head = sheet.createRow(0);
+        for (int i = 0; i < REPORT_HEADERS.length; i++) {
+            head.createCell(i).setCellValue(REPORT_HEADERS[i]);
+        }
+        return sheet;
+    }
+
+    private static void writeCsvReport(List<String[]> changes, String outPath) throws Exception {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outPath), StandardCharsets.UTF_8))) {
+            // 写入BOM，Excel直接打开不乱码
+            writer.write('\uFEFF');
+            CsvSink.writeLine(writer, REPORT_HEADERS);
+            for (String[] change : changes) {
+                CsvSink.writeLine(writer, change);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * 待扫描的源文件：磁盘文件、git对象库中的blob或压缩包条目，扫描逻辑只依赖相对路径和文件内容
+ */
+public abstract class SourceFile {
+
+    // 相对扫描根目录的路径（系统分隔符，与Excel中的相对路径一致）
+    public final String relativePath;
+    // 文件名（不含目录）
+    public final String name;
+    // 读取时已完成的提取结果（如压缩包条目流式读取后即提取，之后不能再次读取）
+    CodeAnalysisTool.FileExtraction extracted;
+
+    SourceFile(String relativePath) {
+        this.relativePath = relativePath;
+        int index = Math.max(relativePath.lastIndexOf('/'), relativePath.lastIndexOf(File.separatorChar));
+        this.name = index >= 0 ? relativePath.substring(index + 1) : relativePath;
+    }
+
+    /**
+     * 文件字节数
+     */
+    public abstract long length();
+
+    /**
+     * 读取文件原始字节
+     */
+    public abstract byte[] readBytes() throws Exception;
+
+    /**
+     * 以流的方式读取（流式解析只读需要的部分，如非mapper的XML读到根元素即停止）
+     */
+    public InputStream openStream() throws Exception {
+        return new ByteArrayInputStream(readBytes());
+    }
+
+    /**
+     * 内容指纹，指纹不变则提取结果可复用
+     */
+    abstract String fingerprint();
+
+    /**
+     * 控制台输出用的完整路径
+     */
+    public String displayPath() {
+        return relativePath;
+    }
+
+    /**
+     * XML解析使用的systemId
+     */
+    public String systemId() {
+        return relativePath;
+    }
+
+    /**
+     * 读取文件文本（UTF-8优先，GBK兜底）
+     */
+    public String readContent() throws Exception {
+        return CodeAnalysisTool.decodeContent(readBytes());
+    }
+
+    /**
+     * 已读入内存的文件：提取逻辑只依赖相对路径和内容，指纹、显示路径与原文件一致
+     */
+    static class Preloaded extends SourceFile {
+        private final SourceFile original;
+        private final byte[] bytes;
+
+        Preloaded(SourceFile original, byte[] bytes) {
+            super(original.relativePath);
+            this.original = original;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] readBytes() {
+            return bytes;
+        }
+
+        @Override
+        String fingerprint() {
+            return original.fingerprint();
+        }
+
+        @Override
+        public String displayPath() {
+            return original.displayPath();
+        }
+
+        @Override
+        public String systemId() {
+            return original.systemId();
+        }
+    }
+
+    /**
+     * 磁盘文件
+     */
+    static class FileSource extends SourceFile {
+        final File file;
+
+        FileSource(File file, String relativePath) {
+            super(relativePath);
+            this.file = file;
+        }
+
+        @Override
+        public long length() {
+            return file.length();
+        }
+
+        @Override
+        public byte[] readBytes() throws Exception {
+            return Files.readAllBytes(file.toPath());
+        }
+
+        @Override
+        public InputStream openStream() throws Exception {
+            return new BufferedInputStream(Files.newInputStream(file.toPath()));
+        }
+
+        @Override
+        String fingerprint() {
+            return "file:" + relativePath + "|" + file.length() + "|" + file.lastModified();
+        }
+
+        @Override
+        public String displayPath() {
+            return file.getAbsolutePath();
+        }
+
+        @Override
+        public String systemId() {
+            return file.toURI().toString();
+        }
+    }
+}
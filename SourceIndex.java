@@ -0,0 +1,481 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 源码全文/标识符索引：每个文件的标识符（不区分大小写）→ 出现的行号，写成磁盘上的倒排索引
+ * <p>
+ * 分词在提取阶段完成（与结构化提取共用同一次文件读取），结果随FileExtraction进入增量缓存，
+ * 重新扫描时只有变化的文件才会重新分词，倒排文件由缓存中的分词结果直接重建。
+ * <p>
+ * 文件格式：词条按字典序顺序存放（词条、文件数、各文件的文件号差值和行号差值，变长整数编码），
+ * 每BLOCK_SIZE个词条记一个稀疏索引项；文件路径表带偏移数组。查询时只读取尾部、稀疏索引、
+ * 命中的词条块和命中文件的路径，不加载整个索引。
+ */
+public class SourceIndex {
+
+    private static final int MAGIC = 0x53524349;
+    private static final int VERSION = 1;
+    // 稀疏索引间隔（词条数）
+    private static final int BLOCK_SIZE = 64;
+    // 尾部：路径偏移表位置、文件数、稀疏索引位置、词条数、MAGIC
+    private static final int FOOTER_SIZE = 8 + 4 + 8 + 4 + 4;
+    // 前缀查询最多展开的词条数
+    private static final int MAX_PREFIX_TERMS = 1000;
+
+    // ===================== 分词 =====================
+
+    /**
+     * 提取文本中的标识符（字母/下划线/$开头），统一小写，按词条记录行号（升序去重）
+     */
+    static FileTokens tokenize(String content) {
+        Map<String, List<Integer>> lines = new HashMap<>();
+        ScanBudget budget = ScanBudget.current();
+        int line = 1;
+        int length = content.length();
+        int i = 0;
+        while (i < length) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                line++;
+                i++;
+                if (budget != null) {
+                    budget.tick();
+                }
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(content.charAt(i))) {
+                    i++;
+                }
+                String token = content.substring(start, i).toLowerCase();
+                List<Integer> tokenLines = lines.computeIfAbsent(token, k -> new ArrayList<>());
+                if (tokenLines.isEmpty() || tokenLines.get(tokenLines.size() - 1) != line) {
+                    tokenLines.add(line);
+                }
+            } else {
+                i++;
+            }
+        }
+
+        String[] tokens = lines.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        int[][] tokenLines = new int[tokens.length][];
+        for (int t = 0; t < tokens.length; t++) {
+            List<Integer> list = lines.get(tokens[t]);
+            tokenLines[t] = new int[list.size()];
+            for (int l = 0; l < list.size(); l++) {
+                tokenLines[t][l] = list.get(l);
+            }
+        }
+        return new FileTokens(tokens, tokenLines);
+    }
+
+    // ===================== 写索引 =====================
+
+    /**
+     * 由各文件的分词结果重建倒排索引文件（先写临时文件再替换）
+     */
+    static void write(File indexFile, List<String> paths, List<FileTokens> files) throws Exception {
+        // 词条 → 倒排记录（按文件号升序追加）
+        Map<String, Postings> postings = new HashMap<>();
+        for (int doc = 0; doc < files.size(); doc++) {
+            FileTokens tokens = files.get(doc);
+            if (tokens == null) {
+                continue;
+            }
+            for (int t = 0; t < tokens.tokens.length; t++) {
+                postings.computeIfAbsent(tokens.tokens[t], k -> new Postings()).add(doc, tokens.lines[t]);
+            }
+        }
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+
+        File tmp = new File(indexFile.getAbsolutePath() + ".tmp");
+        try (CountingOutput counter = new CountingOutput(new BufferedOutputStream(new FileOutputStream(tmp), 1 << 16));
+             DataOutputStream out = new DataOutputStream(counter)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            List<String> blockTerms = new ArrayList<>();
+            List<Long> blockOffsets = new ArrayList<>();
+            for (int t = 0; t < terms.length; t++) {
+                if (t % BLOCK_SIZE == 0) {
+                    blockTerms.add(terms[t]);
+                    blockOffsets.add(counter.count);
+                }
+                Postings p = postings.get(terms[t]);
+                out.writeUTF(terms[t]);
+                writeVarInt(out, p.docCount);
+                writeVarInt(out, p.bytes.size());
+                p.bytes.writeTo(out);
+            }
+
+            long termsEnd = counter.count;
+            long[] pathOffsets = new long[paths.size()];
+            for (int i = 0; i < paths.size(); i++) {
+                pathOffsets[i] = counter.count;
+                out.writeUTF(paths.get(i));
+            }
+            long pathTableStart = counter.count;
+            for (long offset : pathOffsets) {
+                out.writeLong(offset);
+            }
+
+            long blockIndexStart = counter.count;
+            out.writeInt(blockTerms.size());
+            for (int b = 0; b < blockTerms.size(); b++) {
+                out.writeUTF(blockTerms.get(b));
+                out.writeLong(blockOffsets.get(b));
+            }
+            // 最后一个块的结束位置
+            out.writeLong(termsEnd);
+
+            out.writeLong(pathTableStart);
+            out.writeInt(paths.size());
+            out.writeLong(blockIndexStart);
+            out.writeInt(terms.length);
+            out.writeInt(MAGIC);
+        }
+        if (indexFile.exists() && !indexFile.delete()) {
+            throw new RuntimeException("❌ 无法覆盖源码索引：" + indexFile.getAbsolutePath());
+        }
+        if (!tmp.renameTo(indexFile)) {
+            throw new RuntimeException("❌ 无法写入源码索引：" + indexFile.getAbsolutePath());
+        }
+        System.out.println("✅ 源码索引已保存：" + indexFile.getAbsolutePath() + "（" + paths.size() + "个文件，" + terms.length + "个词条）");
+    }
+
+    // ===================== 查询 =====================
+
+    /**
+     * 命令行入口：search <索引文件> <查询词>...
+     * <p>
+     * 查询词：标识符（如trackIn）、前缀（trackIn*）、同一行出现的多个标识符（lotManager.trackIn，可用于查方法调用点）；
+     * 多个查询词要求出现在同一文件中，输出 文件:行号
+     */
+    static void run(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("❌ 用法：search <索引文件> <查询词>...（如 lotManager.trackIn、trackIn*）");
+            return;
+        }
+        long start = System.nanoTime();
+        Map<String, TreeSet<Integer>> hits;
+        try (Reader reader = new Reader(new File(args[0]))) {
+            hits = reader.query(Arrays.copyOfRange(args, 1, args.length));
+        }
+        int lineCount = 0;
+        for (Map.Entry<String, TreeSet<Integer>> entry : hits.entrySet()) {
+            for (Integer line : entry.getValue()) {
+                System.out.println(entry.getKey() + ":" + line);
+                lineCount++;
+            }
+        }
+        System.out.println(String.format("共%d个文件、%d行（耗时%.1fms）", hits.size(), lineCount, (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * 索引读取：按需读取词条块和路径，可连续执行多次查询
+     */
+    static class Reader implements AutoCloseable {
+        private final RandomAccessFile file;
+        private final long pathTableStart;
+        private final String[] blockTerms;
+        // 各块起止位置（blockOffsets[b]~blockOffsets[b+1]）
+        private final long[] blockOffsets;
+
+        Reader(File indexFile) throws Exception {
+            if (!indexFile.isFile()) {
+                throw new RuntimeException("❌ 源码索引不存在：" + indexFile.getAbsolutePath());
+            }
+            file = new RandomAccessFile(indexFile, "r");
+            file.seek(0);
+            if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+                file.close();
+                throw new RuntimeException("❌ 源码索引格式不符，请重新扫描生成：" + indexFile.getAbsolutePath());
+            }
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(read(file.length() - FOOTER_SIZE, FOOTER_SIZE)));
+            pathTableStart = footer.readLong();
+            footer.readInt();
+            long blockIndexStart = footer.readLong();
+
+            DataInputStream blocks = new DataInputStream(new ByteArrayInputStream(
+                    read(blockIndexStart, (int) (file.length() - FOOTER_SIZE - blockIndexStart))));
+            int blockCount = blocks.readInt();
+            blockTerms = new String[blockCount];
+            blockOffsets = new long[blockCount + 1];
+            for (int b = 0; b < blockCount; b++) {
+                blockTerms[b] = blocks.readUTF();
+                blockOffsets[b] = blocks.readLong();
+            }
+            blockOffsets[blockCount] = blocks.readLong();
+        }
+
+        /**
+         * 执行查询，返回 文件路径 → 命中行号（文件按索引顺序）
+         */
+        Map<String, TreeSet<Integer>> query(String[] expressions) throws Exception {
+            Map<Integer, TreeSet<Integer>> result = null;
+            for (String expression : expressions) {
+                Map<Integer, TreeSet<Integer>> hits = evaluate(expression.trim());
+                if (result == null) {
+                    result = hits;
+                } else {
+                    // 多个查询词：文件级求交，行号合并
+                    Map<Integer, TreeSet<Integer>> merged = new TreeMap<>();
+                    for (Map.Entry<Integer, TreeSet<Integer>> entry : result.entrySet()) {
+                        TreeSet<Integer> other = hits.get(entry.getKey());
+                        if (other != null) {
+                            entry.getValue().addAll(other);
+                            merged.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    result = merged;
+                }
+            }
+            Map<String, TreeSet<Integer>> byPath = new LinkedHashMap<>();
+            for (Map.Entry<Integer, TreeSet<Integer>> entry : result.entrySet()) {
+                byPath.put(path(entry.getKey()), entry.getValue());
+            }
+            return byPath;
+        }
+
+        private Map<Integer, TreeSet<Integer>> evaluate(String expression) throws Exception {
+            String[] parts = expression.split("\\.");
+            Map<Integer, TreeSet<Integer>> result = null;
+            for (String part : parts) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                Map<Integer, TreeSet<Integer>> hits = part.endsWith("*")
+                        ? prefix(part.substring(0, part.length() - 1).toLowerCase())
+                        : term(part.toLowerCase());
+                if (result == null) {
+                    result = hits;
+                } else {
+                    // 点号连接的多个标识符：同一行出现
+                    Map<Integer, TreeSet<Integer>> merged = new TreeMap<>();
+                    for (Map.Entry<Integer, TreeSet<Integer>> entry : result.entrySet()) {
+                        TreeSet<Integer> other = hits.get(entry.getKey());
+                        if (other != null) {
+                            entry.getValue().retainAll(other);
+                            if (!entry.getValue().isEmpty()) {
+                                merged.put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                    result = merged;
+                }
+            }
+            return result == null ? new TreeMap<Integer, TreeSet<Integer>>() : result;
+        }
+
+        private Map<Integer, TreeSet<Integer>> term(String term) throws Exception {
+            Map<Integer, TreeSet<Integer>> hits = new TreeMap<>();
+            int block = findBlock(term);
+            if (block < 0) {
+                return hits;
+            }
+            DataInputStream in = block(block);
+            while (in.available() > 0) {
+                String current = in.readUTF();
+                int cmp = current.compareTo(term);
+                if (cmp == 0) {
+                    readPostings(in, hits);
+                    break;
+                }
+                if (cmp > 0) {
+                    break;
+                }
+                skipPostings(in);
+            }
+            return hits;
+        }
+
+        private Map<Integer, TreeSet<Integer>> prefix(String prefix) throws Exception {
+            Map<Integer, TreeSet<Integer>> hits = new TreeMap<>();
+            int expanded = 0;
+            for (int b = Math.max(findBlock(prefix), 0); b < blockTerms.length; b++) {
+                DataInputStream in = block(b);
+                while (in.available() > 0) {
+                    String current = in.readUTF();
+                    if (current.startsWith(prefix)) {
+                        if (++expanded > MAX_PREFIX_TERMS) {
+                            System.out.println("⚠️  前缀" + prefix + "匹配的词条超过" + MAX_PREFIX_TERMS + "个，只返回前" + MAX_PREFIX_TERMS + "个");
+                            return hits;
+                        }
+                        readPostings(in, hits);
+                    } else if (current.compareTo(prefix) > 0) {
+                        return hits;
+                    } else {
+                        skipPostings(in);
+                    }
+                }
+            }
+            return hits;
+        }
+
+        /**
+         * 最后一个首词条不大于term的块
+         */
+        private int findBlock(String term) {
+            int low = 0;
+            int high = blockTerms.length - 1;
+            int found = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (blockTerms[mid].compareTo(term) <= 0) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        private DataInputStream block(int block) throws IOException {
+            long start = blockOffsets[block];
+            return new DataInputStream(new ByteArrayInputStream(read(start, (int) (blockOffsets[block + 1] - start))));
+        }
+
+        private void readPostings(DataInputStream in, Map<Integer, TreeSet<Integer>> hits) throws IOException {
+            int docCount = readVarInt(in);
+            readVarInt(in);
+            int doc = 0;
+            for (int d = 0; d < docCount; d++) {
+                doc += readVarInt(in);
+                int lineCount = readVarInt(in);
+                TreeSet<Integer> lines = hits.computeIfAbsent(doc, k -> new TreeSet<>());
+                int line = 0;
+                for (int l = 0; l < lineCount; l++) {
+                    line += readVarInt(in);
+                    lines.add(line);
+                }
+            }
+        }
+
+        private void skipPostings(DataInputStream in) throws IOException {
+            readVarInt(in);
+            int length = readVarInt(in);
+            if (in.skipBytes(length) != length) {
+                throw new EOFException("源码索引已损坏");
+            }
+        }
+
+        private String path(int doc) throws IOException {
+            long offset = new DataInputStream(new ByteArrayInputStream(read(pathTableStart + 8L * doc, 8))).readLong();
+            file.seek(offset);
+            return file.readUTF();
+        }
+
+        private byte[] read(long offset, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            file.seek(offset);
+            file.readFully(bytes);
+            return bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+    }
+
+    // ===================== 编码 =====================
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 单个文件的分词结果：词条（升序、小写）及各自的行号，随提取结果进入增量缓存
+     */
+    static class FileTokens implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final String[] tokens;
+        final int[][] lines;
+
+        FileTokens(String[] tokens, int[][] lines) {
+            this.tokens = tokens;
+            this.lines = lines;
+        }
+    }
+
+    /**
+     * 构建中的单个词条倒排记录：文件号差值、行数、行号差值（变长整数）
+     */
+    private static class Postings {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        int docCount;
+        int lastDoc;
+
+        void add(int doc, int[] lines) throws IOException {
+            writeVarInt(out, doc - lastDoc);
+            writeVarInt(out, lines.length);
+            int last = 0;
+            for (int line : lines) {
+                writeVarInt(out, line - last);
+                last = line;
+            }
+            lastDoc = doc;
+            docCount++;
+        }
+    }
+
+    /**
+     * 记录已写出字节数（位于DataOutputStream与缓冲流之间，计数即文件偏移）
+     */
+    private static class CountingOutput extends java.io.FilterOutputStream {
+        long count;
+
+        CountingOutput(java.io.OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
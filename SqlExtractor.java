@@ -0,0 +1,332 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * SQL清单：iBatis sqlMap / MyBatis mapper XML中的语句，以及DaoImpl方法体内的SQL字符串和语句ID引用
+ * <p>
+ * mapper文件用StAX流式读取（不构建DOM，不加载外部DTD），根元素不是mapper/sqlMap的XML读到根元素即停止；
+ * 每条语句按FROM/JOIN/INTO/UPDATE/USING后的表名列出涉及的表，&lt;include refid&gt;引用的同文件&lt;sql&gt;片段一并计入。
+ */
+public class SqlExtractor {
+
+    // 语句元素（MyBatis：select/insert/update/delete；iBatis另有statement/procedure）
+    private static final Set<String> STATEMENT_ELEMENTS = new HashSet<>(Arrays.asList(
+            "select", "insert", "update", "delete", "statement", "procedure"));
+    // 表名之后不再是表名/别名的关键字
+    private static final Set<String> SQL_KEYWORDS = new HashSet<>(Arrays.asList(
+            "select", "from", "where", "group", "order", "by", "having", "union", "all", "join", "inner", "left", "right",
+            "outer", "full", "cross", "natural", "on", "using", "set", "values", "value", "as", "limit", "offset", "for",
+            "connect", "start", "with", "minus", "intersect", "except", "fetch", "when", "then", "else", "end", "and",
+            "or", "not", "into", "partition", "returning", "nowait", "wait", "skip", "lock", "update", "delete", "insert",
+            "merge", "dual", "lateral", "window", "table"));
+    // FROM是函数参数而不是表来源：extract(year from d)、trim(' ' from s)等
+    private static final Set<String> FROM_FUNCTIONS = new HashSet<>(Arrays.asList(
+            "extract", "trim", "substring", "position", "overlay"));
+    // #{...}、${...}（MyBatis），#prop#、$prop$（iBatis）
+    private static final Pattern PARAM_PATTERN = Pattern.compile("[#$]\\{[^}]*}|#[\\w.\\[\\]:=,]+#|\\$[\\w.\\[\\]]+\\$");
+    private static final Pattern SQL_START_PATTERN = Pattern.compile(
+            "\\s*\\(?\\s*(select|insert|update|delete|merge|with)\\b.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern STATEMENT_ID_PATTERN = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[\\w$]+)*");
+    private static final int PREVIEW_LENGTH = 200;
+
+    // XMLInputFactory不保证线程安全，每个线程一个（压缩包条目可能并发提取）；web.xml、Tiles定义的读取共用
+    static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = ThreadLocal.withInitial(() -> {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        return factory;
+    });
+
+    /**
+     * 一条mapper语句（解析完整个文件后才能展开include）
+     */
+    private static class Statement {
+        final String element;
+        final String id;
+        final int line;
+        final StringBuilder text = new StringBuilder();
+        final List<String> includes = new ArrayList<>();
+
+        Statement(String element, String id, int line) {
+            this.element = element;
+            this.id = id;
+            this.line = line;
+        }
+    }
+
+    static boolean isXmlFile(String fileName) {
+        return fileName.toLowerCase().endsWith(".xml");
+    }
+
+    /**
+     * 流式读取mapper/sqlMap文件，每条语句一行；不是mapper的XML返回空列表
+     */
+    static List<Map<String, String>> parseMapper(SourceFile source) throws Exception {
+        List<Map<String, String>> rows = new ArrayList<>();
+        try (InputStream in = source.openStream()) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.get().createXMLStreamReader(source.systemId(), in);
+            try {
+                parseMapper(reader, source, rows);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // 读不到XML声明/根元素（空文件、编码无法识别）：按非mapper处理
+        }
+        return rows;
+    }
+
+    private static void parseMapper(XMLStreamReader reader, SourceFile source, List<Map<String, String>> rows)
+            throws XMLStreamException {
+        String kind = null;
+        String namespace = "";
+        int depth = 0;
+        Statement current = null;
+        List<Statement> statements = new ArrayList<>();
+        Map<String, Statement> fragments = new HashMap<>();
+        ScanBudget budget = ScanBudget.current();
+
+        while (true) {
+            if (budget != null) {
+                budget.tick();
+            }
+            int event;
+            try {
+                if (!reader.hasNext()) {
+                    break;
+                }
+                event = reader.next();
+            } catch (XMLStreamException e) {
+                // 非良构XML、非UTF-8且未声明编码等：已解析的语句照常输出，不影响其他文件
+                if (kind != null) {
+                    System.err.println("⚠️ mapper文件解析中断：" + source.displayPath() + "，" + e.getMessage());
+                }
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String element = reader.getLocalName();
+                if (depth == 1) {
+                    if ("mapper".equals(element)) {
+                        kind = "MyBatis";
+                    } else if ("sqlMap".equals(element)) {
+                        kind = "iBatis";
+                    } else {
+                        return;
+                    }
+                    namespace = attribute(reader, "namespace");
+                } else if (depth == 2 && (STATEMENT_ELEMENTS.contains(element) || "sql".equals(element))) {
+                    current = new Statement(element, attribute(reader, "id"), reader.getLocation().getLineNumber());
+                } else if (current != null) {
+                    if ("include".equals(element)) {
+                        String refid = attribute(reader, "refid");
+                        current.includes.add(refid);
+                        current.text.append(" <include refid=\"").append(refid).append("\"/>");
+                    }
+                    current.text.append(' ');
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 2 && current != null) {
+                    if ("sql".equals(current.element)) {
+                        fragments.put(current.id, current);
+                    } else {
+                        statements.add(current);
+                    }
+                    current = null;
+                }
+                depth--;
+            } else if (current != null && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                current.text.append(reader.getText());
+            }
+        }
+
+        for (Statement statement : statements) {
+            Set<String> tables = new TreeSet<>(extractTables(statement.text.toString()));
+            collectIncludedTables(statement, namespace, fragments, tables, new HashSet<>());
+            Map<String, String> map = new HashMap<>();
+            map.put("source", kind);                                 // MyBatis/iBatis/DaoImpl内联SQL
+            map.put("namespace", namespace);                         // mapper命名空间
+            map.put("statementId", statement.id);                    // 语句ID
+            map.put("statementType", statement.element);             // select/insert/update/delete...
+            map.put("tables", String.join(", ", tables));            // 涉及的表
+            map.put("callers", "");                                  // 汇总时填写
+            map.put("sqlPreview", preview(statement.text.toString()));
+            map.put("fileRelativePath", source.relativePath);
+            map.put("line", String.valueOf(statement.line));
+            rows.add(map);
+        }
+    }
+
+    /**
+     * 展开&lt;include refid&gt;：同文件的sql片段（refid可带本文件命名空间前缀），片段可再引用片段
+     */
+    private static void collectIncludedTables(Statement statement, String namespace, Map<String, Statement> fragments,
+                                              Set<String> tables, Set<String> visited) {
+        for (String refid : statement.includes) {
+            String id = !namespace.isEmpty() && refid.startsWith(namespace + ".") ? refid.substring(namespace.length() + 1) : refid;
+            Statement fragment = fragments.get(id);
+            if (fragment != null && visited.add(id)) {
+                tables.addAll(extractTables(fragment.text.toString()));
+                collectIncludedTables(fragment, namespace, fragments, tables, visited);
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value.trim();
+    }
+
+    /**
+     * DaoImpl方法体内的字符串：SQL写入sqlRows（每个方法内按出现顺序编号），形如语句ID的写入refRows，汇总时与mapper语句匹配
+     */
+    static void parseDaoLiterals(WiringExtractor.WiringScan wiring, String relativePath,
+                                 List<Map<String, String>> sqlRows, List<Map<String, String>> refRows) {
+        Map<String, Integer> sqlCountByMethod = new HashMap<>();
+        Set<String> refs = new HashSet<>();
+        for (WiringExtractor.StringLiteral literal : wiring.literals) {
+            String text = literal.text.toString().trim();
+            String caller = wiring.typeName + "." + literal.method;
+            if (SQL_START_PATTERN.matcher(text).matches()) {
+                List<String> tables = extractTables(text);
+                if (tables.isEmpty()) {
+                    continue;
+                }
+                int count = sqlCountByMethod.merge(literal.method, 1, Integer::sum);
+                Map<String, String> map = new HashMap<>();
+                map.put("source", "DaoImpl内联SQL");
+                map.put("namespace", wiring.typeName);
+                map.put("statementId", count == 1 ? literal.method : literal.method + "#" + count);
+                map.put("statementType", text.replaceFirst("^[\\s(]*", "").split("\\s+")[0].toLowerCase());
+                map.put("tables", String.join(", ", new TreeSet<>(tables)));
+                map.put("callers", caller);
+                map.put("sqlPreview", preview(text));
+                map.put("fileRelativePath", relativePath);
+                map.put("line", String.valueOf(literal.line));
+                sqlRows.add(map);
+            } else if (text.length() <= PREVIEW_LENGTH && STATEMENT_ID_PATTERN.matcher(text).matches()
+                    && refs.add(caller + " " + text)) {
+                Map<String, String> map = new HashMap<>();
+                map.put("caller", caller);
+                map.put("statementId", text);
+                refRows.add(map);
+            }
+        }
+    }
+
+    /**
+     * 提取SQL涉及的表（大写，保留schema前缀，去掉引号），按出现顺序、不去重
+     */
+    static List<String> extractTables(String sql) {
+        List<String> tokens = tokenize(PARAM_PATTERN.matcher(sql).replaceAll(" ? "));
+        List<String> tables = new ArrayList<>();
+        // 每层括号前的函数名，用于识别extract(... from ...)
+        Deque<String> functions = new ArrayDeque<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i).toLowerCase();
+            String previous = i > 0 ? tokens.get(i - 1).toLowerCase() : "";
+            if ("(".equals(token)) {
+                functions.push(previous);
+                continue;
+            }
+            if (")".equals(token)) {
+                functions.poll();
+                continue;
+            }
+            boolean tableSource = "from".equals(token) || "join".equals(token) || "into".equals(token)
+                    || "using".equals(token) || ("table".equals(token) && "truncate".equals(previous))
+                    || ("update".equals(token) && !"for".equals(previous) && !"key".equals(previous));
+            if (!tableSource || ("from".equals(token) && FROM_FUNCTIONS.contains(functions.peek()))) {
+                continue;
+            }
+            int j = i + 1;
+            while (j < tokens.size() && isTableName(tokens.get(j))) {
+                String table = normalizeTable(tokens.get(j));
+                j++;
+                // 别名：[as] alias
+                if (j < tokens.size() && "as".equalsIgnoreCase(tokens.get(j))) {
+                    j++;
+                }
+                if (j < tokens.size() && isTableName(tokens.get(j))) {
+                    j++;
+                }
+                // UPDATE t [alias] SET：没有SET的"update xxx"多为日志、提示文字
+                if ("update".equals(token) && (j >= tokens.size() || !"set".equalsIgnoreCase(tokens.get(j)))) {
+                    break;
+                }
+                tables.add(table);
+                // FROM a x, b y
+                if (!"from".equals(token) || j >= tokens.size() || !",".equals(tokens.get(j))) {
+                    break;
+                }
+                j++;
+            }
+        }
+        return tables;
+    }
+
+    private static boolean isTableName(String token) {
+        char first = token.charAt(0);
+        return (Character.isLetter(first) || first == '_' || first == '"' || first == '`' || first == '[')
+                && !SQL_KEYWORDS.contains(token.toLowerCase());
+    }
+
+    private static String normalizeTable(String token) {
+        return token.replaceAll("[\"`\\[\\]]", "").toUpperCase();
+    }
+
+    /**
+     * 切分为标识符（含schema.table、带引号的标识符）和单个符号；字符串常量整体跳过
+     */
+    private static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'') {
+                int end = sql.indexOf('\'', i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '"' || c == '`' || c == '[') {
+                int start = i;
+                while (i < length) {
+                    char ch = sql.charAt(i);
+                    if (ch == '"' || ch == '`' || ch == '[') {
+                        char close = ch == '[' ? ']' : ch;
+                        int end = sql.indexOf(close, i + 1);
+                        i = end < 0 ? length : end + 1;
+                    } else if (Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '#' || ch == '.') {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                tokens.add(sql.substring(start, i));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static String preview(String sql) {
+        String text = sql.replaceAll("\\s+", " ").trim();
+        return text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH) + "..." : text;
+    }
+}
@@ -0,0 +1,61 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 各阶段的耗时和堆占用：一个阶段结束时记下耗时，下一个阶段随即开始计时
+ * <p>
+ * 提取是按需进行的（流水线关闭时由最先用到文件的阶段提取），阶段耗时包含该阶段触发的提取。
+ * 堆占用为阶段结束时的存活对象（先System.gc()再取已用堆），只在需要时开启（自检/性能门禁），
+ * 日常扫描不额外触发GC。
+ */
+public class StageStats {
+
+    private final boolean measureHeap;
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+    private long stageStart = System.nanoTime();
+
+    StageStats(boolean measureHeap) {
+        this.measureHeap = measureHeap;
+    }
+
+    /**
+     * 当前阶段结束（同名阶段多次结束时累加耗时，堆占用取最后一次）
+     */
+    void end(String stage) {
+        long now = System.nanoTime();
+        long[] stats = stages.computeIfAbsent(stage, k -> new long[]{0, -1});
+        stats[0] += now - stageStart;
+        if (measureHeap) {
+            System.gc();
+            stats[1] = memory.getHeapMemoryUsage().getUsed();
+        }
+        // GC时间不计入下一阶段
+        stageStart = System.nanoTime();
+    }
+
+    /**
+     * 已结束的阶段（执行顺序）
+     */
+    public List<String> getStages() {
+        return Collections.unmodifiableList(new ArrayList<>(stages.keySet()));
+    }
+
+    public long getMillis(String stage) {
+        long[] stats = stages.get(stage);
+        return stats == null ? 0 : stats[0] / 1000000L;
+    }
+
+    /**
+     * 阶段结束时的存活堆（字节），未开启堆统计时为-1
+     */
+    public long getHeapBytes(String stage) {
+        long[] stats = stages.get(stage);
+        return stats == null ? -1 : stats[1];
+    }
+}
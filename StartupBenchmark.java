@@ -0,0 +1,133 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 启动基准：bench &lt;扫描目录&gt; [次数] [AppCDS归档]
+ * <p>
+ * 每种组合启动独立的JVM完整跑一次扫描（加载配置 → 扫描 → 写出结果 → 退出），计时即"从启动到拿到结果"，
+ * 对比默认JVM参数/快速启动参数（只用C1编译、SerialGC、AppCDS归档）与Excel/CSV输出。
+ * 第一次运行不计入（预热文件系统缓存），结果取中位数。
+ */
+public class StartupBenchmark {
+
+    // 小范围扫描（约100个文件）从启动到输出完成的目标耗时
+    static final long TARGET_MILLIS = 300;
+    // 快速启动的JVM参数：短进程里C2编译来不及回本，SerialGC初始化最快
+    static final List<String> FAST_START_FLAGS = Arrays.asList("-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-Xshare:auto");
+
+    public static void run(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("❌ 用法：bench <扫描目录> [次数，默认10] [AppCDS归档，默认target/app.jsa]");
+            return;
+        }
+        File scanDir = new File(args[0]);
+        if (!scanDir.isDirectory()) {
+            System.err.println("❌ 扫描目录不存在：" + scanDir.getAbsolutePath());
+            return;
+        }
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File archive = new File(args.length > 2 ? args[2] : "target/app.jsa");
+
+        File workDir = File.createTempFile("bench-", "");
+        if (!workDir.delete() || !workDir.mkdirs()) {
+            throw new RuntimeException("❌ 无法创建临时目录：" + workDir.getAbsolutePath());
+        }
+        try {
+            File config = new File(workDir, "bench.properties");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(config), StandardCharsets.UTF_8)) {
+                writer.write("scan.base.dir=" + scanDir.getAbsolutePath().replace('\\', '/') + "\n");
+                writer.write("progress.interval.seconds=0\n");
+                writer.write("checkpoint.interval.seconds=0\n");
+            }
+            List<String> fastFlags = new ArrayList<>(FAST_START_FLAGS);
+            if (archive.isFile()) {
+                fastFlags.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            } else {
+                System.out.println("⚠️  未找到AppCDS归档（mvn -Pfast-start package生成）：" + archive.getPath());
+            }
+            String excel = "-Dexcel.output.path=" + new File(workDir, "out.xlsx").getAbsolutePath();
+            String csv = "-Dcsv.output.dir=" + new File(workDir, "csv").getAbsolutePath();
+
+            System.out.println("扫描目录：" + scanDir.getAbsolutePath() + "，每种组合运行" + runs + "次（另预热1次）");
+            System.out.println(String.format("%-34s%10s%10s%10s", "组合", "中位数ms", "最小ms", "最大ms"));
+            bench("默认JVM参数 + Excel", Collections.<String>emptyList(), excel, config, workDir, runs);
+            bench("默认JVM参数 + CSV", Collections.<String>emptyList(), csv, config, workDir, runs);
+            bench("快速启动参数 + Excel", fastFlags, excel, config, workDir, runs);
+            long fast = bench("快速启动参数 + CSV", fastFlags, csv, config, workDir, runs);
+            System.out.println(fast <= TARGET_MILLIS
+                    ? "✅ 快速启动 + CSV 中位数" + fast + "ms，达到" + TARGET_MILLIS + "ms目标"
+                    : "⚠️ 快速启动 + CSV 中位数" + fast + "ms，超过" + TARGET_MILLIS + "ms目标");
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 运行一种组合，返回中位数耗时（毫秒）
+     */
+    private static long bench(String name, List<String> flags, String output, File config, File workDir, int runs) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        command.addAll(flags);
+        command.add("-Dconfig.file=" + config.getAbsolutePath());
+        command.add(output);
+        command.add("-cp");
+        command.add(absoluteClassPath());
+        command.add("CodeAnalysisTool");
+        ProcessBuilder builder = new ProcessBuilder(command).directory(workDir)
+                .redirectErrorStream(true).redirectOutput(new File(workDir, "run.log"));
+
+        long[] millis = new long[runs];
+        for (int i = -1; i < runs; i++) {
+            long start = System.nanoTime();
+            int exitCode = builder.start().waitFor();
+            long elapsed = (System.nanoTime() - start) / 1000000L;
+            if (exitCode != 0) {
+                List<String> log = Files.readAllLines(new File(workDir, "run.log").toPath(), StandardCharsets.UTF_8);
+                System.out.println("⚠️  " + name + "：进程退出码" + exitCode + "，最后输出：");
+                for (String line : log.subList(Math.max(0, log.size() - 5), log.size())) {
+                    System.out.println("    " + line);
+                }
+            }
+            if (i >= 0) {
+                millis[i] = elapsed;
+            }
+        }
+        Arrays.sort(millis);
+        long median = millis[runs / 2];
+        System.out.println(String.format("%-34s%10d%10d%10d", name, median, millis[0], millis[runs - 1]));
+        return median;
+    }
+
+    /**
+     * 当前classpath转为绝对路径（子进程在临时目录中运行；java -jar时classpath是相对路径的jar）
+     */
+    private static String absoluteClassPath() {
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        return classPath.toString();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,338 @@
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Struts模块与Tiles：web.xml中ActionServlet的config、config/&lt;模块&gt;参数声明各模块的配置文件，
+ * 配置文件（文件名不必含struts）和Tiles定义文件（TilesPlugin的definitions-config）按引用关系找到，
+ * forward指向的Tiles定义沿extends和put展开为具体JSP。
+ * <p>
+ * web.xml、Tiles定义用StAX流式读取；各文件的提取结果只与文件本身有关（与模块无关），
+ * 多个模块共用同一个配置文件时只解析一次，汇总时再加上各自的模块前缀。
+ */
+public class StrutsModules {
+
+    // web.xml中声明Struts配置的参数：config为默认模块，config/lot为/lot模块
+    private static final String CONFIG_PARAM = "config";
+    private static final String TILES_PARAM = "definitions-config";
+    // 未配置config参数时ActionServlet的默认配置文件
+    static final String DEFAULT_CONFIG = "/WEB-INF/struts-config.xml";
+
+    /**
+     * XML根元素名（读到根元素即停止），读不到时返回null
+     */
+    static String rootElement(SourceFile source) throws Exception {
+        try (InputStream in = source.openStream()) {
+            XMLStreamReader reader = SqlExtractor.XML_INPUT_FACTORY.get().createXMLStreamReader(source.systemId(), in);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                        return reader.getLocalName();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            // 非良构XML、空文件：交给调用方按文件名处理
+        }
+        return null;
+    }
+
+    static boolean isTilesRoot(String root) {
+        return "tiles-definitions".equals(root) || "component-definitions".equals(root);
+    }
+
+    /**
+     * 读取web.xml：Struts模块配置（module、configPath）和Tiles定义文件（configPath），路径为web应用内的路径
+     */
+    static void parseWebXml(SourceFile source, List<Map<String, String>> moduleRows, List<Map<String, String>> tilesRows)
+            throws Exception {
+        try (InputStream in = source.openStream()) {
+            XMLStreamReader reader = SqlExtractor.XML_INPUT_FACTORY.get().createXMLStreamReader(source.systemId(), in);
+            try {
+                String servletClass = null;
+                boolean defaultModuleDeclared = false;
+                String paramName = null;
+                String paramValue = null;
+                ScanBudget budget = ScanBudget.current();
+                while (reader.hasNext()) {
+                    if (budget != null) {
+                        budget.tick();
+                    }
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String element = reader.getLocalName();
+                        if ("servlet".equals(element)) {
+                            servletClass = null;
+                            defaultModuleDeclared = false;
+                        } else if ("servlet-class".equals(element)) {
+                            servletClass = reader.getElementText().trim();
+                        } else if ("init-param".equals(element) || "context-param".equals(element)) {
+                            paramName = null;
+                            paramValue = null;
+                        } else if ("param-name".equals(element)) {
+                            paramName = reader.getElementText().trim();
+                        } else if ("param-value".equals(element)) {
+                            paramValue = reader.getElementText().trim();
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String element = reader.getLocalName();
+                        if (("init-param".equals(element) || "context-param".equals(element))
+                                && paramName != null && paramValue != null) {
+                            if (CONFIG_PARAM.equals(paramName) || paramName.startsWith(CONFIG_PARAM + "/")) {
+                                String module = paramName.length() > CONFIG_PARAM.length()
+                                        ? paramName.substring(CONFIG_PARAM.length()) : "";
+                                defaultModuleDeclared |= module.isEmpty();
+                                for (String path : splitPaths(paramValue)) {
+                                    if (!path.toLowerCase().endsWith(".xml")) {
+                                        // 其他Servlet的同名参数
+                                        continue;
+                                    }
+                                    Map<String, String> map = new HashMap<>();
+                                    map.put("module", module);
+                                    map.put("configPath", path);
+                                    moduleRows.add(map);
+                                }
+                            } else if (TILES_PARAM.equals(paramName)) {
+                                addTilesConfig(tilesRows, paramValue);
+                            }
+                        } else if ("servlet".equals(element) && !defaultModuleDeclared
+                                && servletClass != null && servletClass.endsWith("ActionServlet")) {
+                            Map<String, String> map = new HashMap<>();
+                            map.put("module", "");
+                            map.put("configPath", DEFAULT_CONFIG);
+                            moduleRows.add(map);
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            System.err.println("⚠️ web.xml解析中断：" + source.displayPath() + "，" + e.getMessage());
+        }
+    }
+
+    static void addTilesConfig(List<Map<String, String>> tilesRows, String value) {
+        for (String path : splitPaths(value)) {
+            Map<String, String> map = new HashMap<>();
+            map.put("configPath", path);
+            tilesRows.add(map);
+        }
+    }
+
+    /**
+     * 读取Tiles定义文件（Tiles 1的definition path/page/template + put，Tiles 2的template + put-attribute）
+     */
+    static void parseTilesDefinitions(SourceFile source, List<Map<String, String>> definitionRows,
+                                      List<Map<String, String>> putRows) throws Exception {
+        try (InputStream in = source.openStream()) {
+            XMLStreamReader reader = SqlExtractor.XML_INPUT_FACTORY.get().createXMLStreamReader(source.systemId(), in);
+            try {
+                int depth = 0;
+                // 当前定义（嵌套在put中的匿名定义不单独登记）
+                String definition = null;
+                int definitionDepth = 0;
+                Map<String, String> put = null;
+                StringBuilder putText = new StringBuilder();
+                ScanBudget budget = ScanBudget.current();
+                while (reader.hasNext()) {
+                    if (budget != null) {
+                        budget.tick();
+                    }
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String element = reader.getLocalName();
+                        if ("definition".equals(element) && definition == null) {
+                            definition = attribute(reader, "name");
+                            definitionDepth = depth;
+                            String path = attribute(reader, "path");
+                            for (String alias : new String[]{"page", "template"}) {
+                                if (path.isEmpty()) {
+                                    path = attribute(reader, alias);
+                                }
+                            }
+                            Map<String, String> map = new HashMap<>();
+                            map.put("name", definition);
+                            map.put("extends", attribute(reader, "extends"));
+                            map.put("path", path);
+                            definitionRows.add(map);
+                        } else if (definition != null && depth == definitionDepth + 1
+                                && ("put".equals(element) || "put-attribute".equals(element))) {
+                            put = new HashMap<>();
+                            put.put("definition", definition);
+                            put.put("attribute", attribute(reader, "name"));
+                            put.put("value", attribute(reader, "value"));
+                            putText.setLength(0);
+                        }
+                    } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)
+                            && put != null && depth == definitionDepth + 1) {
+                        putText.append(reader.getText());
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (put != null && depth == definitionDepth + 1) {
+                            if (put.get("value").isEmpty()) {
+                                put.put("value", putText.toString().trim());
+                            }
+                            putRows.add(put);
+                            put = null;
+                        } else if (definition != null && depth == definitionDepth) {
+                            definition = null;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            System.err.println("⚠️ Tiles定义文件解析中断：" + source.displayPath() + "，" + e.getMessage());
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value.trim();
+    }
+
+    static List<String> splitPaths(String value) {
+        List<String> paths = new ArrayList<>();
+        for (String path : value.split("[,;\\s]+")) {
+            if (!path.isEmpty()) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 相对路径统一为/分隔，便于按web应用内的路径查找
+     */
+    static String normalizePath(String relativePath) {
+        return relativePath.replace('\\', '/');
+    }
+
+    /**
+     * web应用根目录（相对路径前缀，以/结尾或为空）：WEB-INF所在目录，不在WEB-INF下时为文件所在目录
+     */
+    static String webRoot(String relativePath) {
+        String path = normalizePath(relativePath);
+        int webInf = path.lastIndexOf("WEB-INF/");
+        if (webInf >= 0 && (webInf == 0 || path.charAt(webInf - 1) == '/')) {
+            return path.substring(0, webInf);
+        }
+        return path.substring(0, path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * web应用内的路径（/WEB-INF/struts-lot.xml）→ 扫描范围内的相对路径
+     */
+    static String resolve(String webRoot, String contextPath) {
+        String path = contextPath.trim();
+        while (path.startsWith("/") || path.startsWith("./")) {
+            path = path.substring(path.startsWith("/") ? 1 : 2);
+        }
+        return webRoot + path;
+    }
+
+    /**
+     * 一个模块可见的Tiles定义（来自一个或多个定义文件），定义名 → 展开后的JSP，按名称缓存
+     */
+    static class TilesDefinitions {
+        private final Map<String, Map<String, String>> definitions = new HashMap<>();
+        private final Map<String, Map<String, String>> puts = new HashMap<>();
+        private final Map<String, List<String>> expanded = new HashMap<>();
+
+        /**
+         * 添加一个定义文件的提取结果（同名定义以先添加的为准，与TilesPlugin按配置顺序加载一致）
+         */
+        void add(List<Map<String, String>> definitionRows, List<Map<String, String>> putRows) {
+            Set<String> added = new HashSet<>();
+            for (Map<String, String> row : definitionRows) {
+                if (!definitions.containsKey(row.get("name"))) {
+                    definitions.put(row.get("name"), row);
+                    added.add(row.get("name"));
+                }
+            }
+            for (Map<String, String> row : putRows) {
+                if (added.contains(row.get("definition"))) {
+                    puts.computeIfAbsent(row.get("definition"), k -> new LinkedHashMap<>())
+                            .put(row.get("attribute"), row.get("value"));
+                }
+            }
+            expanded.clear();
+        }
+
+        boolean isEmpty() {
+            return definitions.isEmpty();
+        }
+
+        boolean contains(String name) {
+            return name != null && definitions.containsKey(name);
+        }
+
+        /**
+         * 定义展开为JSP：布局模板 + 各put的JSP，put的值为其他定义时继续展开；extends继承父定义的模板和put（子定义覆盖）
+         */
+        List<String> expand(String name) {
+            List<String> result = expanded.get(name);
+            if (result == null) {
+                Set<String> jsps = new LinkedHashSet<>();
+                collect(name, jsps, new HashSet<>());
+                result = new ArrayList<>(jsps);
+                expanded.put(name, result);
+            }
+            return result;
+        }
+
+        private void collect(String name, Set<String> jsps, Set<String> visiting) {
+            if (!visiting.add(name)) {
+                // 循环extends/put引用
+                return;
+            }
+            // 祖先链（子定义在前），按由父到子的顺序叠加：属性保持父定义中的位置，值以子定义为准
+            List<String> chain = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (String current = name; definitions.containsKey(current) && seen.add(current); ) {
+                chain.add(current);
+                current = definitions.get(current).get("extends");
+            }
+            String template = "";
+            Map<String, String> attributes = new LinkedHashMap<>();
+            for (int i = chain.size() - 1; i >= 0; i--) {
+                Map<String, String> definition = definitions.get(chain.get(i));
+                if (!definition.get("path").isEmpty()) {
+                    template = definition.get("path");
+                }
+                Map<String, String> own = puts.get(chain.get(i));
+                if (own != null) {
+                    attributes.putAll(own);
+                }
+            }
+            addValue(template, jsps, visiting);
+            for (String value : attributes.values()) {
+                addValue(value, jsps, visiting);
+            }
+            visiting.remove(name);
+        }
+
+        private void addValue(String value, Set<String> jsps, Set<String> visiting) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            if (definitions.containsKey(value)) {
+                collect(value, jsps, visiting);
+            } else if (isPage(value)) {
+                jsps.add(value);
+            }
+        }
+
+        private static boolean isPage(String value) {
+            String lower = value.toLowerCase();
+            return lower.endsWith(".jsp") || lower.endsWith(".jspf") || lower.endsWith(".html") || lower.endsWith(".htm");
+        }
+    }
+}
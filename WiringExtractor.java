@@ -0,0 +1,700 @@
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Spring/SOFA装配清单：单次扫描Java源码，收集@Autowired、@Resource、@SofaReference、@SofaService、
+ * @Transactional等注解及其标注的字段/方法/类，输出"谁依赖谁"的边列表
+ * <p>
+ * 扫描时跳过注释和字符串字面量，注释掉的注解不再计入；注解参数按括号/花括号配对解析，
+ * 支持嵌套注解（如bindings = {@SofaServiceBinding(bindingType = "bolt")}）。
+ * <p>
+ * 同一次扫描中还记录顶层类型体内的方法声明（名称、参数类型、返回类型、行号），供接口方法清单使用；
+ * DaoImpl按需收集方法体内的字符串字面量（相邻的+拼接、StringBuilder.append拼接合并为一条），供SQL清单使用。
+ * 类型声明之前的import也在这里收集（注释掉的import不计入），供包依赖矩阵使用。
+ */
+public class WiringExtractor {
+
+    // 参与装配清单的注解（小写简单类名）
+    private static final Set<String> WIRING_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "autowired", "resource", "inject", "sofareference", "sofaservice",
+            "transactional", "service", "repository", "component"));
+    // 注入类注解：字段/setter上的类型即依赖类型
+    private static final Set<String> INJECTION_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "autowired", "resource", "inject", "sofareference"));
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "protected", "private", "static", "final", "transient", "volatile", "abstract", "synchronized",
+            "default", "native", "strictfp"));
+    // 类型声明（排除Xxx.class这类类字面量）
+    private static final Pattern TYPE_DECL_PATTERN = Pattern.compile("(?<![.\\w$])(class|interface|enum)\\s+([\\w$]+)");
+    private static final Pattern BINDING_TYPE_PATTERN = Pattern.compile("bindingtype\\s*=\\s*[\"']([^\"']+)['\"]", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RETURN_TYPE_PATTERN = Pattern.compile("[\\w$.]+(<[\\w$.,?<>\\[\\]&]*>)?(\\[\\])*");
+    private static final Pattern IMPLEMENTS_PATTERN = Pattern.compile("\\bimplements\\s+([^{]+)");
+    private static final Pattern EXTENDS_PATTERN = Pattern.compile("\\bextends\\s+([\\w$.]+)");
+    private static final Pattern TYPE_ARGUMENTS_PATTERN = Pattern.compile("<[^<>]*>");
+    // 两个字面量之间为拼接：+ 表达式 +、).append(...).append(、); sb.append(
+    private static final Pattern CONCAT_PATTERN = Pattern.compile(
+            "\\s*(\\+[^;{}]*|\\)[^;{}]*\\.\\s*append\\s*\\(|\\)\\s*;\\s*[\\w$]+\\s*\\.\\s*append\\s*\\()");
+
+    /**
+     * 单个文件的扫描结果：边列表 + ServiceImpl/ManagerImpl/DaoImpl使用的注解标记
+     */
+    static class WiringScan {
+        final List<Map<String, String>> edges = new ArrayList<>();
+        boolean hasService;
+        boolean hasTransactional;
+        boolean hasRepository;
+        // 第一个@SofaService的bindingType，null表示没有@SofaService
+        String sofaServiceBindingType;
+        // 顶层类型：名称、是否接口、实现的接口（简单类名）
+        String typeName;
+        boolean isInterface;
+        // 类的直接父类（按源码写法，可能带包名；已去掉泛型参数），接口/没有extends时为null
+        String superClass;
+        final List<String> implementedInterfaces = new ArrayList<>();
+        // 顶层类型体内声明的方法（不含构造方法、内部类的方法）
+        final List<MethodDecl> methods = new ArrayList<>();
+        // 方法体内的字符串字面量（仅collectLiterals时收集）
+        final List<StringLiteral> literals = new ArrayList<>();
+        // import的类型/包（去掉static和空白，通配符保留.*）及行号
+        final List<String> imports = new ArrayList<>();
+        final List<Integer> importLines = new ArrayList<>();
+        // 文件中出现过的注解（小写简单名，类、成员上的都算）
+        final Set<String> annotations = new LinkedHashSet<>();
+    }
+
+    /**
+     * 方法体内的字符串字面量，拼接的多段已合并
+     */
+    static class StringLiteral {
+        final String method;
+        final int line;
+        final StringBuilder text = new StringBuilder();
+
+        StringLiteral(String method, int line) {
+            this.method = method;
+            this.line = line;
+        }
+    }
+
+    /**
+     * 方法声明：参数类型保留泛型（去空白），signature为覆盖匹配用的擦除签名
+     */
+    static class MethodDecl {
+        final String name;
+        final String returnType;
+        final List<String> parameterTypes;
+        final int line;
+
+        MethodDecl(String name, String returnType, List<String> parameterTypes, int line) {
+            this.name = name;
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+            this.line = line;
+        }
+
+        /**
+         * 擦除签名：方法名(参数简单类名,...)，小写，去掉泛型；可变参数按数组处理
+         */
+        String signature() {
+            StringBuilder sb = new StringBuilder(name.toLowerCase()).append('(');
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                String type = parameterTypes.get(i).replaceAll("<.*>", "").replace("...", "[]");
+                sb.append(type.substring(type.lastIndexOf('.') + 1).toLowerCase());
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    private static class Annotation {
+        final String name;
+        final String args;
+        final int line;
+
+        Annotation(String name, String args, int line) {
+            this.name = name;
+            this.args = args;
+            this.line = line;
+        }
+    }
+
+    private final String content;
+    private final int length;
+    private int pos;
+    // 行号增量计算
+    private int linePos;
+    private int line = 1;
+    // 花括号深度：顶层类型体内为1，方法体内为2及以上
+    private int depth;
+    // 字面量收集：null表示不收集；currentMethod为当前所在方法体
+    private List<StringLiteral> literals;
+    private String pendingMethod;
+    private String currentMethod;
+    private StringLiteral lastLiteral;
+    private int lastLiteralEnd;
+
+    private WiringExtractor(String content) {
+        this.content = content;
+        this.length = content.length();
+    }
+
+    /**
+     * 扫描单个Java文件，collectLiterals为true时同时收集方法体内的字符串字面量
+     */
+    static WiringScan scan(String content, String relativePath, String packageName, boolean collectLiterals) {
+        return new WiringExtractor(content).run(relativePath, packageName, collectLiterals);
+    }
+
+    private WiringScan run(String relativePath, String packageName, boolean collectLiterals) {
+        WiringScan result = new WiringScan();
+        List<Annotation> pending = new ArrayList<>();
+        String ownerClass = null;
+        if (collectLiterals) {
+            literals = result.literals;
+        }
+        ScanBudget budget = ScanBudget.current();
+
+        while (pos < length) {
+            if (budget != null) {
+                budget.tick();
+            }
+            char c = content.charAt(pos);
+            if (c == '/' && pos + 1 < length && (content.charAt(pos + 1) == '/' || content.charAt(pos + 1) == '*')) {
+                skipComment();
+            } else if (c == '"' || c == '\'') {
+                literal(c);
+            } else if (c == '@') {
+                pos++;
+                String name = readQualifiedName();
+                if ("interface".equals(name)) {
+                    // 注解类型声明 @interface Xxx
+                    pending.clear();
+                    continue;
+                }
+                int annotationLine = lineAt(pos);
+                skipWhitespaceAndComments();
+                String args = "";
+                if (pos < length && content.charAt(pos) == '(') {
+                    int start = pos + 1;
+                    skipBalanced('(', ')');
+                    args = content.substring(start, pos - 1).trim();
+                }
+                String simpleName = name.substring(name.lastIndexOf('.') + 1);
+                if (!simpleName.isEmpty()) {
+                    result.annotations.add(simpleName.toLowerCase());
+                    pending.add(new Annotation(simpleName, args, annotationLine));
+                }
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = pos;
+                String header = readDeclarationHeader();
+                Matcher typeMatcher = TYPE_DECL_PATTERN.matcher(header);
+                boolean typeDeclaration = typeMatcher.find();
+                if (!typeDeclaration && ownerClass == null && depth == 0 && header.startsWith("import")
+                        && header.length() > 6 && Character.isWhitespace(header.charAt(6))) {
+                    String name = header.substring(6).trim();
+                    if (name.startsWith("static") && name.length() > 6 && Character.isWhitespace(name.charAt(6))) {
+                        name = name.substring(6);
+                    }
+                    result.imports.add(name.replaceAll("\\s+", "").intern());
+                    result.importLines.add(lineAt(start));
+                } else if (typeDeclaration && ownerClass == null && depth == 0) {
+                    ownerClass = typeMatcher.group(2);
+                    result.typeName = ownerClass;
+                    result.isInterface = "interface".equals(typeMatcher.group(1));
+                    if ("class".equals(typeMatcher.group(1))) {
+                        result.superClass = superClassName(header.substring(typeMatcher.end()));
+                    }
+                    Matcher implementsMatcher = IMPLEMENTS_PATTERN.matcher(header);
+                    if (implementsMatcher.find()) {
+                        for (String type : splitTopLevel(implementsMatcher.group(1), ',')) {
+                            String name = simpleTypeName(type);
+                            if (!name.isEmpty()) {
+                                result.implementedInterfaces.add(name);
+                            }
+                        }
+                    }
+                } else if (depth == 1 && ownerClass != null && !typeDeclaration && header.indexOf('(') > 0
+                        && pos < length && (content.charAt(pos) == '{' || content.charAt(pos) == ';')) {
+                    MethodDecl method = parseMethod(header, ownerClass, lineAt(start));
+                    if (method != null) {
+                        result.methods.add(method);
+                        if (content.charAt(pos) == '{') {
+                            pendingMethod = method.name;
+                        }
+                    }
+                }
+                if (!pending.isEmpty()) {
+                    String owner = ownerClass == null ? "" : ownerClass;
+                    for (Annotation annotation : pending) {
+                        handleAnnotation(result, annotation, header, typeDeclaration, owner, packageName, relativePath);
+                    }
+                    pending.clear();
+                }
+                // 保证前进（声明头为空时跳过当前字符）；方法体、初始化表达式中的注解在后续循环中照常扫描
+                pos = Math.max(pos, start + 1);
+            } else {
+                if (c == '{') {
+                    depth++;
+                    if (depth == 2 && pendingMethod != null) {
+                        currentMethod = pendingMethod;
+                    }
+                    pendingMethod = null;
+                } else if (c == '}') {
+                    depth--;
+                    if (depth < 2) {
+                        currentMethod = null;
+                    }
+                }
+                pos++;
+            }
+        }
+        return result;
+    }
+
+    private void handleAnnotation(WiringScan result, Annotation annotation, String header, boolean typeLevel,
+                                  String ownerClass, String packageName, String relativePath) {
+        String lowerName = annotation.name.toLowerCase();
+        switch (lowerName) {
+            case "service":
+                result.hasService = true;
+                break;
+            case "transactional":
+                result.hasTransactional = true;
+                break;
+            case "repository":
+                result.hasRepository = true;
+                break;
+            default:
+                break;
+        }
+        if (!WIRING_ANNOTATIONS.contains(lowerName)) {
+            return;
+        }
+
+        Map<String, String> attributes = parseAttributes(annotation.args);
+        String bindingType = extractBindingTypes(annotation.args);
+        if ("sofaservice".equals(lowerName) && result.sofaServiceBindingType == null) {
+            result.sofaServiceBindingType = bindingType.isEmpty() ? "未指定" : bindingType;
+        }
+
+        String memberKind;
+        String memberName;
+        String targetType;
+        if (typeLevel) {
+            memberKind = "类";
+            Matcher typeMatcher = TYPE_DECL_PATTERN.matcher(header);
+            memberName = typeMatcher.find() ? typeMatcher.group(2) : ownerClass;
+            Matcher implementsMatcher = IMPLEMENTS_PATTERN.matcher(header);
+            targetType = implementsMatcher.find() ? implementsMatcher.group(1).replaceAll("<[^>]*>", "").replaceAll("\\s+", "") : "";
+        } else {
+            int paren = header.indexOf('(');
+            if (paren >= 0) {
+                // 方法（setter注入时依赖类型取第一个参数类型）
+                memberKind = "方法";
+                memberName = lastWord(header.substring(0, paren));
+                String params = header.substring(paren + 1, header.lastIndexOf(')') > paren ? header.lastIndexOf(')') : header.length());
+                boolean injection = INJECTION_ANNOTATIONS.contains(lowerName) && !params.trim().isEmpty();
+                targetType = injection ? declaredType(splitTopLevel(params, ',').get(0)) : "";
+            } else {
+                memberKind = "字段";
+                memberName = lastWord(header);
+                targetType = declaredType(header);
+            }
+        }
+        // @SofaReference/@SofaService以interfaceType为准
+        String interfaceType = attributes.getOrDefault("interfaceType", "");
+        if (!interfaceType.isEmpty() && lowerName.startsWith("sofa")) {
+            targetType = interfaceType;
+        }
+
+        Map<String, String> edge = new HashMap<>();
+        edge.put("sourceClass", ownerClass);
+        edge.put("packageName", packageName);
+        edge.put("annotation", "@" + annotation.name);
+        edge.put("memberKind", memberKind);
+        edge.put("memberName", memberName);
+        edge.put("targetType", targetType);
+        edge.put("uniqueId", attributes.getOrDefault("uniqueId", ""));
+        edge.put("bindingType", bindingType);
+        edge.put("remote", isRemoteBinding(bindingType) ? "是" : "否");
+        edge.put("attributes", formatAttributes(attributes));
+        edge.put("fileRelativePath", relativePath);
+        edge.put("line", String.valueOf(annotation.line));
+        result.edges.add(edge);
+    }
+
+    /**
+     * 解析方法声明头（修饰符 [类型参数] 返回类型 方法名(参数) [throws ...]），构造方法、枚举常量返回null
+     */
+    private static MethodDecl parseMethod(String header, String ownerClass, int line) {
+        int paren = header.indexOf('(');
+        int close = header.lastIndexOf(')');
+        if (close < paren) {
+            return null;
+        }
+        String before = header.substring(0, paren).trim();
+        String name = lastWord(before);
+        if (name.isEmpty() || name.equals(ownerClass) || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            return null;
+        }
+        String prefix = before.substring(0, before.length() - name.length());
+        // 类型参数<T>：行首的<已被主循环跳过时只剩"T>"，去掉到配对外的第一个>为止
+        int angle = 0;
+        int cut = -1;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '<') {
+                angle++;
+            } else if (c == '>' && --angle < 0) {
+                cut = i;
+                angle = 0;
+            }
+        }
+        if (cut >= 0) {
+            prefix = prefix.substring(cut + 1);
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : splitTopLevel(prefix.trim(), ' ')) {
+            if (!token.trim().isEmpty() && !MODIFIERS.contains(token.trim())) {
+                tokens.add(token.trim());
+            }
+        }
+        // 修饰符后紧跟的<T, R>是类型参数，最后一个才是返回类型
+        while (tokens.size() > 1 && tokens.get(0).startsWith("<")) {
+            tokens.remove(0);
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        String returnType = String.join("", tokens).replaceAll("\\s+", "");
+        // 字段初始化表达式（new Foo() {...}、(Foo) bar()）不是方法声明
+        if (tokens.contains("new") || !RETURN_TYPE_PATTERN.matcher(returnType).matches()) {
+            return null;
+        }
+
+        List<String> parameterTypes = new ArrayList<>();
+        String params = header.substring(paren + 1, close).trim();
+        if (!params.isEmpty()) {
+            for (String param : splitTopLevel(params, ',')) {
+                String type = declaredType(param);
+                if (!type.isEmpty()) {
+                    parameterTypes.add(type);
+                }
+            }
+        }
+        return new MethodDecl(name, returnType, parameterTypes, line);
+    }
+
+    /**
+     * 类声明头中类名之后部分的extends类型（先去掉泛型参数，避免把<T extends X>的上界当成父类）
+     */
+    private static String superClassName(String afterTypeName) {
+        String text = afterTypeName;
+        String stripped;
+        // 由内向外逐层去掉嵌套的泛型参数
+        while (!(stripped = TYPE_ARGUMENTS_PATTERN.matcher(text).replaceAll("")).equals(text)) {
+            text = stripped;
+        }
+        Matcher extendsMatcher = EXTENDS_PATTERN.matcher(text);
+        return extendsMatcher.find() ? extendsMatcher.group(1).intern() : null;
+    }
+
+    private static String simpleTypeName(String type) {
+        String name = type.replaceAll("<.*", "").trim();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * bolt、rest、dubbo等跨进程绑定（jvm绑定为进程内调用）
+     */
+    private static boolean isRemoteBinding(String bindingType) {
+        for (String binding : bindingType.split(",")) {
+            String value = binding.trim().toLowerCase();
+            if (!value.isEmpty() && !value.equals("jvm")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String extractBindingTypes(String args) {
+        Matcher matcher = BINDING_TYPE_PATTERN.matcher(args);
+        List<String> values = new ArrayList<>();
+        while (matcher.find()) {
+            values.add(matcher.group(1).trim());
+        }
+        return String.join(",", values);
+    }
+
+    /**
+     * 解析注解参数：key = value，单值写法记为value；字符串去引号，Xxx.class取类名
+     */
+    private static Map<String, String> parseAttributes(String args) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        if (args.isEmpty()) {
+            return attributes;
+        }
+        for (String part : splitTopLevel(args, ',')) {
+            int eq = indexOfTopLevel(part, '=');
+            String key = eq > 0 ? part.substring(0, eq).trim() : "value";
+            String value = (eq > 0 ? part.substring(eq + 1) : part).trim();
+            if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                value = value.substring(1, value.length() - 1);
+            } else if (value.endsWith(".class")) {
+                value = value.substring(0, value.length() - ".class".length()).trim();
+            }
+            attributes.put(key, value.replaceAll("\\s+", " "));
+        }
+        return attributes;
+    }
+
+    private static String formatAttributes(Map<String, String> attributes) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append("; ");
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 去掉修饰符和变量名后剩下的声明类型（保留泛型）
+     */
+    private static String declaredType(String declaration) {
+        String text = declaration.replaceAll("@[\\w.]+(\\s*\\([^)]*\\))?", " ").trim();
+        List<String> tokens = new ArrayList<>();
+        int depth = 0;
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            }
+            if (Character.isWhitespace(c) && depth == 0) {
+                if (current.length() > 0) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        while (!tokens.isEmpty() && MODIFIERS.contains(tokens.get(0))) {
+            tokens.remove(0);
+        }
+        return tokens.size() >= 2 ? tokens.get(tokens.size() - 2).replaceAll("\\s+", "") : "";
+    }
+
+    private static String lastWord(String text) {
+        String[] words = text.trim().split("[^\\w$]+");
+        return words.length == 0 ? "" : words[words.length - 1];
+    }
+
+    private static List<String> splitTopLevel(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(' || c == '{' || c == '<') {
+                depth++;
+            } else if (c == ')' || c == '}' || c == '>') {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    private static int indexOfTopLevel(String text, char target) {
+        int depth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                return -1;
+            } else if (c == '(' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == '}') {
+                depth--;
+            } else if (c == target && depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ===================== 词法辅助 =====================
+
+    /**
+     * 读取声明头：从当前位置到括号外的第一个; { =为止（不含），注释和字符串已剔除
+     */
+    private String readDeclarationHeader() {
+        StringBuilder sb = new StringBuilder();
+        int parenDepth = 0;
+        while (pos < length) {
+            char c = content.charAt(pos);
+            if (c == '/' && pos + 1 < length && (content.charAt(pos + 1) == '/' || content.charAt(pos + 1) == '*')) {
+                skipComment();
+                sb.append(' ');
+                continue;
+            }
+            if (c == '"' || c == '\'') {
+                literal(c);
+                sb.append("\"\"");
+                continue;
+            }
+            if (c == '@' && parenDepth == 0) {
+                // 声明头中间出现的注解交给主循环处理
+                break;
+            }
+            if (c == '(') {
+                parenDepth++;
+            } else if (c == ')') {
+                parenDepth--;
+            } else if (parenDepth <= 0 && (c == ';' || c == '{' || c == '=' || c == '}')) {
+                break;
+            }
+            sb.append(c);
+            pos++;
+        }
+        return sb.toString();
+    }
+
+    private String readQualifiedName() {
+        int start = pos;
+        while (pos < length && (Character.isJavaIdentifierPart(content.charAt(pos)) || content.charAt(pos) == '.')) {
+            pos++;
+        }
+        return content.substring(start, pos);
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            char c = content.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/' && pos + 1 < length && (content.charAt(pos + 1) == '/' || content.charAt(pos + 1) == '*')) {
+                skipComment();
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void skipComment() {
+        if (content.charAt(pos + 1) == '/') {
+            int end = content.indexOf('\n', pos);
+            pos = end < 0 ? length : end;
+        } else {
+            int end = content.indexOf("*/", pos + 2);
+            pos = end < 0 ? length : end + 2;
+        }
+    }
+
+    /**
+     * 跳过字面量；在方法体内且需要收集时记录字符串内容，与上一段构成拼接时合并
+     */
+    private void literal(char quote) {
+        int start = pos;
+        skipLiteral(quote);
+        if (literals == null || currentMethod == null || quote != '"') {
+            return;
+        }
+        int end = content.charAt(pos - 1) == quote && pos - 1 > start ? pos - 1 : pos;
+        String text = unescape(content.substring(start + 1, end));
+        if (lastLiteral == null || !lastLiteral.method.equals(currentMethod)
+                || !CONCAT_PATTERN.matcher(content.substring(lastLiteralEnd, start)).matches()) {
+            lastLiteral = new StringLiteral(currentMethod, lineAt(start));
+            literals.add(lastLiteral);
+        }
+        lastLiteral.text.append(text);
+        lastLiteralEnd = pos;
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' || next == 't' || next == 'r' ? ' ' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void skipLiteral(char quote) {
+        pos++;
+        while (pos < length) {
+            char c = content.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote || c == '\n') {
+                pos++;
+                return;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * 当前位置为open字符，跳到配对的close之后（跳过其中的字符串和注释）
+     */
+    private void skipBalanced(char open, char close) {
+        int depth = 0;
+        while (pos < length) {
+            char c = content.charAt(pos);
+            if (c == '"' || c == '\'') {
+                skipLiteral(c);
+                continue;
+            }
+            if (c == '/' && pos + 1 < length && (content.charAt(pos + 1) == '/' || content.charAt(pos + 1) == '*')) {
+                skipComment();
+                continue;
+            }
+            pos++;
+            if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return;
+            }
+        }
+    }
+
+    private int lineAt(int target) {
+        while (linePos < target && linePos < length) {
+            if (content.charAt(linePos++) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+}
@@ -0,0 +1,72 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 按继承关系识别Action：扫描范围外的基类按类名最后一段是否为Action判断
+ */
+public class ActionHierarchyTest {
+
+    private File root;
+
+    @Before
+    public void createRoot() throws Exception {
+        root = Files.createTempDirectory("action-").toFile();
+    }
+
+    @After
+    public void deleteRoot() {
+        deleteRecursively(root);
+    }
+
+    /**
+     * Transaction、JDBCTransaction以action结尾但不是Action基类
+     */
+    @Test
+    public void externalBaseMustEndWithActionSegment() throws Exception {
+        write("com/mes/web/LotTrackIn.java", "package com.mes.web;\n\nimport com.mes.base.BaseAction;\n\n"
+                + "public class LotTrackIn extends BaseAction {\n}\n");
+        write("com/mes/web/LotHold.java", "package com.mes.web;\n\nimport com.mes.base.Lot_Action;\n\n"
+                + "public class LotHold extends Lot_Action {\n}\n");
+        write("com/mes/tx/LotTx.java", "package com.mes.tx;\n\nimport org.hibernate.Transaction;\n\n"
+                + "public class LotTx extends Transaction {\n}\n");
+        write("com/mes/tx/JdbcLotTx.java", "package com.mes.tx;\n\nimport com.mes.jdbc.JDBCTransaction;\n\n"
+                + "public class JdbcLotTx extends JDBCTransaction {\n}\n");
+        write("com/mes/tx/LowerTx.java", "package com.mes.tx;\n\nimport com.mes.base.lotaction;\n\n"
+                + "public class LowerTx extends lotaction {\n}\n");
+
+        AnalysisResult result = new CodeAnalysisTool(new AnalysisOptions()
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0)).analyze(root);
+
+        TreeSet<String> actions = new TreeSet<>();
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_ACTION)) {
+            actions.add(row.get("actionClassName"));
+        }
+        assertEquals("[LotHold, LotTrackIn]", actions.toString());
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = new File(root, "src/" + path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
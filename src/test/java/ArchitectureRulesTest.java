@@ -0,0 +1,149 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 架构规则：类型模式按类名分段匹配
+ */
+public class ArchitectureRulesTest {
+
+    private File root;
+
+    @Before
+    public void createRoot() throws Exception {
+        root = Files.createTempDirectory("rules-").toFile();
+    }
+
+    @After
+    public void deleteRoot() {
+        deleteRecursively(root);
+    }
+
+    @Test
+    public void wildcardMatchesWholeSegments() {
+        ArchitectureRules.TypePattern action = new ArchitectureRules.TypePattern("*Action");
+        assertTrue(action.matches("LotAction", "com.mes.web.LotAction"));
+        assertTrue(action.matches("Action", "org.apache.struts.action.Action"));
+        assertTrue(action.matches("Lot_Action", "com.mes.web.Lot_Action"));
+        assertFalse(action.matches("Transaction", "org.hibernate.Transaction"));
+        assertFalse(action.matches("UserTransaction", "javax.transaction.UserTransaction"));
+
+        ArchitectureRules.TypePattern suffix = new ArchitectureRules.TypePattern("Action");
+        assertTrue(suffix.matches("LotAction", "com.mes.web.LotAction"));
+        assertFalse(suffix.matches("Transaction", "org.hibernate.Transaction"));
+
+        ArchitectureRules.TypePattern prefix = new ArchitectureRules.TypePattern("Lot*");
+        assertTrue(prefix.matches("LotDao", "com.mes.dao.LotDao"));
+        assertFalse(prefix.matches("Lottery", "com.mes.Lottery"));
+
+        ArchitectureRules.TypePattern dao = new ArchitectureRules.TypePattern("*Dao*");
+        assertTrue(dao.matches("LotDaoImpl", "com.mes.dao.LotDaoImpl"));
+        assertFalse(dao.matches("Daolet", "com.mes.Daolet"));
+
+        ArchitectureRules.TypePattern packagePattern = new ArchitectureRules.TypePattern("com.mes.web.*");
+        assertTrue(packagePattern.matches("LotAction", "com.mes.web.LotAction"));
+        assertTrue(packagePattern.matches("x", "com.mes.web.action.x"));
+        assertFalse(packagePattern.matches("LotDao", "com.mes.dao.LotDao"));
+    }
+
+    /**
+     * 随工具发布的示例规则：事务型ManagerImpl引用扫描范围内的LotTransaction不算引用Action
+     */
+    @Test
+    public void sampleRulesAllowTransactionImport() throws Exception {
+        write("com/mes/web/LotAction.java", "package com.mes.web;\n\npublic class LotAction {\n}\n");
+        write("com/mes/tx/LotTransaction.java", "package com.mes.tx;\n\npublic class LotTransaction {\n}\n");
+        write("com/mes/manager/LotManagerImpl.java", "package com.mes.manager;\n"
+                + "\n"
+                + "import org.hibernate.Transaction;\n"
+                + "import javax.transaction.UserTransaction;\n"
+                + "import org.springframework.transaction.annotation.Transactional;\n"
+                + "import com.mes.tx.LotTransaction;\n"
+                + "import com.mes.web.LotAction;\n"
+                + "\n"
+                + "@Transactional\n"
+                + "public class LotManagerImpl implements LotManager {\n"
+                + "    private Transaction tx;\n"
+                + "    private UserTransaction userTx;\n"
+                + "    private LotTransaction lotTx;\n"
+                + "    private LotAction action;\n"
+                + "}\n");
+
+        assertEquals("[com.mes.manager.LotManagerImpl 引用com.mes.web.LotAction]", violations().toString());
+    }
+
+    /**
+     * JDK、第三方库的类型不参与规则检查：EntityManager不是*Manager，ExecutorService不是*Service
+     */
+    @Test
+    public void sampleRulesIgnoreLibraryTypes() throws Exception {
+        write("com/mes/dao/LotDaoImpl.java", "package com.mes.dao;\n"
+                + "\n"
+                + "import javax.persistence.EntityManager;\n"
+                + "import java.util.concurrent.ExecutorService;\n"
+                + "\n"
+                + "public class LotDaoImpl implements LotDao {\n"
+                + "    private EntityManager entityManager;\n"
+                + "    private ExecutorService executor;\n"
+                + "}\n");
+        write("com/mes/web/LotAction.java", "package com.mes.web;\n"
+                + "\n"
+                + "import org.springframework.transaction.PlatformTransactionManager;\n"
+                + "\n"
+                + "public class LotAction {\n"
+                + "    private PlatformTransactionManager transactionManager;\n"
+                + "}\n");
+        write("com/mes/manager/LotManagerImpl.java", "package com.mes.manager;\n"
+                + "\n"
+                + "import java.util.concurrent.ExecutorService;\n"
+                + "import org.springframework.transaction.annotation.Transactional;\n"
+                + "\n"
+                + "@Transactional\n"
+                + "public class LotManagerImpl implements LotManager {\n"
+                + "    private ExecutorService executor;\n"
+                + "}\n");
+
+        assertEquals("[]", violations().toString());
+    }
+
+    private List<String> violations() throws Exception {
+        AnalysisOptions options = new AnalysisOptions()
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0)
+                .setRulesFile(new File(System.getProperty("basedir", "."), "architecture.rules"));
+        AnalysisResult result = new CodeAnalysisTool(options).analyze(root);
+
+        List<String> violations = new ArrayList<>();
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_RULE_VIOLATION)) {
+            violations.add(row.get("className") + " " + row.get("violation"));
+        }
+        return violations;
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = new File(root, "src/" + path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
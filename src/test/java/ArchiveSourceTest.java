@@ -0,0 +1,199 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 压缩包扫描：条目大小上限、损坏压缩包的隔离、WEB-INF/lib默认跳过、include/exclude配置
+ */
+public class ArchiveSourceTest {
+
+    private static final String STRUTS_CONFIG = "<struts-config><action-mappings>"
+            + "<action path=\"/demo/save\" type=\"com.demo.SaveAction\"><forward name=\"success\" path=\"/demo.jsp\"/></action>"
+            + "</action-mappings></struts-config>";
+
+    private File root;
+
+    @Before
+    public void createRoot() throws Exception {
+        root = Files.createTempDirectory("archive-").toFile();
+    }
+
+    @After
+    public void deleteRoot() {
+        deleteRecursively(root);
+    }
+
+    /**
+     * 超过单文件上限的条目不读入内存，按"文件过大"隔离：条目头带大小（STORED）和流式条目（DEFLATED，大小未知）都一样
+     */
+    @Test
+    public void oversizedEntriesAreQuarantined() throws Exception {
+        byte[] huge = padded(STRUTS_CONFIG, 64 * 1024);
+        writeZip(new File(root, "app.war"), false,
+                "WEB-INF/struts-config.xml", STRUTS_CONFIG.getBytes(StandardCharsets.UTF_8),
+                "WEB-INF/struts-config-big.xml", huge);
+        writeZip(new File(root, "stored.zip"), true,
+                "struts-config-stored.xml", huge);
+
+        AnalysisResult result = analyze(options().setMaxFileBytes(4096));
+
+        assertEquals(1, result.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+        assertEquals(2, result.getRowCount(CodeAnalysisTool.ROWS_ERROR));
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_ERROR)) {
+            assertEquals("文件过大", row.get("errorType"));
+            assertEquals(String.valueOf(huge.length), row.get("fileSize"));
+        }
+    }
+
+    /**
+     * 截断的压缩包（磁盘上的、WAR中嵌套的）只隔离该压缩包，其余文件照常扫描
+     */
+    @Test
+    public void corruptArchivesAreQuarantined() throws Exception {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipOutputStream zout = new ZipOutputStream(jar)) {
+            zout.putNextEntry(new ZipEntry("META-INF/struts-config-lib.xml"));
+            zout.write(padded(STRUTS_CONFIG, 4096));
+        }
+        byte[] truncated = Arrays.copyOf(jar.toByteArray(), 30);
+        Files.write(new File(root, "trunc.jar").toPath(), truncated);
+        Files.write(new File(root, "LotAction.java").toPath(),
+                "public class LotAction extends Action {\n}\n".getBytes(StandardCharsets.UTF_8));
+        writeZip(new File(root, "app.war"), false,
+                "WEB-INF/struts-config.xml", STRUTS_CONFIG.getBytes(StandardCharsets.UTF_8),
+                "WEB-INF/modules/broken.jar", truncated);
+
+        AnalysisResult result = analyze(options().setArchiveExcludes(Collections.<String>emptyList()));
+
+        assertEquals(1, result.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+        assertEquals(1, result.getRowCount(CodeAnalysisTool.ROWS_ACTION));
+        List<String> failed = new ArrayList<>();
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_ERROR)) {
+            assertEquals("解析失败", row.get("errorType"));
+            failed.add(row.get("fileRelativePath").replace('\\', '/'));
+        }
+        Collections.sort(failed);
+        assertEquals("[app.war!/WEB-INF/modules/broken.jar, trunc.jar]", failed.toString());
+    }
+
+    @Test
+    public void vendorJarsAreSkippedByDefault() throws Exception {
+        writeWarWithVendorJar();
+
+        AnalysisResult result = analyze(options());
+
+        assertEquals(1, result.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+        assertFalse(result.getRows(CodeAnalysisTool.ROWS_STRUTS).get(0).get("relativePath").contains("vendor.jar"));
+    }
+
+    @Test
+    public void excludesCanBeCleared() throws Exception {
+        writeWarWithVendorJar();
+
+        AnalysisResult result = analyze(options().setArchiveExcludes(Collections.<String>emptyList()));
+
+        assertEquals(2, result.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+    }
+
+    @Test
+    public void includesAndDisableFlag() throws Exception {
+        writeWarWithVendorJar();
+        writeZip(new File(root, "other.zip"), false, "struts-config-other.xml", STRUTS_CONFIG.getBytes(StandardCharsets.UTF_8));
+
+        AnalysisResult included = analyze(options().setArchiveIncludes(Collections.singletonList("*.war")));
+        assertEquals(1, included.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+        assertTrue(included.getRows(CodeAnalysisTool.ROWS_STRUTS).get(0).get("relativePath").startsWith("app.war"));
+
+        AnalysisResult disabled = analyze(options().setArchiveScanEnabled(false));
+        assertEquals(0, disabled.getRowCount(CodeAnalysisTool.ROWS_STRUTS));
+    }
+
+    @Test
+    public void globMatchesWholeSegments() {
+        assertTrue(ArchiveSource.Filter.globToPattern("**/WEB-INF/lib/**").matcher("app.war!/WEB-INF/lib/a.jar").matches());
+        assertTrue(ArchiveSource.Filter.globToPattern("**/web-inf/lib/**").matcher("web/WEB-INF/lib/a.jar").matches());
+        assertTrue(ArchiveSource.Filter.globToPattern("*.war").matcher("app.war").matches());
+        assertFalse(ArchiveSource.Filter.globToPattern("*.war").matcher("dist/app.war").matches());
+        assertTrue(ArchiveSource.Filter.globToPattern("**/*.war").matcher("app.war").matches());
+    }
+
+    private AnalysisOptions options() {
+        return new AnalysisOptions()
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0);
+    }
+
+    private AnalysisResult analyze(AnalysisOptions options) throws Exception {
+        return new CodeAnalysisTool(options).analyze(root);
+    }
+
+    private void writeWarWithVendorJar() throws Exception {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipOutputStream zout = new ZipOutputStream(jar)) {
+            zout.putNextEntry(new ZipEntry("META-INF/struts-config-vendor.xml"));
+            zout.write(STRUTS_CONFIG.getBytes(StandardCharsets.UTF_8));
+        }
+        writeZip(new File(root, "app.war"), false,
+                "WEB-INF/struts-config.xml", STRUTS_CONFIG.getBytes(StandardCharsets.UTF_8),
+                "WEB-INF/lib/vendor.jar", jar.toByteArray());
+    }
+
+    /**
+     * nameAndContent依次为条目名、内容；stored为true时条目不压缩，条目头带大小
+     */
+    private static void writeZip(File file, boolean stored, Object... nameAndContent) throws Exception {
+        try (ZipOutputStream zout = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < nameAndContent.length; i += 2) {
+                byte[] content = (byte[]) nameAndContent[i + 1];
+                ZipEntry entry = new ZipEntry((String) nameAndContent[i]);
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(content);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.length);
+                    entry.setCompressedSize(content.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zout.putNextEntry(entry);
+                zout.write(content);
+                zout.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] padded(String xml, int size) {
+        StringBuilder sb = new StringBuilder(xml);
+        while (sb.length() < size) {
+            sb.append("<!-- padding -->\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,81 @@
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Excel输出：超过单Sheet行数上限时续写到<Sheet名>_2、_3…，快照比对读取时合并回原Sheet
+ */
+public class ExcelSinkTest {
+
+    private static final CodeAnalysisTool.SheetDef STRUTS = CodeAnalysisTool.SHEET_DEFS[0];
+
+    private File dir;
+
+    @Before
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("excel-").toFile();
+    }
+
+    @After
+    public void deleteDir() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void sheetRollsOverAtRowLimit() throws Exception {
+        assertRollover(null);
+    }
+
+    /**
+     * 溢写时为流式工作簿
+     */
+    @Test
+    public void spilledSheetRollsOverAtRowLimit() throws Exception {
+        assertRollover(dir);
+    }
+
+    private void assertRollover(File spillDir) throws Exception {
+        RowStore store = new RowStore(STRUTS, "", spillDir, 7);
+        for (int i = 0; i < 25; i++) {
+            Map<String, String> row = new HashMap<>();
+            for (String field : STRUTS.fields) {
+                row.put(field, "");
+            }
+            row.put("actionPath", String.format("/demo/a%02d", i));
+            store.add(row);
+        }
+        AnalysisResult result = new AnalysisResult(Collections.<String, String>emptyMap(), null);
+        result.put(STRUTS, store);
+        File out = new File(dir, "out.xlsx");
+
+        // 每个Sheet最多10行：表头 + 9行数据
+        new ExcelSink(out.getPath(), 10).write(result);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(out)) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals(STRUTS.name, workbook.getSheetName(0));
+            assertEquals(STRUTS.name + "_2", workbook.getSheetName(1));
+            assertEquals(STRUTS.name + "_3", workbook.getSheetName(2));
+            assertEquals(9, workbook.getSheetAt(0).getLastRowNum());
+            assertEquals(9, workbook.getSheetAt(1).getLastRowNum());
+            assertEquals(7, workbook.getSheetAt(2).getLastRowNum());
+            assertEquals(STRUTS.headers[0], workbook.getSheetAt(2).getRow(0).getCell(0).getStringCellValue());
+        }
+        List<String[]> rows = SnapshotDiff.loadSnapshot(out).get(0);
+        assertEquals(25, rows.size());
+        assertEquals("/demo/a24", rows.get(24)[STRUTS.fieldIndex("actionPath")]);
+    }
+}
@@ -0,0 +1,187 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 查询服务：在临时源码树上启动（端口0），经回环地址调用各接口
+ */
+public class QueryServerTest {
+
+    private File root;
+    private QueryServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        root = Files.createTempDirectory("query-").toFile();
+        write("web/WEB-INF/struts-config.xml", "<struts-config><action-mappings>"
+                + action("/lot/trackIn", "com.mes.web.LotTrackInAction")
+                + action("/lot/trackOut", "com.mes.web.LotTrackOutAction")
+                + action("/lot/hold", "com.mes.web.LotHoldAction")
+                + action("/eqp/status", "com.mes.web.EqpStatusAction")
+                + "</action-mappings></struts-config>");
+        write("src/com/mes/web/LotTrackInAction.java", "package com.mes.web;\n"
+                + "\n"
+                + "import org.springframework.beans.factory.annotation.Autowired;\n"
+                + "import com.mes.service.LotService;\n"
+                + "\n"
+                + "public class LotTrackInAction extends Action {\n"
+                + "    @Autowired\n"
+                + "    private LotService lotService;\n"
+                + "}\n");
+        write("src/com/mes/service/LotService.java", "package com.mes.service;\n"
+                + "\n"
+                + "public interface LotService {\n"
+                + "    void trackIn(String lotId);\n"
+                + "}\n");
+        write("src/com/mes/service/LotServiceImpl.java", "package com.mes.service;\n"
+                + "\n"
+                + "import org.springframework.beans.factory.annotation.Autowired;\n"
+                + "import com.mes.dao.LotDao;\n"
+                + "\n"
+                + "public class LotServiceImpl implements LotService {\n"
+                + "    @Autowired\n"
+                + "    private LotDao lotDao;\n"
+                + "\n"
+                + "    public void trackIn(String lotId) {\n"
+                + "    }\n"
+                + "}\n");
+        write("src/com/mes/dao/LotDao.java", "package com.mes.dao;\n"
+                + "\n"
+                + "public interface LotDao {\n"
+                + "    void update(String lotId);\n"
+                + "}\n");
+        write("src/com/mes/dao/LotDaoImpl.java", "package com.mes.dao;\n"
+                + "\n"
+                + "public class LotDaoImpl implements LotDao {\n"
+                + "    public void update(String lotId) {\n"
+                + "    }\n"
+                + "}\n");
+
+        AnalysisOptions options = new AnalysisOptions()
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0)
+                .setScanBaseDir(root);
+        server = new QueryServer(options, 0);
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+        deleteRecursively(root);
+    }
+
+    /**
+     * .do后缀与Struts配置中的路径命中同一个键
+     */
+    @Test
+    public void lookupWithAndWithoutDoSuffix() throws Exception {
+        String withSuffix = get("/api/lookup?index=actionPath&key=" + encode("/lot/trackIn.do"));
+        String withoutSuffix = get("/api/lookup?index=actionPath&key=" + encode("/lot/trackIn"));
+
+        assertTrue(withSuffix, withSuffix.contains("LotTrackInAction"));
+        assertEquals(withSuffix, withoutSuffix);
+        assertFalse(withSuffix.contains("LotTrackOutAction"));
+    }
+
+    @Test
+    public void prefixSearchHonoursLimit() throws Exception {
+        String all = get("/api/search?index=actionPath&prefix=" + encode("/lot/"));
+        assertTrue(all, all.contains("LotTrackInAction") && all.contains("LotTrackOutAction") && all.contains("LotHoldAction"));
+        assertFalse(all.contains("EqpStatusAction"));
+
+        // 按键的字典序：/lot/hold、/lot/trackin、/lot/trackout
+        String limited = get("/api/search?index=actionPath&prefix=" + encode("/lot/") + "&limit=2");
+        assertTrue(limited, limited.contains("LotHoldAction") && limited.contains("LotTrackInAction"));
+        assertFalse(limited.contains("LotTrackOutAction"));
+    }
+
+    /**
+     * Action注入的是接口，经接口 → 实现类的链接追踪到Dao
+     */
+    @Test
+    public void traceFollowsInterfaceToImplementation() throws Exception {
+        String trace = get("/api/trace?path=" + encode("/lot/trackIn.do"));
+
+        assertTrue(trace, trace.contains("[\"LotTrackInAction\",\"LotService\",\"LotServiceImpl\",\"LotDao\"]"));
+        assertTrue(trace, trace.contains("[\"LotTrackInAction\",\"LotService\",\"LotServiceImpl\",\"LotDao\",\"LotDaoImpl\"]"));
+    }
+
+    @Test
+    public void badParametersAreRejected() throws Exception {
+        assertEquals(400, status("/api/lookup?index=unknown&key=x"));
+        assertEquals(400, status("/api/search?index=actionPath&prefix=" + encode("/lot/") + "&limit=abc"));
+        assertEquals(400, status("/api/lookup?index=actionPath"));
+        assertEquals(200, status("/api/status"));
+    }
+
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = open(path);
+        try {
+            assertEquals(200, connection.getResponseCode());
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    out.write(buffer, 0, n);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private int status(String path) throws Exception {
+        HttpURLConnection connection = open(path);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+        return (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+    }
+
+    private static String encode(String value) throws Exception {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static String action(String path, String type) {
+        return "<action path=\"" + path + "\" type=\"" + type + "\"><forward name=\"success\" path=\"/lot.jsp\"/></action>";
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
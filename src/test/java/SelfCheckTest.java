@@ -0,0 +1,279 @@
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回归/性能门禁：生成合成MES源码树（SyntheticTree，固定种子），完整跑一次扫描并输出CSV，检查三项：
+ * <ul>
+ *   <li>预期行数：生成时按构造记下的各Sheet行数、重复的Struts映射数，错误文件Sheet为空，没有乱码单元格</li>
+ *   <li>golden输出：各Sheet的行数和内容摘要（行排序后计算，与扫描顺序无关）与selfcheck-golden.properties一致；
+ *       golden按文件数和种子记录，不匹配时跳过</li>
+ *   <li>阶段预算：各阶段的耗时和结束时的存活堆不超过selfcheck-budget.properties中的上限</li>
+ * </ul>
+ * 随mvn test/verify运行（默认1000个文件）；-Dperf.files=200000跑大规模，-Dselfcheck.updateGolden=true在输出有意变化时
+ * 重新生成golden文件，-Dselfcheck.keep=true保留生成的源码树和扫描输出（scan.log）。
+ */
+public class SelfCheckTest {
+
+    private static final int DEFAULT_FILES = 1000;
+
+    private static File workDir;
+    private static SyntheticTree tree;
+    private static AnalysisResult result;
+    private static int targetFiles;
+    private static long seed;
+
+    @BeforeClass
+    public static void scanSyntheticTree() throws Exception {
+        targetFiles = Integer.getInteger("selfcheck.files", DEFAULT_FILES);
+        seed = Long.getLong("selfcheck.seed", SyntheticTree.DEFAULT_SEED);
+        workDir = Files.createTempDirectory("selfcheck-").toFile();
+
+        long start = System.nanoTime();
+        File treeDir = new File(workDir, "tree");
+        tree = SyntheticTree.generate(treeDir, targetFiles, seed);
+        System.out.println("生成合成源码树：" + tree.getFileCount() + "个文件，" + ScanProgress.megabytes(tree.getByteCount())
+                + "MB，种子" + seed + "，耗时" + (System.nanoTime() - start) / 1000000L + "ms");
+
+        AnalysisOptions options = new AnalysisOptions()
+                .setScanBaseDir(treeDir)
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0)
+                .setMeasureStageHeap(true)
+                .addSink(new CsvSink(new File(workDir, "csv")));
+        File log = new File(workDir, "scan.log");
+        PrintStream console = System.out;
+        try (PrintStream scanLog = new PrintStream(new FileOutputStream(log), true, "UTF-8")) {
+            System.setOut(scanLog);
+            result = new CodeAnalysisTool(options).run();
+        } finally {
+            System.setOut(console);
+        }
+        System.out.println("扫描完成，耗时" + (System.nanoTime() - start) / 1000000L + "ms（含生成），扫描输出：" + log.getAbsolutePath());
+    }
+
+    @AfterClass
+    public static void deleteWorkDir() {
+        if (Boolean.getBoolean("selfcheck.keep")) {
+            System.out.println("保留工作目录：" + workDir.getAbsolutePath());
+        } else if (workDir != null) {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * 预期行数（由生成器按构造记下，不依赖扫描逻辑）
+     */
+    @Test
+    public void expectedRows() {
+        System.out.println("\n========== 预期行数 ==========");
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : tree.getExpectedRows().entrySet()) {
+            expect(failures, sheetName(entry.getKey()), entry.getValue(), result.getRowCount(entry.getKey()));
+        }
+        int duplicates = 0;
+        for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_STRUTS)) {
+            if ("是".equals(row.get("isDuplicate"))) {
+                duplicates++;
+            }
+        }
+        expect(failures, "重复的Struts映射", tree.getDuplicateStrutsRows(), duplicates);
+        expect(failures, sheetName(CodeAnalysisTool.ROWS_ERROR), 0, result.getRowCount(CodeAnalysisTool.ROWS_ERROR));
+        // GBK文件按UTF-8误解码时中文变为替换字符
+        int garbled = 0;
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            for (Map<String, String> row : result.getRows(def.id)) {
+                for (String value : row.values()) {
+                    if (value != null && value.indexOf('�') >= 0) {
+                        garbled++;
+                    }
+                }
+            }
+        }
+        expect(failures, "含乱码（\\uFFFD）的单元格", 0, garbled);
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    private static void expect(List<String> failures, String name, int expected, int actual) {
+        if (expected == actual) {
+            System.out.println("✅ " + name + "：" + actual);
+        } else {
+            String failure = "❌ " + name + "：预期" + expected + "，实际" + actual;
+            System.out.println(failure);
+            failures.add(failure);
+        }
+    }
+
+    /**
+     * golden输出：各Sheet的行数和内容摘要（错误文件Sheet含耗时，不参与）
+     */
+    @Test
+    public void goldenOutput() throws Exception {
+        System.out.println("\n========== golden输出 ==========");
+        File goldenFile = new File(System.getProperty("selfcheck.golden", "src/test/resources/selfcheck-golden.properties"));
+        Properties actual = new Properties();
+        actual.setProperty("files", String.valueOf(tree.getFileCount()));
+        actual.setProperty("seed", String.valueOf(seed));
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            if (!def.id.equals(CodeAnalysisTool.ROWS_ERROR)) {
+                actual.setProperty(def.id + ".rows", String.valueOf(result.getRowCount(def.id)));
+                actual.setProperty(def.id + ".digest", digest(def, result.getRows(def.id)));
+            }
+        }
+        if (Boolean.getBoolean("selfcheck.updateGolden")) {
+            // 按键排序、不写时间戳，重新生成后的差异只有真正变化的Sheet
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(goldenFile), StandardCharsets.UTF_8)) {
+                writer.write("# 自检golden输出（mvn test -Dselfcheck.files=" + targetFiles
+                        + " -Dselfcheck.updateGolden=true生成），输出变化符合预期时重新生成\n");
+                for (String key : new TreeSet<>(actual.stringPropertyNames())) {
+                    writer.write(key + "=" + actual.getProperty(key) + "\n");
+                }
+            }
+            System.out.println("✅ 已更新golden文件：" + goldenFile.getAbsolutePath());
+            return;
+        }
+        assertTrue("未找到golden文件（-Dselfcheck.updateGolden=true生成）：" + goldenFile.getAbsolutePath(), goldenFile.isFile());
+        Properties golden = load(goldenFile);
+        Assume.assumeTrue("golden文件对应" + golden.getProperty("files") + "个文件、种子" + golden.getProperty("seed") + "，与本次不同，跳过比对",
+                actual.getProperty("files").equals(golden.getProperty("files")) && actual.getProperty("seed").equals(golden.getProperty("seed")));
+        List<String> failures = new ArrayList<>();
+        for (CodeAnalysisTool.SheetDef def : result.getSheets()) {
+            if (def.id.equals(CodeAnalysisTool.ROWS_ERROR)) {
+                continue;
+            }
+            String rows = actual.getProperty(def.id + ".rows");
+            String expectedRows = golden.getProperty(def.id + ".rows");
+            String failure = null;
+            if (expectedRows == null) {
+                failure = "❌ " + def.name + "：golden文件中没有该Sheet（新增的Sheet需重新生成golden）";
+            } else if (!rows.equals(expectedRows)) {
+                failure = "❌ " + def.name + "：行数" + rows + "，golden为" + expectedRows;
+            } else if (!actual.getProperty(def.id + ".digest").equals(golden.getProperty(def.id + ".digest"))) {
+                failure = "❌ " + def.name + "：行数一致（" + rows + "），内容与golden不同";
+            }
+            if (failure == null) {
+                System.out.println("✅ " + def.name + "：" + rows + "行，内容一致");
+            } else {
+                System.out.println(failure);
+                failures.add(failure);
+            }
+        }
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    /**
+     * 内容摘要：每行按字段顺序拼接（路径分隔符统一为/），行排序后计算SHA-256，与扫描顺序、操作系统无关
+     */
+    static String digest(CodeAnalysisTool.SheetDef def, List<Map<String, String>> rows) throws Exception {
+        List<String> lines = new ArrayList<>(rows.size());
+        for (Map<String, String> row : rows) {
+            StringBuilder line = new StringBuilder();
+            for (String field : def.fields) {
+                String value = row.get(field);
+                line.append(value == null ? "" : value.replace('\\', '/')).append('\t');
+            }
+            lines.add(line.toString());
+        }
+        Collections.sort(lines);
+        MessageDigest sha = MessageDigest.getInstance("SHA-256");
+        for (String line : lines) {
+            sha.update(line.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) '\n');
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : sha.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 阶段预算：每项写作"固定余量+每1000个文件的预算"，上限 = 固定余量 + 每千文件预算 × 文件数 / 1000；
+     * 没有单独配置的阶段使用default.millis、default.heap.mb
+     */
+    @Test
+    public void stageBudgets() throws Exception {
+        System.out.println("\n========== 阶段预算 ==========");
+        File budgetFile = new File(System.getProperty("selfcheck.budget", "src/test/resources/selfcheck-budget.properties"));
+        assertTrue("未找到预算文件：" + budgetFile.getAbsolutePath(), budgetFile.isFile());
+        Properties budget = load(budgetFile);
+        StageStats stats = result.getStageStats();
+        int fileCount = tree.getFileCount();
+        List<String> failures = new ArrayList<>();
+        System.out.println(String.format("%-14s%10s%10s%12s%12s", "阶段", "耗时ms", "预算ms", "存活堆MB", "预算MB"));
+        for (String stage : stats.getStages()) {
+            long millis = stats.getMillis(stage);
+            long heapMb = stats.getHeapBytes(stage) / (1024 * 1024);
+            long millisLimit = limit(budget.getProperty(stage + ".millis", budget.getProperty("default.millis")), fileCount);
+            long heapLimit = limit(budget.getProperty(stage + ".heap.mb", budget.getProperty("default.heap.mb")), fileCount);
+            boolean over = (millisLimit >= 0 && millis > millisLimit) || (heapLimit >= 0 && heapMb > heapLimit);
+            System.out.println(String.format("%-14s%10d%10s%12d%12s%s", stage, millis, millisLimit < 0 ? "-" : String.valueOf(millisLimit),
+                    heapMb, heapLimit < 0 ? "-" : String.valueOf(heapLimit), over ? "  ❌ 超出预算" : ""));
+            if (over) {
+                failures.add("❌ " + stage + "：耗时" + millis + "ms（预算" + millisLimit + "ms），存活堆" + heapMb + "MB（预算" + heapLimit + "MB）");
+            }
+        }
+        assertTrue(String.join("\n", failures), failures.isEmpty());
+    }
+
+    /**
+     * "固定余量+每千文件预算"（或只写每千文件预算）换算为本次的上限，未配置时返回-1
+     */
+    private static long limit(String spec, int fileCount) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return -1;
+        }
+        String[] parts = spec.split("\\+");
+        double fixed = parts.length > 1 ? Double.parseDouble(parts[0].trim()) : 0;
+        double perThousand = Double.parseDouble(parts[parts.length - 1].trim());
+        return Math.round(fixed + perThousand * fileCount / 1000.0);
+    }
+
+    private static String sheetName(String sheetId) {
+        for (CodeAnalysisTool.SheetDef def : CodeAnalysisTool.SHEET_DEFS) {
+            if (def.id.equals(sheetId)) {
+                return def.name;
+            }
+        }
+        return sheetId;
+    }
+
+    private static Properties load(File file) throws Exception {
+        Properties props = new Properties();
+        try (InputStream is = new FileInputStream(file)) {
+            props.load(new InputStreamReader(is, StandardCharsets.UTF_8));
+        }
+        return props;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,173 @@
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 快照比对：主键相同的行按序号一一配对；旧版快照按表头识别列；变更明细超过行数上限时续写
+ */
+public class SnapshotDiffTest {
+
+    private static final CodeAnalysisTool.SheetDef STRUTS = CodeAnalysisTool.SHEET_DEFS[0];
+
+    /**
+     * 同一主键重复10次以上时，序号#10不能排在#2之前，否则未变化的数据被报告为新增+删除
+     */
+    @Test
+    public void unchangedDuplicatesProduceNoChanges() {
+        List<String[]> oldRows = duplicateRows(12);
+        List<String[]> newRows = duplicateRows(12);
+        List<String[]> changes = new ArrayList<>();
+        int[] counter = new int[3];
+
+        SnapshotDiff.diffSheet(STRUTS, oldRows, newRows, changes, counter);
+
+        assertEquals(0, changes.size());
+        assertArrayEquals(new int[]{0, 0, 0}, counter);
+    }
+
+    @Test
+    public void extraDuplicateIsReportedOnce() {
+        List<String[]> oldRows = duplicateRows(11);
+        List<String[]> newRows = duplicateRows(12);
+        List<String[]> changes = new ArrayList<>();
+        int[] counter = new int[3];
+
+        SnapshotDiff.diffSheet(STRUTS, oldRows, newRows, changes, counter);
+
+        // 最后一行（forward-path最大）新增，其余按序号配对
+        assertArrayEquals(new int[]{1, 0, 0}, counter);
+        assertEquals(1, changes.size());
+        assertEquals("WEB-INF/struts-config.xml///demo/save/DemoForm/success/#11", changes.get(0)[2]);
+    }
+
+    @Test
+    public void modifiedDuplicateIsPairedBySequence() {
+        List<String[]> oldRows = duplicateRows(12);
+        List<String[]> newRows = duplicateRows(12);
+        newRows.get(11)[STRUTS.fieldIndex("forwardPath")] = "/jsp/demo99.jsp";
+        List<String[]> changes = new ArrayList<>();
+        int[] counter = new int[3];
+
+        SnapshotDiff.diffSheet(STRUTS, oldRows, newRows, changes, counter);
+
+        assertArrayEquals(new int[]{0, 0, 1}, counter);
+        assertEquals("/jsp/demo11.jsp", changes.get(0)[4]);
+        assertEquals("/jsp/demo99.jsp", changes.get(0)[5]);
+    }
+
+    /**
+     * 旧版快照没有模块、完整action路径、Tiles展开JSP列且列顺序不同：按表头对应字段，缺少的列不参与比对
+     */
+    @Test
+    public void oldSnapshotColumnsAreMappedByHeader() throws Exception {
+        String[] oldHeaders = {"forward-path", "配置文件相对路径", "action-path", "form-bean-type", "action-type",
+                "action-name(form)", "forward-name", "是否重复", "重复次数"};
+        List<String[]> newRows = duplicateRows(3);
+        for (String[] row : newRows) {
+            row[STRUTS.fieldIndex("fullActionPath")] = "/demo/save";
+            row[STRUTS.fieldIndex("tilesJsp")] = "/jsp/layout.jsp";
+        }
+        File dir = Files.createTempDirectory("snapshot-").toFile();
+        File file = new File(dir, "old.xlsx");
+        try {
+            try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+                Sheet sheet = workbook.createSheet(STRUTS.name);
+                Row head = sheet.createRow(0);
+                for (int c = 0; c < oldHeaders.length; c++) {
+                    head.createCell(c).setCellValue(oldHeaders[c]);
+                }
+                for (int r = 0; r < newRows.size(); r++) {
+                    Row row = sheet.createRow(r + 1);
+                    for (int c = 0; c < oldHeaders.length; c++) {
+                        String value = newRows.get(r)[STRUTS.fieldIndex(fieldOf(oldHeaders[c]))];
+                        if (!value.isEmpty()) {
+                            row.createCell(c).setCellValue(value);
+                        }
+                    }
+                }
+                workbook.write(out);
+            }
+            List<String[]> oldRows = SnapshotDiff.loadSnapshot(file).get(0);
+            assertEquals(3, oldRows.size());
+            assertEquals("/demo/save", oldRows.get(0)[STRUTS.fieldIndex("actionPath")]);
+            assertEquals(null, oldRows.get(0)[STRUTS.fieldIndex("module")]);
+            List<String[]> changes = new ArrayList<>();
+            int[] counter = new int[3];
+
+            SnapshotDiff.diffSheet(STRUTS, oldRows, newRows, changes, counter);
+
+            assertArrayEquals(new int[]{0, 0, 0}, counter);
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    @Test
+    public void reportDetailRollsOverAtRowLimit() throws Exception {
+        List<String[]> oldRows = new ArrayList<>();
+        List<String[]> newRows = duplicateRows(25);
+        List<String[]> changes = new ArrayList<>();
+        int[][] summary = new int[CodeAnalysisTool.SHEET_DEFS.length][3];
+        SnapshotDiff.diffSheet(STRUTS, oldRows, newRows, changes, summary[0]);
+        File dir = Files.createTempDirectory("snapshot-").toFile();
+        File file = new File(dir, "report.xlsx");
+        try {
+            // 每个Sheet最多10行：表头 + 9行数据
+            SnapshotDiff.writeExcelReport(changes, summary, file.getPath(), 10);
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(file)) {
+                assertEquals(4, workbook.getNumberOfSheets());
+                assertEquals("变更明细", workbook.getSheetName(1));
+                assertEquals("变更明细_2", workbook.getSheetName(2));
+                assertEquals("变更明细_3", workbook.getSheetName(3));
+                assertEquals(9, workbook.getSheetAt(1).getLastRowNum());
+                assertEquals(9, workbook.getSheetAt(2).getLastRowNum());
+                assertEquals(7, workbook.getSheetAt(3).getLastRowNum());
+                assertEquals("Sheet", workbook.getSheetAt(3).getRow(0).getCell(0).getStringCellValue());
+            }
+        } finally {
+            file.delete();
+            dir.delete();
+        }
+    }
+
+    private static String fieldOf(String header) {
+        for (int i = 0; i < STRUTS.headers.length; i++) {
+            if (STRUTS.headers[i].equals(header)) {
+                return STRUTS.fields[i];
+            }
+        }
+        throw new IllegalArgumentException(header);
+    }
+
+    /**
+     * 主键（配置文件、模块、action-path、form-bean、forward-name）相同，forward-path不同
+     */
+    private static List<String[]> duplicateRows(int count) {
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String[] row = new String[STRUTS.fields.length];
+            for (int c = 0; c < row.length; c++) {
+                row[c] = "";
+            }
+            row[STRUTS.fieldIndex("relativePath")] = "WEB-INF/struts-config.xml";
+            row[STRUTS.fieldIndex("actionPath")] = "/demo/save";
+            row[STRUTS.fieldIndex("formBean")] = "DemoForm";
+            row[STRUTS.fieldIndex("forwardName")] = "success";
+            row[STRUTS.fieldIndex("forwardPath")] = String.format("/jsp/demo%02d.jsp", i);
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,101 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 源码索引：分词复用提取时已读取的内容
+ */
+public class SourceIndexTest {
+
+    private File dir;
+
+    @Before
+    public void createDir() throws Exception {
+        dir = Files.createTempDirectory("index-").toFile();
+    }
+
+    @After
+    public void deleteDir() {
+        for (File file : dir.listFiles()) {
+            file.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * 按需提取（未启用流水线）时，web.xml、Tiles定义、mapper等XML也只从来源读取一次
+     */
+    @Test
+    public void xmlIsReadOnceForParsingAndTokenizing() throws Exception {
+        List<SourceFile> sources = new ArrayList<>();
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger streams = new AtomicInteger();
+        sources.add(new CountingSource("WEB-INF/web.xml", "<web-app><servlet><servlet-name>action</servlet-name>"
+                + "<init-param><param-name>config</param-name><param-value>/WEB-INF/struts-config.xml</param-value></init-param>"
+                + "</servlet></web-app>", reads, streams));
+        sources.add(new CountingSource("WEB-INF/tiles-defs.xml", "<tiles-definitions>"
+                + "<definition name=\"lot.main\" path=\"/layout.jsp\"/></tiles-definitions>", reads, streams));
+        sources.add(new CountingSource("mapper/LotMapper.xml", "<mapper namespace=\"LotMapper\">"
+                + "<select id=\"findLot\">select * from lot</select></mapper>", reads, streams));
+        AnalysisOptions options = new AnalysisOptions()
+                .setProgressIntervalMillis(0)
+                .setCheckpointIntervalMillis(0)
+                .setReadThreads(0)
+                .setSourceIndexFile(new File(dir, "source.idx"));
+
+        new CodeAnalysisTool(options).analyze(sources);
+
+        // 每个文件提取时整份读取一次；流式读取只剩识别Struts配置时读到根元素（web.xml以外的2个文件）
+        assertEquals(3, reads.get());
+        assertEquals(2, streams.get());
+    }
+
+    /**
+     * 内存中的文件，分别记录readBytes、openStream的次数
+     */
+    private static class CountingSource extends SourceFile {
+        private final byte[] bytes;
+        private final AtomicInteger reads;
+        private final AtomicInteger streams;
+
+        CountingSource(String relativePath, String content, AtomicInteger reads, AtomicInteger streams) {
+            super(relativePath);
+            this.bytes = content.getBytes(StandardCharsets.UTF_8);
+            this.reads = reads;
+            this.streams = streams;
+        }
+
+        @Override
+        public long length() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] readBytes() {
+            reads.incrementAndGet();
+            return bytes;
+        }
+
+        @Override
+        public InputStream openStream() throws Exception {
+            streams.incrementAndGet();
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        String fingerprint() {
+            return "test:" + relativePath;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Struts模块：web.xml声明的模块和未被引用的Struts配置
+ */
+public class StrutsModulesTest {
+
+    private File root;
+
+    @Before
+    public void createRoot() throws Exception {
+        root = Files.createTempDirectory("struts-").toFile();
+    }
+
+    @After
+    public void deleteRoot() {
+        deleteRecursively(root);
+    }
+
+    /**
+     * 文件名不含struts、也没有被web.xml引用的Struts配置（按根元素识别）作为默认模块汇总，不被丢弃
+     */
+    @Test
+    public void unreferencedConfigIsSummarizedUnderDefaultModule() throws Exception {
+        write("web/WEB-INF/web.xml", "<web-app><servlet><servlet-name>action</servlet-name>"
+                + "<servlet-class>org.apache.struts.action.ActionServlet</servlet-class>"
+                + "<init-param><param-name>config/lot</param-name><param-value>/WEB-INF/lot-actions.xml</param-value></init-param>"
+                + "</servlet></web-app>");
+        write("web/WEB-INF/lot-actions.xml", strutsConfig("/trackIn"));
+        write("web/WEB-INF/config/eqp-actions.xml", strutsConfig("/eqpStatus"));
+        write("web/WEB-INF/mapper/LotMapper.xml", "<mapper namespace=\"LotMapper\"><select id=\"find\">select 1</select></mapper>");
+
+        // 流水线提取、按需提取、溢写模式（XML的提取结果不保留，按根元素识别）
+        for (int mode = 0; mode < 3; mode++) {
+            AnalysisOptions options = new AnalysisOptions()
+                    .setProgressIntervalMillis(0)
+                    .setCheckpointIntervalMillis(0)
+                    .setReadThreads(mode == 0 ? 2 : 0)
+                    .setSpillDir(mode == 2 ? new File(root, "spill") : null);
+            AnalysisResult result = new CodeAnalysisTool(options).analyze(root);
+
+            Map<String, String> moduleByPath = new TreeMap<>();
+            for (Map<String, String> row : result.getRows(CodeAnalysisTool.ROWS_STRUTS)) {
+                moduleByPath.put(row.get("fullActionPath"), row.get("relativePath").replace('\\', '/') + "|" + row.get("module"));
+            }
+            assertEquals("{/eqpStatus=web/WEB-INF/config/eqp-actions.xml|, /lot/trackIn=web/WEB-INF/lot-actions.xml|/lot}",
+                    moduleByPath.toString());
+        }
+    }
+
+    private static String strutsConfig(String actionPath) {
+        return "<struts-config><action-mappings><action path=\"" + actionPath + "\" type=\"com.mes.web.LotAction\">"
+                + "<forward name=\"success\" path=\"/lot.jsp\"/></action></action-mappings></struts-config>";
+    }
+
+    private void write(String path, String content) throws Exception {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
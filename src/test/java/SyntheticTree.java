@@ -0,0 +1,291 @@
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 合成MES源码树：按固定种子生成与真实项目结构一致的目录（Struts配置、Action/Service/Manager/Dao各层、JSP/JS），
+ * 同一文件数和种子每次生成的内容完全相同
+ * <p>
+ * 生成时按构造记下内置各Sheet应有的行数，作为自检的预期结果（不依赖扫描逻辑本身）。覆盖的情形：
+ * 多个Struts配置中的重复映射、GBK与UTF-8编码的文件、类名后缀的大小写变体（LotSERVICE、Lotservice）、
+ * 不同模块的同名类（Sheet中按类名去重）、类名不以Action结尾的Action、Action基类不同的继承层次。
+ */
+class SyntheticTree {
+
+    static final long DEFAULT_SEED = 20240101L;
+
+    private static final String[] MODULES = {"lot", "eqp", "wip", "recipe", "alarm", "spc", "dispatch", "durable"};
+    private static final String[] NOUNS = {"Lot", "Wafer", "Carrier", "Recipe", "Tool", "Chamber", "Route", "Step",
+            "Hold", "Rework", "Split", "Merge", "Scrap", "Ship", "Label", "Reticle"};
+    // 类名后缀的大小写变体：正则不区分大小写，Sheet按小写类名去重
+    private static final String[][] SUFFIX_VARIANTS = {
+            {"Service", "ServiceImpl", "Manager", "ManagerImpl", "Dao", "DaoImpl"},
+            {"SERVICE", "SERVICEImpl", "MANAGER", "MANAGERImpl", "DAO", "DAOImpl"},
+            {"service", "serviceimpl", "manager", "managerimpl", "dao", "daoimpl"}};
+    // 每个模块的实体数（每个实体8~9个文件）
+    private static final int ENTITIES_PER_MODULE = 60;
+    private static final Charset GBK = Charset.forName("GBK");
+
+    private final File root;
+    private final Random random;
+    private final Map<String, Integer> expectedRows = new LinkedHashMap<>();
+    private final Map<String, Set<String>> uniqueNames = new LinkedHashMap<>();
+    private int duplicateStrutsRows;
+    private int fileCount;
+    private long byteCount;
+
+    private SyntheticTree(File root, long seed) {
+        this.root = root;
+        this.random = new Random(seed);
+        for (String sheetId : new String[]{CodeAnalysisTool.ROWS_STRUTS, CodeAnalysisTool.ROWS_DO_PATH, CodeAnalysisTool.ROWS_ACTION}) {
+            expectedRows.put(sheetId, 0);
+        }
+        for (String sheetId : new String[]{CodeAnalysisTool.ROWS_SERVICE, CodeAnalysisTool.ROWS_SERVICE_IMPL,
+                CodeAnalysisTool.ROWS_MANAGER, CodeAnalysisTool.ROWS_MANAGER_IMPL, CodeAnalysisTool.ROWS_DAO,
+                CodeAnalysisTool.ROWS_DAO_IMPL}) {
+            uniqueNames.put(sheetId, new HashSet<>());
+        }
+    }
+
+    /**
+     * 在root下生成约targetFiles个文件（root需为空目录或不存在）
+     */
+    static SyntheticTree generate(File root, int targetFiles, long seed) throws Exception {
+        SyntheticTree tree = new SyntheticTree(root, seed);
+        int moduleCount = Math.max(1, Math.round(targetFiles / (ENTITIES_PER_MODULE * 8.0f + 4)));
+        int entities = Math.max(1, (targetFiles - moduleCount * 4) / (moduleCount * 8));
+        for (int m = 0; m < moduleCount; m++) {
+            String module = MODULES[m % MODULES.length] + (m < MODULES.length ? "" : String.valueOf(m / MODULES.length));
+            tree.writeModule(module, m, entities);
+        }
+        return tree;
+    }
+
+    private void writeModule(String module, int moduleIndex, int entities) throws Exception {
+        String pkg = "com.tone.mes." + module;
+        String src = "src/" + pkg.replace('.', '/');
+        String base = capitalize(module) + "BaseAction";
+        write(src + "/action/" + base + ".java", StandardCharsets.UTF_8,
+                "package " + pkg + ".action;\n\n"
+                        + "import org.apache.struts.actions.DispatchAction;\n\n"
+                        + "/**\n * " + module + "模块的Action基类\n */\n"
+                        + "public class " + base + " extends DispatchAction {\n"
+                        + "    protected String moduleName() {\n        return \"" + module + "\";\n    }\n}\n");
+        addRows(CodeAnalysisTool.ROWS_ACTION, 1);
+
+        StringBuilder formBeans = new StringBuilder();
+        StringBuilder mappings = new StringBuilder();
+        StringBuilder duplicateFormBeans = new StringBuilder();
+        StringBuilder duplicates = new StringBuilder();
+        StringBuilder script = new StringBuilder("// " + module + "模块公共脚本\n");
+        for (int e = 0; e < entities; e++) {
+            String entity = NOUNS[e % NOUNS.length] + (e < NOUNS.length ? "" : String.valueOf(e / NOUNS.length));
+            String lower = Character.toLowerCase(entity.charAt(0)) + entity.substring(1);
+            // 每5个实体中1个用GBK编码（含中文注释）
+            Charset charset = e % 5 == 0 ? GBK : StandardCharsets.UTF_8;
+            writeEntity(src, pkg, module, base, entity, lower, e, charset);
+
+            String formBean = "        <form-bean name=\"" + lower + "Form\" type=\"" + pkg + ".form." + entity + "Form\"/>\n";
+            formBeans.append(formBean);
+            String mapping = actionMapping(module, pkg, entity, lower, e);
+            mappings.append(mapping);
+            int rows = e % 5 == 4 ? 1 : 2;
+            addRows(CodeAnalysisTool.ROWS_STRUTS, rows);
+            if (e % 10 == 0) {
+                // 扩展配置中重复的映射：两个配置都在默认模块，两边的行都标为重复
+                duplicateFormBeans.append(formBean);
+                duplicates.append(mapping);
+                addRows(CodeAnalysisTool.ROWS_STRUTS, rows);
+                duplicateStrutsRows += rows * 2;
+            }
+            // 同一路径引用两次只计一行
+            script.append("function open").append(entity).append("() {\n    location.href = \"/").append(module)
+                    .append('/').append(lower).append("Query.do\";\n}\n")
+                    .append("var ").append(lower).append("Url = '/").append(module).append('/').append(lower).append("Query.do';\n");
+            addRows(CodeAnalysisTool.ROWS_DO_PATH, 1);
+        }
+        // 奇数模块的Struts配置用GBK编码
+        Charset strutsCharset = moduleIndex % 2 == 1 ? GBK : StandardCharsets.UTF_8;
+        write("WebRoot/WEB-INF/struts-config-" + module + ".xml", strutsCharset, strutsConfig(strutsCharset, formBeans, mappings));
+        write("WebRoot/WEB-INF/struts-config-" + module + "-ext.xml", StandardCharsets.UTF_8,
+                strutsConfig(StandardCharsets.UTF_8, duplicateFormBeans, duplicates));
+        write("WebRoot/" + module + "/js/" + module + ".js", StandardCharsets.UTF_8, script.toString());
+    }
+
+    private void writeEntity(String src, String pkg, String module, String base, String entity, String lower,
+                             int index, Charset charset) throws Exception {
+        String[] suffix = SUFFIX_VARIANTS[index % SUFFIX_VARIANTS.length];
+        String service = entity + suffix[0];
+        String serviceImpl = entity + suffix[1];
+        String manager = entity + suffix[2];
+        String managerImpl = entity + suffix[3];
+        String dao = entity + suffix[4];
+        String daoImpl = entity + suffix[5];
+        String comment = "/**\n * " + entity + "（" + module + "模块）\n */\n";
+
+        // Action：多数继承模块基类；部分类名不以Action结尾，部分直接继承Struts的Action
+        String actionClass;
+        String actionSource;
+        if (index % 7 == 6) {
+            actionClass = entity + "Action";
+            actionSource = "import org.apache.struts.action.Action;\n\n" + comment
+                    + "public class " + actionClass + " extends Action {\n";
+        } else {
+            actionClass = index % 7 == 5 ? entity + "Handler" : entity + "Action";
+            actionSource = comment + "public class " + actionClass + " extends " + base + " {\n";
+        }
+        write(src + "/action/" + actionClass + ".java", charset, "package " + pkg + ".action;\n\n" + actionSource
+                + "    private " + pkg + ".service." + service + " " + lower + "Service;\n"
+                + methods("public String ", "(String lotId) {\n        return \"success\";\n    }\n", 1 + random.nextInt(6))
+                + "}\n");
+        addRows(CodeAnalysisTool.ROWS_ACTION, 1);
+        if (index % 11 == 0) {
+            // ActionForm不是Action
+            write(src + "/form/" + entity + "Form.java", charset, "package " + pkg + ".form;\n\n"
+                    + "import org.apache.struts.action.ActionForm;\n\n" + comment
+                    + "public class " + entity + "Form extends ActionForm {\n    private String lotId;\n}\n");
+        }
+
+        // 声明格式的变体：换行、多个空格
+        String interfaceKeyword = index % 4 == 3 ? "public  interface\n    " : "public interface ";
+        int methodCount = 1 + random.nextInt(10);
+        String declarations = methods("String ", "(String id);\n", methodCount);
+        String bodies = methods("public String ", "(String id) {\n        return id;\n    }\n", methodCount);
+
+        write(src + "/service/" + service + ".java", charset, "package " + pkg + ".service;\n\n" + comment
+                + interfaceKeyword + service + " {\n" + declarations + "}\n");
+        addName(CodeAnalysisTool.ROWS_SERVICE, service);
+        write(src + "/service/impl/" + serviceImpl + ".java", charset, "package " + pkg + ".service.impl;\n\n"
+                + "import " + pkg + ".service." + service + ";\nimport " + pkg + ".manager." + manager + ";\n"
+                + "import org.springframework.beans.factory.annotation.Autowired;\n"
+                + "import org.springframework.stereotype.Service;\n\n" + comment
+                + "@Service\npublic class " + serviceImpl + " implements " + service + " {\n"
+                // GBK中"運"的第二个字节是反斜杠：按UTF-8误解码时会转义掉结束引号，后面的字段被当作字符串内容
+                + "    private static final String MESSAGE = \"批次運行中\";\n"
+                + "    @Autowired\n    private " + manager + " " + lower + "Manager;\n" + bodies + "}\n");
+        addName(CodeAnalysisTool.ROWS_SERVICE_IMPL, serviceImpl);
+
+        write(src + "/manager/" + manager + ".java", charset, "package " + pkg + ".manager;\n\n" + comment
+                + interfaceKeyword + manager + " {\n" + declarations + "}\n");
+        addName(CodeAnalysisTool.ROWS_MANAGER, manager);
+        write(src + "/manager/impl/" + managerImpl + ".java", charset, "package " + pkg + ".manager.impl;\n\n"
+                + "import " + pkg + ".manager." + manager + ";\nimport " + pkg + ".dao." + dao + ";\n"
+                + "import org.springframework.beans.factory.annotation.Autowired;\n"
+                + "import org.springframework.transaction.annotation.Transactional;\n\n" + comment
+                + "@Transactional\npublic class " + managerImpl + " implements " + manager + " {\n"
+                + "    @Autowired\n    private " + dao + " " + lower + "Dao;\n" + bodies + "}\n");
+        addName(CodeAnalysisTool.ROWS_MANAGER_IMPL, managerImpl);
+
+        write(src + "/dao/" + dao + ".java", charset, "package " + pkg + ".dao;\n\n" + comment
+                + interfaceKeyword + dao + " {\n" + declarations + "}\n");
+        addName(CodeAnalysisTool.ROWS_DAO, dao);
+        // 每50个实体中有1个生成的大DaoImpl（数千个方法），检验大文件优先调度和单文件预算
+        int daoMethods = index % 50 == 49 ? 1000 : methodCount;
+        write(src + "/dao/impl/" + daoImpl + ".java", charset, "package " + pkg + ".dao.impl;\n\n"
+                + "import " + pkg + ".dao." + dao + ";\nimport org.springframework.stereotype.Repository;\n\n" + comment
+                + "@Repository\npublic class " + daoImpl + " implements " + dao + " {\n"
+                + methods("public String ", "(String id) {\n        String sql = \"SELECT * FROM T_" + entity.toUpperCase()
+                + " WHERE ID = ? AND REMARK <> '已删除'\";\n        return sql;\n    }\n", daoMethods) + "}\n");
+        addName(CodeAnalysisTool.ROWS_DAO_IMPL, daoImpl);
+
+        // JSP：两个不同的.do路径（其中一个出现两次），带查询参数的路径不计
+        write("WebRoot/" + module + "/" + lower + ".jsp", charset,
+                "<%@ page contentType=\"text/html; charset=" + charset.name() + "\" %>\n"
+                        + "<html>\n<body>\n<h1>" + entity + "查询</h1>\n"
+                        + "<form action=\"/" + module + "/" + lower + "Query.do\" method=\"post\">\n"
+                        + "  <a href='/" + module + "/" + lower + "Save.do'>保存</a>\n"
+                        + "  <a href='/" + module + "/" + lower + "Save.do'>再次保存</a>\n"
+                        + "  <a href=\"/" + module + "/" + lower + "Query.do?mode=detail\">明细</a>\n"
+                        + "</form>\n</body>\n</html>\n");
+        addRows(CodeAnalysisTool.ROWS_DO_PATH, 2);
+    }
+
+    private static String actionMapping(String module, String pkg, String entity, String lower, int index) {
+        StringBuilder mapping = new StringBuilder();
+        String actionClass = index % 7 == 5 ? entity + "Handler" : entity + "Action";
+        mapping.append("        <action path=\"/").append(module).append('/').append(lower).append("Query\" type=\"")
+                .append(pkg).append(".action.").append(actionClass).append("\" name=\"").append(lower).append("Form\"");
+        if (index % 5 == 4) {
+            // 没有forward的映射占一行
+            return mapping.append("/>\n").toString();
+        }
+        mapping.append(">\n")
+                .append("            <forward name=\"success\" path=\"/").append(module).append('/').append(lower).append(".jsp\"/>\n")
+                .append("            <forward name=\"failure\" path=\"/common/error.jsp\"/>\n")
+                .append("        </action>\n");
+        return mapping.toString();
+    }
+
+    private static String strutsConfig(Charset charset, CharSequence formBeans, CharSequence mappings) {
+        return "<?xml version=\"1.0\" encoding=\"" + charset.name() + "\"?>\n"
+                + "<!DOCTYPE struts-config PUBLIC \"-//Apache Software Foundation//DTD Struts Configuration 1.2//EN\" "
+                + "\"http://struts.apache.org/dtds/struts-config_1_2.dtd\">\n"
+                + "<!-- 合成测试配置 -->\n"
+                + "<struts-config>\n    <form-beans>\n" + formBeans + "    </form-beans>\n"
+                + "    <action-mappings>\n" + mappings + "    </action-mappings>\n</struts-config>\n";
+    }
+
+    private String methods(String prefix, String suffix, int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("\n    ").append(prefix).append("method").append(i).append(suffix);
+        }
+        return body.toString();
+    }
+
+    private void write(String relativePath, Charset charset, String content) throws Exception {
+        File file = new File(root, relativePath);
+        File dir = file.getParentFile();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new RuntimeException("❌ 无法创建目录：" + dir.getAbsolutePath());
+        }
+        byte[] bytes = content.getBytes(charset);
+        Files.write(file.toPath(), bytes);
+        fileCount++;
+        byteCount += bytes.length;
+    }
+
+    private void addRows(String sheetId, int rows) {
+        expectedRows.merge(sheetId, rows, Integer::sum);
+    }
+
+    private void addName(String sheetId, String className) {
+        uniqueNames.get(sheetId).add(className.toLowerCase());
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * 内置Sheet应有的行数（Sheet id → 行数）；Service/Manager/Dao各Sheet按小写类名去重
+     */
+    Map<String, Integer> getExpectedRows() {
+        Map<String, Integer> rows = new LinkedHashMap<>(expectedRows);
+        for (Map.Entry<String, Set<String>> entry : uniqueNames.entrySet()) {
+            rows.put(entry.getKey(), entry.getValue().size());
+        }
+        return rows;
+    }
+
+    /**
+     * Struts配置Sheet中应标为重复的行数
+     */
+    int getDuplicateStrutsRows() {
+        return duplicateStrutsRows;
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    long getByteCount() {
+        return byteCount;
+    }
+}